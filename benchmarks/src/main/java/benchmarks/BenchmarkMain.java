@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON to benchmarks/target/jmh-result.json, so runs can be compared.
+ * Takes the usual JMH command line options, e.g. a benchmark regex, -f 1 or -rff other.json.
+ * Usage, from the project directory: java -jar benchmarks/target/benchmarks.jar [regex] [jmh options]
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException {
+		CommandLineOptions commandLine;
+		try {
+			commandLine = new CommandLineOptions(args);
+		} catch (CommandLineOptionException e) {
+			System.err.println("Invalid options: " + e.getMessage());
+			return;
+		}
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLine);
+		if (!commandLine.getResult().hasValue()) {
+			options.result(Fixtures.projectDir().resolve("benchmarks").resolve("target").resolve("jmh-result.json").toString());
+		}
+		if (!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		// fixtures are read relative to the project directory
+		options.jvmArgsAppend("-Dproject.dir=" + Fixtures.projectDir().toAbsolutePath());
+		Options built = options.build();
+		new Runner(built).run();
+	}
+}
@@ -0,0 +1,172 @@
+package benchmarks;
+
+import hotelapp.ExpediaDescriptionExtractor;
+import hotelapp.HotelSearch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the streaming ExpediaDescriptionExtractor against the regular expressions that scan the whole page.
+ * Runs on the saved expedia pages (*.html) of the given directory, for example saved with
+ * curl -o pages/h12539.html https://www.expedia.com/h12539.Hotel-Information, and on synthetic pages of
+ * growing size with the descriptions near the top, near the bottom and missing.
+ * The regular expressions get the page read line by line and joined, like the page was read before,
+ * the streaming extractor reads the page from a reader. Checks that both find the same descriptions and prints
+ * the average time, characters read and bytes allocated per page.
+ * Usage, from the project directory:
+ * java -cp benchmarks/target/benchmarks.jar benchmarks.ExpediaDescriptionBenchmark [-pages directoryOfSavedPages] [-runs numberOfRuns]
+ */
+public class ExpediaDescriptionBenchmark {
+
+	/** Sizes of the synthetic pages in characters */
+	private static final int[] SIZES = { 100000, 1000000, 5000000 };
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> argsMap = HotelSearch.parseArgs(args);
+		int runs = argsMap.get("-runs") != null ? Integer.parseInt(argsMap.get("-runs")) : 20;
+
+		Map<String, String> pages = new LinkedHashMap<>();
+		if (argsMap.get("-pages") != null) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(argsMap.get("-pages")), "*.html")) {
+				for (Path file : files) {
+					pages.put(file.getFileName().toString(), Files.readString(file, StandardCharsets.UTF_8));
+				}
+			}
+		}
+		Random random = new Random(42);
+		for (int size : SIZES) {
+			pages.put(size / 1000 + "k, descriptions at 10%", synthetic(size, 0.1, random));
+			pages.put(size / 1000 + "k, descriptions at 90%", synthetic(size, 0.9, random));
+			pages.put(size / 1000 + "k, no descriptions", synthetic(size, -1, random));
+		}
+
+		System.out.printf("%-32s %10s %12s %12s %12s %12s%n", "page", "chars", "stream read",
+				"regex ms", "stream ms", "regex/stream");
+		for (Map.Entry<String, String> page : pages.entrySet()) {
+			run(page.getKey(), page.getValue(), runs);
+		}
+	}
+
+	/**
+	 * Extracts the descriptions of the page with both approaches
+	 * @param name name of the page
+	 * @param html html of the page
+	 * @param runs number of runs of each approach
+	 * @throws IOException never, the page is read from memory
+	 */
+	private static void run(String name, String html, int runs) throws IOException {
+		ExpediaDescriptionExtractor byRegex = null;
+		ExpediaDescriptionExtractor byStream = null;
+		// warm up
+		for (int i = 0; i < runs; i++) {
+			byRegex = ExpediaDescriptionExtractor.extractWithRegex(joinLines(new StringReader(html)));
+			byStream = ExpediaDescriptionExtractor.extract(new StringReader(html));
+		}
+		check(byRegex, byStream);
+
+		long regexBytes = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			ExpediaDescriptionExtractor.extractWithRegex(joinLines(new StringReader(html)));
+		}
+		long regexNanos = System.nanoTime() - start;
+		regexBytes = allocatedBytes() - regexBytes;
+
+		long streamBytes = allocatedBytes();
+		start = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			ExpediaDescriptionExtractor.extract(new StringReader(html));
+		}
+		long streamNanos = System.nanoTime() - start;
+		streamBytes = allocatedBytes() - streamBytes;
+
+		System.out.printf("%-32s %10d %12d %12.2f %12.2f %11.1fx%n", name, html.length(), byStream.getCharsRead(),
+				regexNanos / 1e6 / runs, streamNanos / 1e6 / runs, (double) regexNanos / streamNanos);
+		System.out.printf("%-32s %10s %12s %9d KB %9d KB%n", "  allocated per page", "", "",
+				regexBytes / 1024 / runs, streamBytes / 1024 / runs);
+	}
+
+	/**
+	 * Reads the page line by line and joins the lines, the way the page was read for the regular expressions
+	 * @param page reader of the page
+	 * @return page without line breaks
+	 * @throws IOException if the page can not be read
+	 */
+	private static String joinLines(Reader page) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[8192];
+		int n;
+		while ((n = page.read(buffer)) != -1) {
+			for (int i = 0; i < n; i++) {
+				if (buffer[i] != '\n' && buffer[i] != '\r') {
+					sb.append(buffer[i]);
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Creates a page of scripts and markup with the descriptions at the given position
+	 * @param size approximate size of the page in characters
+	 * @param position position of the descriptions between 0 and 1, negative for a page without descriptions
+	 * @param random random generator for the filler
+	 * @return html of the page
+	 */
+	private static String synthetic(int size, double position, Random random) {
+		StringBuilder sb = new StringBuilder(size + 1000);
+		sb.append("<!DOCTYPE html>\n<html><head><title>Hotel</title></head>\n<body>\n");
+		boolean added = false;
+		while (sb.length() < size) {
+			if (!added && position >= 0 && sb.length() >= size * position) {
+				sb.append("<section><h2>About this area</h2>\n<div class=\"uitk-text\"><h4 class=\"uitk-heading\">Downtown</h4>\n")
+						.append("<div><p class=\"uitk-paragraph\">Steps from the waterfront and the city&#x27;s museums.</p></div></div></section>\n")
+						.append("<section><h2>About this property</h2>\n<h4 class=\"uitk-heading\">Hotel with rooftop bar</h4>\n")
+						.append("<p class=\"uitk-paragraph\">A smoke-free hotel with a restaurant, a fitness center and free WiFi.</p></section>\n");
+				added = true;
+			}
+			sb.append("<div class=\"c").append(random.nextInt(1000)).append("\"><span>")
+					.append(Long.toHexString(random.nextLong())).append("</span><a href=\"/h").append(random.nextInt(100000))
+					.append("\">link</a></div>\n");
+			sb.append("<script>window.__data = {\"id\":").append(random.nextInt()).append(",\"p\":\"")
+					.append(Long.toHexString(random.nextLong())).append("\"};</script>\n");
+		}
+		sb.append("</body></html>\n");
+		return sb.toString();
+	}
+
+	/**
+	 * Checks that both approaches found the same descriptions
+	 * @param byRegex descriptions found by the regular expressions
+	 * @param byStream descriptions found by the streaming extractor
+	 */
+	private static void check(ExpediaDescriptionExtractor byRegex, ExpediaDescriptionExtractor byStream) {
+		if (!byRegex.getAreaDescription().equals(byStream.getAreaDescription())
+				|| !byRegex.getPropertyDescription().equals(byStream.getPropertyDescription())) {
+			throw new IllegalStateException("Regular expressions and streaming extractor found different descriptions");
+		}
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread so far
+	 * @return allocated bytes, 0 if the JVM does not measure them
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+}
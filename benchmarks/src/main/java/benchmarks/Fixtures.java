@@ -0,0 +1,158 @@
+package benchmarks;
+
+import hotelapp.HotelReview;
+import hotelapp.ThreadSafeHotelData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reproducible fixtures of the benchmarks. Synthetic reviews are generated from a Random seeded with SEED, so every
+ * run and every fork benchmarks the same data; the review files are the files of input/reviews in sorted order.
+ * Review titles and texts are kept on heap (no ReviewTextStore), so runs do not depend on the text store file.
+ * The project directory is the value of the project.dir system property, otherwise the working directory or
+ * its parent, whichever has the input directory.
+ */
+public final class Fixtures {
+
+	/** Seed of the synthetic reviews */
+	public static final long SEED = 42;
+
+	/** Nicknames of the synthetic reviews, few enough that reviews of the same date are ordered by nickname */
+	private static final String[] USERS = { "Anonymous", "traveler", "Mike", "Sara", "jdoe", "Tom", "Anna", "Lee" };
+
+	private static final String[] WORDS = { "room", "clean", "staff", "friendly", "location", "great", "breakfast",
+			"noisy", "parking", "view", "bed", "comfortable", "walk", "downtown", "price", "would", "stay", "again",
+			"the", "and", "was", "very", "not", "bathroom", "small", "helpful", "front", "desk", "pool", "quiet" };
+
+	private Fixtures() {
+	}
+
+	/**
+	 * Arguments of one synthetic review, in the order of the HotelReview constructor
+	 */
+	public static class ReviewFixture {
+		public final String reviewId;
+		public final String hotelId;
+		public final String user;
+		public final int rating;
+		public final boolean recommended;
+		public final String title;
+		public final String text;
+		public final String date;
+
+		private ReviewFixture(String reviewId, String hotelId, String user, int rating, boolean recommended,
+				String title, String text, String date) {
+			this.reviewId = reviewId;
+			this.hotelId = hotelId;
+			this.user = user;
+			this.rating = rating;
+			this.recommended = recommended;
+			this.title = title;
+			this.text = text;
+			this.date = date;
+		}
+
+		/**
+		 * Creates the review, parsing its date like the review files are parsed
+		 * @return review with on heap text
+		 */
+		public HotelReview toReview() {
+			return new HotelReview(reviewId, hotelId, user, rating, recommended, title, text, date, null);
+		}
+	}
+
+	/**
+	 * Generates synthetic reviews spread over the hotels, dated between 2010 and 2019 at whole minutes so
+	 * reviews of the same time are compared by nickname and id
+	 * @param count number of reviews
+	 * @param hotels number of hotels, with ids "1" to hotels
+	 * @return reviews, the same for the same arguments
+	 */
+	public static List<ReviewFixture> reviews(int count, int hotels) {
+		Random random = new Random(SEED);
+		List<ReviewFixture> reviews = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String hotelId = String.valueOf(1 + random.nextInt(hotels));
+			String date = String.format("%04d-%02d-%02dT%02d:%02d:00", 2010 + random.nextInt(10), 1 + random.nextInt(12),
+					1 + random.nextInt(28), random.nextInt(24), random.nextInt(4) * 15);
+			reviews.add(new ReviewFixture(String.format("r%08d", i), hotelId, USERS[random.nextInt(USERS.length)],
+					1 + random.nextInt(5), random.nextBoolean(), words(random, 3 + random.nextInt(5)),
+					words(random, 20 + random.nextInt(80)), date));
+		}
+		return reviews;
+	}
+
+	/**
+	 * Loads the synthetic hotels and reviews into hotel data, one local data per hotel merged like
+	 * HotelDataBuilder merges a review file
+	 * @param hotels number of hotels
+	 * @param reviewsPerHotel average number of reviews per hotel
+	 * @return hotel data with on heap reviews
+	 */
+	public static ThreadSafeHotelData hotelData(int hotels, int reviewsPerHotel) {
+		ThreadSafeHotelData data = new ThreadSafeHotelData(null);
+		List<ThreadSafeHotelData> localData = new ArrayList<>();
+		for (int i = 1; i <= hotels; i++) {
+			data.addHotel(String.valueOf(i), "Hotel " + i, "San Francisco", "CA", i + " Market St", 37.7, -122.4);
+			ThreadSafeHotelData local = new ThreadSafeHotelData(null);
+			local.setPersistReviews(false);
+			localData.add(local);
+		}
+		for (ReviewFixture review : reviews(hotels * reviewsPerHotel, hotels)) {
+			localData.get(Integer.parseInt(review.hotelId) - 1).addReview(review.hotelId, review.reviewId,
+					review.rating, review.title, review.text, review.recommended, review.date, review.user);
+		}
+		for (int i = 1; i <= hotels; i++) {
+			data.combine(String.valueOf(i), localData.get(i - 1));
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the project directory, with the input and templates directories
+	 * @return project directory
+	 */
+	public static Path projectDir() {
+		String dir = System.getProperty("project.dir");
+		if (dir != null) {
+			return Paths.get(dir);
+		}
+		Path cwd = Paths.get("").toAbsolutePath();
+		if (!Files.isDirectory(cwd.resolve("input")) && cwd.getParent() != null
+				&& Files.isDirectory(cwd.getParent().resolve("input"))) {
+			return cwd.getParent();
+		}
+		return cwd;
+	}
+
+	/**
+	 * Returns the review files of input/reviews
+	 * @return json files, sorted by path
+	 */
+	public static List<Path> reviewFiles() {
+		try (Stream<Path> files = Files.walk(projectDir().resolve("input").resolve("reviews"))) {
+			return files.filter(file -> file.toString().endsWith(".json")).sorted().collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not list input/reviews, set -Dproject.dir: " + e);
+		}
+	}
+
+	private static String words(Random random, int count) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(' ');
+			}
+			sb.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return sb.toString();
+	}
+}
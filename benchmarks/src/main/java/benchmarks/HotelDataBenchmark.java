@@ -0,0 +1,56 @@
+package benchmarks;
+
+import hotelapp.HotelReview;
+import hotelapp.ThreadSafeHotelData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of HotelData.findReviewsByHotelId, the newest reviews of a hotel as shown on the reviews page,
+ * for hotels with few and with many reviews.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HotelDataBenchmark {
+
+	/** Number of hotels */
+	private static final int HOTELS = 100;
+
+	/** Average number of reviews per hotel */
+	@Param({ "20", "2000" })
+	public int reviewsPerHotel;
+
+	/** Number of reviews returned */
+	@Param({ "10", "100" })
+	public int count;
+
+	private ThreadSafeHotelData data;
+	private int next;
+
+	@Setup
+	public void setup() {
+		data = Fixtures.hotelData(HOTELS, reviewsPerHotel);
+	}
+
+	@Benchmark
+	public ArrayList<HotelReview> findReviewsByHotelId() {
+		next = next % HOTELS + 1;
+		return data.findReviewsByHotelId(String.valueOf(next), count);
+	}
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import hotelapp.HotelDataBuilder;
+import hotelapp.IngestionManifest;
+import hotelapp.ThreadSafeHotelData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of HotelDataBuilder parsing the review files of input/reviews: on the calling thread
+ * (reloadReviews, as the directory watcher does) and on the builder's thread pool (loadReviews, as at startup).
+ * Every file is in the ingestion manifest with its current size, time and hash, so the files are read, hashed,
+ * parsed and merged into the hotel data without writing to the DB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotelDataBuilderBenchmark {
+
+	private ThreadSafeHotelData data;
+	private IngestionManifest manifest;
+	private List<Path> files;
+	private Path reviewsDir;
+	private HotelDataBuilder reloadingBuilder;
+
+	@Setup
+	public void setup() throws IOException {
+		data = new ThreadSafeHotelData();
+		new HotelDataBuilder(data).loadHotelInfo(Fixtures.projectDir().resolve("input").resolve("hotels.json").toString());
+		reviewsDir = Fixtures.projectDir().resolve("input").resolve("reviews");
+		files = Fixtures.reviewFiles();
+		manifest = new IngestionManifest();
+		for (Path file : files) {
+			manifest.put(new IngestionManifest.FileEntry(file.toString(), null, Files.size(file),
+					Files.getLastModifiedTime(file).toMillis(), IngestionManifest.hash(Files.readAllBytes(file)),
+					new HashMap<>()));
+		}
+		// reloadReviews parses on the calling thread, one builder is enough
+		reloadingBuilder = builder();
+	}
+
+	private HotelDataBuilder builder() {
+		HotelDataBuilder builder = new HotelDataBuilder(data);
+		builder.setManifest(manifest, false);
+		return builder;
+	}
+
+	@Benchmark
+	public ThreadSafeHotelData parseOnCallingThread() {
+		reloadingBuilder.reloadReviews(files);
+		return data;
+	}
+
+	@Benchmark
+	public ThreadSafeHotelData parseOnThreadPool() {
+		// loadReviews shuts the pool of its builder down, so every invocation starts a new pool like the server
+		builder().loadReviews(reviewsDir);
+		return data;
+	}
+}
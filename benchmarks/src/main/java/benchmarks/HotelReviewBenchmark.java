@@ -0,0 +1,89 @@
+package benchmarks;
+
+import hotelapp.HotelReview;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of HotelReview: construction with the date string of the review files (parsed with a new
+ * SimpleDateFormat per review) against construction with an already parsed date, compareTo, and inserting
+ * the reviews of a hotel into the TreeSet that keeps them sorted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HotelReviewBenchmark {
+
+	/** Number of reviews inserted into the TreeSet */
+	@Param({ "100", "10000" })
+	public int reviews;
+
+	private List<Fixtures.ReviewFixture> fixtures;
+	private List<HotelReview> parsed;
+	private List<Date> dates;
+	private int next;
+
+	@Setup
+	public void setup() {
+		fixtures = Fixtures.reviews(reviews, 1);
+		parsed = new ArrayList<>();
+		dates = new ArrayList<>();
+		for (Fixtures.ReviewFixture fixture : fixtures) {
+			HotelReview review = fixture.toReview();
+			parsed.add(review);
+			dates.add(review.getReviewDate());
+		}
+	}
+
+	private int nextIndex() {
+		int index = next;
+		next = (next + 1) % fixtures.size();
+		return index;
+	}
+
+	@Benchmark
+	public HotelReview constructParsingDate() {
+		return fixtures.get(nextIndex()).toReview();
+	}
+
+	@Benchmark
+	public HotelReview constructWithDate() {
+		int index = nextIndex();
+		Fixtures.ReviewFixture fixture = fixtures.get(index);
+		return new HotelReview(fixture.reviewId, fixture.hotelId, fixture.user, fixture.rating, fixture.recommended,
+				fixture.title, fixture.text, dates.get(index), null);
+	}
+
+	@Benchmark
+	public void compareTo(Blackhole blackhole) {
+		int index = nextIndex();
+		blackhole.consume(parsed.get(index).compareTo(parsed.get((index + 1) % parsed.size())));
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public TreeSet<HotelReview> treeSetInsert() {
+		TreeSet<HotelReview> set = new TreeSet<>();
+		set.addAll(parsed);
+		return set;
+	}
+}
@@ -0,0 +1,139 @@
+package benchmarks;
+
+import hotelapp.HotelDataBuilder;
+import hotelapp.HotelDetails;
+import hotelapp.HotelSearch;
+import hotelapp.HotelSpatialIndex;
+import hotelapp.ThreadSafeHotelData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the HotelSpatialIndex against a linear scan over all hotels.
+ * Loads the hotels from the hotels json file and also runs on larger synthetic sets made of copies of the
+ * hotels moved by up to JITTER_DEGREES, since the input file has only a few hundred hotels.
+ * Checks that both give the same hotels and prints the average time per query.
+ * Usage, from the project directory:
+ * java -cp benchmarks/target/benchmarks.jar benchmarks.HotelSpatialIndexBenchmark -hotels hotelFile [-queries numberOfQueries]
+ */
+public class HotelSpatialIndexBenchmark {
+
+	/** Maximum distance in degrees a synthetic copy of a hotel is moved */
+	private static final double JITTER_DEGREES = 0.5;
+
+	/** Sizes of the synthetic hotel sets */
+	private static final int[] SIZES = { 1000, 10000, 100000 };
+
+	/** Radius of the radius queries in miles */
+	private static final double RADIUS = 2;
+
+	/** Number of hotels returned by the k nearest queries */
+	private static final int K = 10;
+
+	public static void main(String[] args) {
+		Map<String, String> argsMap = HotelSearch.parseArgs(args);
+		if (argsMap.get("-hotels") == null) {
+			System.out.println("Usage: -hotels hotelFile [-queries numberOfQueries]");
+			return;
+		}
+		int queries = argsMap.get("-queries") != null ? Integer.parseInt(argsMap.get("-queries")) : 10000;
+
+		ThreadSafeHotelData hdata = new ThreadSafeHotelData();
+		new HotelDataBuilder(hdata).loadHotelInfo(argsMap.get("-hotels"));
+		List<HotelDetails> hotels = new ArrayList<>();
+		for (String hotelId : hdata.getHotels()) {
+			hotels.add(hdata.findHotelById(hotelId));
+		}
+
+		Random random = new Random(42);
+		run(hotels, queries, random);
+		for (int size : SIZES) {
+			run(synthetic(hotels, size, random), queries, random);
+		}
+	}
+
+	/**
+	 * Runs radius and k nearest queries around random hotels with the index and with a linear scan
+	 * @param hotels hotels to search
+	 * @param queries number of queries
+	 * @param random random generator for the query points
+	 */
+	private static void run(List<HotelDetails> hotels, int queries, Random random) {
+		long start = System.nanoTime();
+		HotelSpatialIndex index = new HotelSpatialIndex(hotels);
+		long buildMs = (System.nanoTime() - start) / 1000000;
+
+		double[][] points = new double[queries][];
+		for (int i = 0; i < queries; i++) {
+			HotelDetails hotel = hotels.get(random.nextInt(hotels.size()));
+			points[i] = new double[] { hotel.getLatitude() + random.nextGaussian() * 0.01,
+					hotel.getLongitude() + random.nextGaussian() * 0.01 };
+		}
+
+		long indexRadius = 0, linearRadius = 0, indexNearest = 0, linearNearest = 0, found = 0;
+		for (double[] point : points) {
+			start = System.nanoTime();
+			List<HotelSpatialIndex.Neighbor> indexed = index.withinRadius(point[0], point[1], RADIUS);
+			indexRadius += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			List<HotelSpatialIndex.Neighbor> scanned = HotelSpatialIndex.linearWithinRadius(hotels, point[0], point[1], RADIUS);
+			linearRadius += System.nanoTime() - start;
+			check(indexed, scanned);
+			found += indexed.size();
+
+			start = System.nanoTime();
+			indexed = index.nearest(point[0], point[1], K);
+			indexNearest += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			scanned = HotelSpatialIndex.linearNearest(hotels, point[0], point[1], K);
+			linearNearest += System.nanoTime() - start;
+			check(indexed, scanned);
+		}
+
+		System.out.println(hotels.size() + " hotels, index built in " + buildMs + " ms, "
+				+ (found / queries) + " hotels within " + RADIUS + " miles on average");
+		System.out.printf("  radius:  index %8.1f us/query, linear scan %8.1f us/query%n",
+				indexRadius / 1000.0 / queries, linearRadius / 1000.0 / queries);
+		System.out.printf("  nearest: index %8.1f us/query, linear scan %8.1f us/query%n",
+				indexNearest / 1000.0 / queries, linearNearest / 1000.0 / queries);
+	}
+
+	/**
+	 * Creates copies of the hotels moved by a random distance
+	 * @param hotels hotels to copy
+	 * @param size number of copies
+	 * @param random random generator
+	 * @return synthetic hotels
+	 */
+	private static List<HotelDetails> synthetic(List<HotelDetails> hotels, int size, Random random) {
+		List<HotelDetails> copies = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			HotelDetails hotel = hotels.get(i % hotels.size());
+			copies.add(new HotelDetails(hotel.getId() + "-" + i, hotel.getName(), hotel.getStreet(), hotel.getCity(), hotel.getState(),
+					hotel.getLatitude() + (random.nextDouble() * 2 - 1) * JITTER_DEGREES,
+					hotel.getLongitude() + (random.nextDouble() * 2 - 1) * JITTER_DEGREES));
+		}
+		return copies;
+	}
+
+	/**
+	 * Checks that the index found the same hotels as the linear scan
+	 * @param indexed hotels found by the index
+	 * @param scanned hotels found by the linear scan
+	 */
+	private static void check(List<HotelSpatialIndex.Neighbor> indexed, List<HotelSpatialIndex.Neighbor> scanned) {
+		if (indexed.size() != scanned.size()) {
+			throw new IllegalStateException("Index found " + indexed.size() + " hotels, linear scan " + scanned.size());
+		}
+		for (int i = 0; i < indexed.size(); i++) {
+			if (Math.abs(indexed.get(i).getDistance() - scanned.get(i).getDistance()) > 1e-9) {
+				throw new IllegalStateException("Index and linear scan found different hotels");
+			}
+		}
+	}
+}
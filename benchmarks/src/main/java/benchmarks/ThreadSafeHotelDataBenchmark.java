@@ -0,0 +1,125 @@
+package benchmarks;
+
+import hotelapp.HotelReview;
+import hotelapp.ReviewOrder;
+import hotelapp.ThreadSafeHotelData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of ThreadSafeHotelData under concurrent merges, the way HotelDataBuilder workers merge the reviews
+ * of a file: each thread adds the reviews of its hotels to a local ThreadSafeHotelData and combines it into the
+ * shared data, contending on its write lock. The merge/read group runs merges next to threads reading the top
+ * reviews of hotels, as requests do while the directory watcher reloads files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ThreadSafeHotelDataBenchmark {
+
+	/** Number of hotels */
+	public static final int HOTELS = 64;
+
+	/** Reviews merged per hotel */
+	public static final int REVIEWS_PER_HOTEL = 20;
+
+	/**
+	 * Hotel data shared by all threads, with the hotels and their reviews
+	 */
+	@State(Scope.Benchmark)
+	public static class SharedData {
+		ThreadSafeHotelData data;
+
+		@Setup
+		public void setup() {
+			data = Fixtures.hotelData(HOTELS, REVIEWS_PER_HOTEL);
+		}
+	}
+
+	/**
+	 * Reviews merged by one thread, grouped by hotel; threads merge different hotels where they can
+	 */
+	@State(Scope.Thread)
+	public static class ThreadReviews {
+		List<List<Fixtures.ReviewFixture>> reviewsByHotel;
+		int next;
+
+		@Setup
+		public void setup(ThreadParams threadParams) {
+			reviewsByHotel = new ArrayList<>();
+			for (int i = 0; i < HOTELS; i++) {
+				reviewsByHotel.add(new ArrayList<>());
+			}
+			for (Fixtures.ReviewFixture review : Fixtures.reviews(HOTELS * REVIEWS_PER_HOTEL, HOTELS)) {
+				reviewsByHotel.get(Integer.parseInt(review.hotelId) - 1).add(review);
+			}
+			next = threadParams.getThreadIndex() % HOTELS;
+		}
+
+		int nextHotel() {
+			int hotel = next;
+			next = (next + 1) % HOTELS;
+			return hotel;
+		}
+	}
+
+	/**
+	 * Adds the reviews of the next hotel to local data and combines it into the shared data
+	 */
+	private static ThreadSafeHotelData merge(SharedData shared, ThreadReviews reviews) {
+		int hotel = reviews.nextHotel();
+		String hotelId = String.valueOf(hotel + 1);
+		ThreadSafeHotelData localData = new ThreadSafeHotelData(null);
+		localData.setPersistReviews(false);
+		for (Fixtures.ReviewFixture review : reviews.reviewsByHotel.get(hotel)) {
+			localData.addReview(review.hotelId, review.reviewId, review.rating, review.title, review.text,
+					review.recommended, review.date, review.user);
+		}
+		shared.data.combine(hotelId, localData);
+		return localData;
+	}
+
+	@Benchmark
+	@Threads(1)
+	public ThreadSafeHotelData mergeSingleThread(SharedData shared, ThreadReviews reviews) {
+		return merge(shared, reviews);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public ThreadSafeHotelData mergeFourThreads(SharedData shared, ThreadReviews reviews) {
+		return merge(shared, reviews);
+	}
+
+	@Benchmark
+	@Group("mergeWhileReading")
+	@GroupThreads(2)
+	public ThreadSafeHotelData merging(SharedData shared, ThreadReviews reviews) {
+		return merge(shared, reviews);
+	}
+
+	@Benchmark
+	@Group("mergeWhileReading")
+	@GroupThreads(2)
+	public List<HotelReview> reading(SharedData shared, ThreadReviews reviews) {
+		return shared.data.findTopReviews(String.valueOf(reviews.nextHotel() + 1), 20, ReviewOrder.NEWEST);
+	}
+}
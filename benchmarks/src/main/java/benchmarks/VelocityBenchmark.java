@@ -0,0 +1,70 @@
+package benchmarks;
+
+import hotelapp.HotelReview;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of rendering templates/reviews.html with the context ReviewsServlet builds, for the default page of
+ * 20 reviews and a long page. The template is loaded once, like the engine caches it in the server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class VelocityBenchmark {
+
+	/** Number of reviews on the page */
+	@Param({ "20", "200" })
+	public int reviews;
+
+	private Template template;
+	private VelocityContext context;
+
+	@Setup
+	public void setup() {
+		VelocityEngine velocity = new VelocityEngine();
+		velocity.setProperty("file.resource.loader.path", Fixtures.projectDir().toString());
+		velocity.setProperty("file.resource.loader.cache", "true");
+		velocity.init();
+		template = velocity.getTemplate("templates/reviews.html");
+
+		List<HotelReview> hotelReviews = new ArrayList<>();
+		for (Fixtures.ReviewFixture fixture : Fixtures.reviews(reviews, 1)) {
+			hotelReviews.add(fixture.toReview());
+		}
+		context = new VelocityContext();
+		context.put("name", "Hotel 1");
+		context.put("reviews", hotelReviews);
+		context.put("hotelId", "1");
+		context.put("username", "Sara");
+		context.put("order", "newest");
+		context.put("count", reviews);
+	}
+
+	@Benchmark
+	public String render() {
+		StringWriter writer = new StringWriter();
+		template.merge(context, writer);
+		return writer.toString();
+	}
+}
@@ -0,0 +1,170 @@
+package loadtest;
+
+import hotelapp.HotelDetails;
+import hotelapp.LatencyHistogram;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load test of a running server: a number of virtual users log in, then send the requests of
+ * the route mix as fast as the server answers them (or with a think time between requests). The requests
+ * of the warmup are not recorded; during the measurement the latency of every request and the errors are
+ * recorded per route.
+ */
+public class LoadTest {
+
+	private final URI base;
+	private final List<HotelDetails> hotels;
+	private final Map<Route, Integer> mix;
+	private final int totalWeight;
+	private final long thinkMillis;
+	private final Map<Route, LatencyHistogram> latencies = new EnumMap<>(Route.class);
+	private final Map<Route, LongAdder> errors = new EnumMap<>(Route.class);
+	private volatile long measureFrom = Long.MAX_VALUE;
+	private volatile long stopAt = Long.MAX_VALUE;
+
+	/**
+	 * Constructor of this class
+	 * @param base URI of the server, e.g. http://localhost:8081/
+	 * @param hotels hotels the users look at, search and review
+	 * @param mix share of the requests of each route
+	 * @param thinkMillis pause of each user between requests
+	 */
+	public LoadTest(URI base, List<HotelDetails> hotels, Map<Route, Integer> mix, long thinkMillis) {
+		this.base = base;
+		this.hotels = new ArrayList<>(hotels);
+		this.mix = new EnumMap<>(mix);
+		this.thinkMillis = thinkMillis;
+		int total = 0;
+		for (Route route : Route.values()) {
+			total += this.mix.getOrDefault(route, 0);
+			latencies.put(route, new LatencyHistogram());
+			errors.put(route, new LongAdder());
+		}
+		if (total <= 0 || this.hotels.isEmpty()) {
+			throw new IllegalArgumentException("Load test needs hotels and a route with a positive weight");
+		}
+		this.totalWeight = total;
+	}
+
+	/**
+	 * Returns the default mix of the routes
+	 * @return weights by route
+	 */
+	public static Map<Route, Integer> defaultMix() {
+		Map<Route, Integer> mix = new EnumMap<>(Route.class);
+		for (Route route : Route.values()) {
+			mix.put(route, route.getDefaultWeight());
+		}
+		return mix;
+	}
+
+	/**
+	 * Runs the load test
+	 * @param users number of virtual users
+	 * @param warmup time before the requests are recorded
+	 * @param duration time during which the requests are recorded
+	 * @param seed seed of the random choices of the users
+	 * @return results of the measurement
+	 * @throws InterruptedException if interrupted while waiting for the users
+	 */
+	public LoadTestReport run(int users, Duration warmup, Duration duration, long seed) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(users);
+		List<VirtualUser> loggedIn = new ArrayList<>();
+		try {
+			for (int i = 0; i < users; i++) {
+				VirtualUser user = new VirtualUser(this, i, seed + i);
+				if (user.login()) {
+					loggedIn.add(user);
+				}
+			}
+			System.out.println(loggedIn.size() + " of " + users + " users logged in");
+			if (loggedIn.isEmpty()) {
+				return null;
+			}
+
+			long now = System.nanoTime();
+			measureFrom = now + warmup.toNanos();
+			stopAt = measureFrom + duration.toNanos();
+			for (VirtualUser user : loggedIn) {
+				pool.execute(user);
+			}
+			pool.shutdown();
+			// requests still running at the end are waited for, up to their timeout
+			if (!pool.awaitTermination(warmup.plus(duration).toMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS)) {
+				System.err.println("Users did not stop in time");
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return new LoadTestReport(loggedIn.size(), duration, mix, latencies, errors);
+	}
+
+	/**
+	 * Picks the route of the next request from the mix
+	 * @param random random of the user
+	 * @return route
+	 */
+	Route nextRoute(Random random) {
+		int pick = random.nextInt(totalWeight);
+		for (Route route : Route.values()) {
+			pick -= mix.getOrDefault(route, 0);
+			if (pick < 0) {
+				return route;
+			}
+		}
+		return Route.values()[Route.values().length - 1];
+	}
+
+	/**
+	 * Picks the hotel of the next request
+	 * @param random random of the user
+	 * @return hotel
+	 */
+	HotelDetails randomHotel(Random random) {
+		return hotels.get(random.nextInt(hotels.size()));
+	}
+
+	/**
+	 * Records a request if it started during the measurement
+	 * @param route route of the request
+	 * @param start start of the request, from System.nanoTime
+	 * @param end end of the request, from System.nanoTime
+	 * @param ok whether the request succeeded
+	 */
+	void record(Route route, long start, long end, boolean ok) {
+		if (start < measureFrom || start >= stopAt) {
+			return;
+		}
+		latencies.get(route).recordNanos(end - start);
+		if (!ok) {
+			errors.get(route).increment();
+		}
+	}
+
+	/**
+	 * Returns whether the measurement is over
+	 * @return true if no more requests should be sent
+	 */
+	boolean isOver() {
+		return System.nanoTime() >= stopAt;
+	}
+
+	URI getBase() {
+		return base;
+	}
+
+	long getThinkMillis() {
+		return thinkMillis;
+	}
+}
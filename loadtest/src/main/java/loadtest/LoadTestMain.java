@@ -0,0 +1,212 @@
+package loadtest;
+
+import hotelapp.HotelDataBuilder;
+import hotelapp.HotelDetails;
+import hotelapp.HotelSearch;
+import hotelapp.IngestionManifest;
+import hotelapp.ThreadSafeHotelData;
+import jettyServer.DatabaseConnector;
+import jettyServer.HotelDatabaseHandler;
+import jettyServer.JettyHotelServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the hotel server in this JVM on the in-memory stand-in database, seeded from the hotels and reviews of
+ * input/, runs a load test against it and compares the results with a stored baseline.
+ * Run it from the project directory, so the server finds templates/:
+ * java -jar loadtest/target/loadtest.jar [-users 16] [-warmup 10] [-duration 60] [-think 0]
+ *     [-mix search=30,hotelInfo=25,reviews=25,addReview=10,profile=10] [-seed 42]
+ *     [-hotels input/hotels.json] [-reviews input/reviews] [-results loadtest/target/loadtest-result.json]
+ *     [-baseline loadtest/baseline.json] [-tolerance 0.25] [-saveBaseline true]
+ * Exits with 1 if a route regressed against the baseline, 2 if the test could not run.
+ */
+public class LoadTestMain {
+
+	/** Name of the stand-in database */
+	private static final String DATABASE = "loadtest";
+
+	/** Time to wait for the server to load the hotel data and start */
+	private static final long STARTUP_MINUTES = 10;
+
+	public static void main(String[] args) {
+		Map<String, String> argsMap = HotelSearch.parseArgs(args);
+		int status;
+		try {
+			status = run(argsMap);
+		} catch (IllegalArgumentException e) {
+			System.err.println("Invalid arguments: " + e.getMessage());
+			status = 2;
+		} catch (IOException e) {
+			System.err.println("Load test failed: " + e);
+			status = 2;
+		} catch (InterruptedException e) {
+			System.err.println("Load test interrupted");
+			status = 2;
+		}
+		// stops the server, whose threads would keep the JVM running
+		System.exit(status);
+	}
+
+	private static int run(Map<String, String> argsMap) throws IOException, InterruptedException {
+		int users = Integer.parseInt(argsMap.getOrDefault("-users", "16"));
+		Duration warmup = Duration.ofSeconds(Long.parseLong(argsMap.getOrDefault("-warmup", "10")));
+		Duration duration = Duration.ofSeconds(Long.parseLong(argsMap.getOrDefault("-duration", "60")));
+		long thinkMillis = Long.parseLong(argsMap.getOrDefault("-think", "0"));
+		long seed = Long.parseLong(argsMap.getOrDefault("-seed", "42"));
+		double tolerance = Double.parseDouble(argsMap.getOrDefault("-tolerance", "0.25"));
+		Map<Route, Integer> mix = argsMap.get("-mix") != null ? parseMix(argsMap.get("-mix")) : LoadTest.defaultMix();
+		Path results = Paths.get(argsMap.getOrDefault("-results", "loadtest/target/loadtest-result.json"));
+		Path baseline = Paths.get(argsMap.getOrDefault("-baseline", "loadtest/baseline.json"));
+		if (users <= 0 || duration.isZero() || duration.isNegative() || warmup.isNegative()) {
+			throw new IllegalArgumentException("users and duration must be positive");
+		}
+		if (!Files.isDirectory(Paths.get("templates"))) {
+			System.err.println("Run the load test from the project directory, templates/ was not found");
+			return 2;
+		}
+
+		URI base = startServer(argsMap.getOrDefault("-hotels", "input/hotels.json"),
+				argsMap.getOrDefault("-reviews", "input/reviews"));
+		if (base == null) {
+			return 2;
+		}
+		List<HotelDetails> hotels = hotels();
+		if (hotels.isEmpty()) {
+			System.err.println("No hotels in the database");
+			return 2;
+		}
+
+		System.out.println("Running " + users + " users for " + warmup.getSeconds() + " s warmup and "
+				+ duration.getSeconds() + " s measurement, mix " + mix);
+		LoadTestReport report = new LoadTest(base, hotels, mix, thinkMillis).run(users, warmup, duration, seed);
+		if (report == null) {
+			System.err.println("No user could log in");
+			return 2;
+		}
+		report.print(System.out);
+		report.write(results);
+		System.out.println("Results written to " + results);
+
+		if ("true".equalsIgnoreCase(argsMap.get("-saveBaseline"))) {
+			report.write(baseline);
+			System.out.println("Baseline written to " + baseline);
+			return 0;
+		}
+		if (!Files.isRegularFile(baseline)) {
+			System.out.println("No baseline at " + baseline + ", run with -saveBaseline true to store one");
+			return 0;
+		}
+		return report.compare(LoadTestReport.read(baseline), tolerance, System.out) ? 1 : 0;
+	}
+
+	/**
+	 * Parses a mix like search=30,hotelInfo=25
+	 * @param mix weights by route name
+	 * @return weights by route, routes that are not listed are not requested
+	 */
+	private static Map<Route, Integer> parseMix(String mix) {
+		Map<Route, Integer> weights = new EnumMap<>(Route.class);
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.split("=");
+			Route route = parts.length == 2 ? Route.fromName(parts[0]) : null;
+			if (route == null) {
+				throw new IllegalArgumentException("Unknown route in mix: " + entry);
+			}
+			weights.put(route, Integer.parseInt(parts[1].trim()));
+		}
+		return weights;
+	}
+
+	/**
+	 * Points the DB handlers to the stand-in database, seeds it with the hotels and reviews and starts the server
+	 * on a daemon thread, with the same hotels and reviews loaded in memory and without the precompute jobs
+	 * @param hotels path of the hotels json file
+	 * @param reviews path of the reviews directory
+	 * @return URI of the server, null if it did not start
+	 */
+	private static URI startServer(String hotels, String reviews) throws IOException, InterruptedException {
+		try (ServerSocket socket = new ServerSocket(JettyHotelServer.PORT)) {
+			socket.setReuseAddress(true);
+		} catch (IOException e) {
+			System.err.println("Port " + JettyHotelServer.PORT + " is in use, stop the server running on it");
+			return null;
+		}
+		Path config = Files.createTempFile("loadtest-database", ".properties");
+		config.toFile().deleteOnExit();
+		Files.write(config, List.of(
+				"username=" + DATABASE,
+				"password=",
+				"uri=" + MemoryDriver.uri(DATABASE)));
+		System.setProperty(DatabaseConnector.CONFIG_PROPERTY, config.toString());
+		seed(hotels, reviews);
+
+		// no background fetches of attractions and descriptions, they would call Places API and expedia and
+		// compete with the measured requests
+		String[] serverArgs = { "-hotels", hotels, "-reviews", reviews, "-precompute", "false" };
+		Thread server = new Thread(() -> JettyHotelServer.main(serverArgs), "JettyHotelServer");
+		server.setDaemon(true);
+		long start = System.nanoTime();
+		server.start();
+
+		URI base = URI.create("http://localhost:" + JettyHotelServer.PORT + "/");
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+		HttpRequest ping = HttpRequest.newBuilder(base.resolve("/login")).timeout(Duration.ofSeconds(30)).build();
+		long deadline = start + TimeUnit.MINUTES.toNanos(STARTUP_MINUTES);
+		while (server.isAlive() && System.nanoTime() < deadline) {
+			try {
+				if (client.send(ping, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+					System.out.println("Server started in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+					return base;
+				}
+			} catch (IOException e) {
+				// not listening yet
+			}
+			Thread.sleep(500);
+		}
+		System.err.println("Server did not start");
+		return null;
+	}
+
+	/**
+	 * Writes the hotels and reviews to the database: the hotels like addHotelsMapToDB does for a new database,
+	 * the reviews like the builder does for files missing from the ingestion manifest
+	 * @param hotels path of the hotels json file
+	 * @param reviews path of the reviews directory
+	 */
+	private static void seed(String hotels, String reviews) {
+		long start = System.nanoTime();
+		ThreadSafeHotelData data = new ThreadSafeHotelData();
+		HotelDataBuilder builder = new HotelDataBuilder(data);
+		builder.setManifest(new IngestionManifest(), false);
+		builder.loadHotelInfo(hotels);
+		builder.loadReviews(Paths.get(reviews));
+		data.addHotelsMapToDB();
+		System.out.println("Seeded " + MemoryDriver.describe(DATABASE) + " in "
+				+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+	}
+
+	/**
+	 * Returns the hotels of the database
+	 * @return hotels
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<HotelDetails> hotels() {
+		List<HotelDetails> hotels = HotelDatabaseHandler.getInstance().getAllHotels();
+		return hotels != null ? hotels : new ArrayList<>();
+	}
+}
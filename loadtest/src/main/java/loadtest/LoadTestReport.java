@@ -0,0 +1,203 @@
+package loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import hotelapp.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results of a load test: throughput, error count and latency percentiles of every route.
+ * Reports are stored as JSON, so a run can be compared against a stored baseline: a route regressed if its
+ * throughput dropped, its median or 99th percentile latency grew by more than the tolerance, or its error
+ * rate grew by more than a percent.
+ */
+public class LoadTestReport {
+
+	/** Latency increases below this are noise, whatever the tolerance */
+	private static final double MIN_LATENCY_INCREASE_MILLIS = 1;
+
+	/** Increase of the error rate that is a regression */
+	private static final double MAX_ERROR_RATE_INCREASE = 0.01;
+
+	private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	private int users;
+	private double durationSeconds;
+	private Map<String, RouteResult> routes = new LinkedHashMap<>();
+
+	/**
+	 * Results of one route
+	 */
+	public static class RouteResult {
+		private int weight;
+		private long requests;
+		private long errors;
+		private double throughput;
+		private double meanMillis;
+		private double p50Millis;
+		private double p90Millis;
+		private double p99Millis;
+		private double maxMillis;
+
+		/**
+		 * Returns the share of the errors of the requests
+		 * @return error rate between 0 and 1
+		 */
+		public double getErrorRate() {
+			return requests == 0 ? 0 : (double) errors / requests;
+		}
+	}
+
+	private LoadTestReport() {
+	}
+
+	/**
+	 * Creates the report of a measurement
+	 * @param users number of virtual users
+	 * @param duration duration of the measurement
+	 * @param mix share of the requests of each route
+	 * @param latencies latencies of the requests by route
+	 * @param errors failed requests by route
+	 */
+	LoadTestReport(int users, Duration duration, Map<Route, Integer> mix, Map<Route, LatencyHistogram> latencies,
+	               Map<Route, LongAdder> errors) {
+		this.users = users;
+		this.durationSeconds = duration.toMillis() / 1000.0;
+		for (Route route : Route.values()) {
+			LatencyHistogram histogram = latencies.get(route);
+			RouteResult result = new RouteResult();
+			result.weight = mix.getOrDefault(route, 0);
+			result.requests = histogram.getCount();
+			result.errors = errors.get(route).sum();
+			result.throughput = round(result.requests / durationSeconds);
+			result.meanMillis = round(result.requests == 0 ? 0 : histogram.getSumMicros() / 1000.0 / result.requests);
+			result.p50Millis = round(histogram.getPercentileMicros(50) / 1000.0);
+			result.p90Millis = round(histogram.getPercentileMicros(90) / 1000.0);
+			result.p99Millis = round(histogram.getPercentileMicros(99) / 1000.0);
+			result.maxMillis = round(histogram.getMaxMicros() / 1000.0);
+			routes.put(route.getName(), result);
+		}
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+
+	/**
+	 * Prints the results as a table
+	 * @param out stream to print to
+	 */
+	public void print(PrintStream out) {
+		out.printf("%d users, %.0f s%n", users, durationSeconds);
+		out.printf("%-10s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+				"route", "requests", "errors", "req/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms");
+		long requests = 0;
+		long failed = 0;
+		for (Map.Entry<String, RouteResult> entry : routes.entrySet()) {
+			RouteResult result = entry.getValue();
+			requests += result.requests;
+			failed += result.errors;
+			out.printf("%-10s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), result.requests,
+					result.errors, result.throughput, result.meanMillis, result.p50Millis, result.p90Millis,
+					result.p99Millis, result.maxMillis);
+		}
+		out.printf("%-10s %8d %7d %9.2f%n", "total", requests, failed, requests / durationSeconds);
+	}
+
+	/**
+	 * Compares the results with a baseline and prints the changes of every route
+	 * @param baseline stored results to compare with
+	 * @param tolerance allowed relative change of the throughput and latencies, e.g. 0.25
+	 * @param out stream to print to
+	 * @return true if a route regressed
+	 */
+	public boolean compare(LoadTestReport baseline, double tolerance, PrintStream out) {
+		boolean regressed = false;
+		out.printf("Compared with baseline (%d users, %.0f s), tolerance %.0f%%%n",
+				baseline.users, baseline.durationSeconds, tolerance * 100);
+		if (baseline.users != users) {
+			out.println("Warning: the baseline was measured with " + baseline.users + " users");
+		}
+		out.printf("%-10s %22s %22s %22s %14s  %s%n", "route", "req/s", "p50 ms", "p99 ms", "error rate", "result");
+		for (Map.Entry<String, RouteResult> entry : routes.entrySet()) {
+			RouteResult result = entry.getValue();
+			RouteResult base = baseline.routes.get(entry.getKey());
+			if (base == null || base.requests == 0 || result.requests == 0) {
+				out.printf("%-10s %22s %22s %22s %14s  %s%n", entry.getKey(), "", "", "", "", "not compared");
+				continue;
+			}
+			StringBuilder problems = new StringBuilder();
+			if (result.throughput < base.throughput * (1 - tolerance)) {
+				problems.append("throughput ");
+			}
+			if (slower(result.p50Millis, base.p50Millis, tolerance)) {
+				problems.append("p50 ");
+			}
+			if (slower(result.p99Millis, base.p99Millis, tolerance)) {
+				problems.append("p99 ");
+			}
+			if (result.getErrorRate() > base.getErrorRate() + MAX_ERROR_RATE_INCREASE) {
+				problems.append("errors ");
+			}
+			regressed |= problems.length() > 0;
+			out.printf("%-10s %22s %22s %22s %14s  %s%n", entry.getKey(),
+					change(base.throughput, result.throughput), change(base.p50Millis, result.p50Millis),
+					change(base.p99Millis, result.p99Millis),
+					String.format("%.1f%% -> %.1f%%", base.getErrorRate() * 100, result.getErrorRate() * 100),
+					problems.length() == 0 ? "ok" : "REGRESSED " + problems.toString().trim());
+		}
+		return regressed;
+	}
+
+	private static boolean slower(double millis, double baseMillis, double tolerance) {
+		return millis > baseMillis * (1 + tolerance) && millis - baseMillis > MIN_LATENCY_INCREASE_MILLIS;
+	}
+
+	private static String change(double base, double value) {
+		return String.format("%.1f -> %.1f %+.0f%%", base, value, base == 0 ? 0 : (value - base) / base * 100);
+	}
+
+	/**
+	 * Writes the report as JSON
+	 * @param file path of the file
+	 * @throws IOException if the file could not be written
+	 */
+	public void write(Path file) throws IOException {
+		if (file.toAbsolutePath().getParent() != null) {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+		}
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			gson.toJson(this, writer);
+		}
+	}
+
+	/**
+	 * Reads a report written by write
+	 * @param file path of the file
+	 * @return report
+	 * @throws IOException if the file could not be read or is not a report
+	 */
+	public static LoadTestReport read(Path file) throws IOException {
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			LoadTestReport report = gson.fromJson(reader, LoadTestReport.class);
+			if (report == null || report.routes == null) {
+				throw new IOException("Not a load test report: " + file);
+			}
+			return report;
+		} catch (JsonParseException e) {
+			throw new IOException("Not a load test report: " + file, e);
+		}
+	}
+}
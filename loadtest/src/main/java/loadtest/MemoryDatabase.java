@@ -0,0 +1,910 @@
+package loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory stand-in for the MySQL database of the DB handlers, so the server can run without a database server.
+ * It runs the subset of SQL the handlers use: SHOW TABLES [LIKE 'table'], CREATE TABLE with primary keys, UNIQUE
+ * and AUTO_INCREMENT columns, INSERT with ON DUPLICATE KEY UPDATE col = VALUES(col), UPDATE, DELETE, and SELECT
+ * [DISTINCT] of columns or of AVG(column) with WHERE conditions joined by AND (col = value, col LIKE value,
+ * col IS NULL), ORDER BY and LIMIT with OFFSET. Like MySQL with its default collation strings compare case-insensitively,
+ * and DOUBLE(m,d) values are rounded to d decimals.
+ * Statements are parsed once per SQL string. Queries scan the whole table, like MySQL does for review_details,
+ * which has no index on hotelid; one read/write lock makes every statement atomic.
+ */
+class MemoryDatabase {
+
+	private final Map<String, Table> tables = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	private final Map<String, Command> commands = new ConcurrentHashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Runs a statement
+	 * @param sql SQL of the statement
+	 * @param params values of its ? parameters, in order
+	 * @return rows of a query, or the number of updated rows
+	 * @throws SQLException if the statement is not supported or fails
+	 */
+	Result execute(String sql, List<Object> params) throws SQLException {
+		Command command = commands.get(sql);
+		if (command == null) {
+			command = new Parser(sql).parse();
+			commands.put(sql, command);
+		}
+		if (params.size() < command.params) {
+			throw new SQLException("Missing parameter " + (params.size() + 1) + " of " + sql);
+		}
+		Lock held = command.isQuery() ? lock.readLock() : lock.writeLock();
+		held.lock();
+		try {
+			return command.run(params);
+		} finally {
+			held.unlock();
+		}
+	}
+
+	/**
+	 * Rows of a query, or the number of rows updated by a statement
+	 */
+	static class Result {
+		final List<String> labels;
+		final List<Object[]> rows;
+		final int updateCount;
+
+		private Result(List<String> labels, List<Object[]> rows) {
+			this.labels = labels;
+			this.rows = rows;
+			this.updateCount = -1;
+		}
+
+		private Result(int updateCount) {
+			this.labels = null;
+			this.rows = null;
+			this.updateCount = updateCount;
+		}
+
+		boolean isQuery() {
+			return rows != null;
+		}
+	}
+
+	/** Types of columns, VARCHAR, CHAR and the TEXT types are strings */
+	private enum Type { STRING, INTEGER, BIGINT, DOUBLE, BOOLEAN }
+
+	private static class Column {
+		String name;
+		Type type;
+		int scale = -1;
+		boolean notNull;
+		boolean unique;
+		boolean autoIncrement;
+	}
+
+	private static class Table {
+		final String name;
+		final List<Column> columns = new ArrayList<>();
+		final Map<String, Integer> indexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		final List<Integer> primaryKey = new ArrayList<>();
+		/** Rows by their primary key, in insertion order */
+		final Map<List<Object>, Object[]> rows = new LinkedHashMap<>();
+		long nextId = 1;
+
+		Table(String name) {
+			this.name = name;
+		}
+
+		int indexOf(String column) throws SQLException {
+			Integer index = indexes.get(column);
+			if (index == null) {
+				throw new SQLSyntaxErrorException("Unknown column '" + column + "' in " + name);
+			}
+			return index;
+		}
+
+		List<Object> keyOf(Object[] row) {
+			List<Object> key = new ArrayList<>(primaryKey.size());
+			for (int index : primaryKey) {
+				key.add(normalize(row[index]));
+			}
+			return key;
+		}
+	}
+
+	private Table table(String name) throws SQLException {
+		Table table = tables.get(name);
+		if (table == null) {
+			throw new SQLSyntaxErrorException("Table '" + name + "' doesn't exist");
+		}
+		return table;
+	}
+
+	/**
+	 * Value of a statement, a ? parameter or a literal
+	 */
+	private static class Value {
+		final int param;
+		final Object literal;
+
+		Value(int param, Object literal) {
+			this.param = param;
+			this.literal = literal;
+		}
+
+		Object get(List<Object> params) {
+			return param >= 0 ? params.get(param) : literal;
+		}
+	}
+
+	private static class Condition {
+		String column;
+		String operator;
+		Value value;
+	}
+
+	private static class Order {
+		String column;
+		boolean descending;
+	}
+
+	/**
+	 * Parsed statement
+	 */
+	private abstract class Command {
+		int params;
+
+		boolean isQuery() {
+			return false;
+		}
+
+		abstract Result run(List<Object> params) throws SQLException;
+
+		/**
+		 * Builds the test of the rows matching the conditions
+		 */
+		Predicate<Object[]> where(Table table, List<Condition> conditions, List<Object> params) throws SQLException {
+			Predicate<Object[]> predicate = row -> true;
+			for (Condition condition : conditions) {
+				int index = table.indexOf(condition.column);
+				Object value = condition.value == null ? null : condition.value.get(params);
+				switch (condition.operator) {
+					case "IS NULL":
+						predicate = predicate.and(row -> row[index] == null);
+						break;
+					case "LIKE":
+						Pattern pattern = value == null ? null : like(value.toString());
+						predicate = predicate.and(row -> pattern != null && row[index] != null
+								&& pattern.matcher(row[index].toString()).matches());
+						break;
+					default:
+						predicate = predicate.and(row -> row[index] != null && value != null && compare(row[index], value) == 0);
+				}
+			}
+			return predicate;
+		}
+	}
+
+	private class ShowTables extends Command {
+		Pattern pattern;
+
+		@Override
+		boolean isQuery() {
+			return true;
+		}
+
+		@Override
+		Result run(List<Object> params) {
+			List<Object[]> rows = new ArrayList<>();
+			for (String name : tables.keySet()) {
+				if (pattern == null || pattern.matcher(name).matches()) {
+					rows.add(new Object[] { name });
+				}
+			}
+			return new Result(List.of("Tables"), rows);
+		}
+	}
+
+	private class CreateTable extends Command {
+		Table table;
+
+		@Override
+		Result run(List<Object> params) throws SQLException {
+			if (tables.containsKey(table.name)) {
+				throw new SQLSyntaxErrorException("Table '" + table.name + "' already exists");
+			}
+			Table created = new Table(table.name);
+			created.columns.addAll(table.columns);
+			created.indexes.putAll(table.indexes);
+			created.primaryKey.addAll(table.primaryKey);
+			tables.put(created.name, created);
+			return new Result(0);
+		}
+	}
+
+	private class Insert extends Command {
+		String table;
+		List<String> columns = new ArrayList<>();
+		List<Value> values = new ArrayList<>();
+		/** Columns set to their inserted value when the key exists, null if the key must be new */
+		List<String> updateColumns;
+
+		@Override
+		Result run(List<Object> params) throws SQLException {
+			Table table = table(this.table);
+			Object[] row = new Object[table.columns.size()];
+			for (int i = 0; i < columns.size(); i++) {
+				int index = table.indexOf(columns.get(i));
+				row[index] = coerce(table.columns.get(index), values.get(i).get(params));
+			}
+			for (int index = 0; index < row.length; index++) {
+				Column column = table.columns.get(index);
+				if (row[index] == null && column.autoIncrement) {
+					row[index] = coerce(column, table.nextId++);
+				}
+				if (row[index] == null && column.notNull) {
+					throw new SQLIntegrityConstraintViolationException("Column '" + column.name + "' cannot be null");
+				}
+			}
+			List<Object> key = table.keyOf(row);
+			Object[] existing = table.rows.get(key);
+			if (existing != null) {
+				if (updateColumns == null) {
+					throw new SQLIntegrityConstraintViolationException("Duplicate entry " + key + " for key 'PRIMARY'");
+				}
+				for (String column : updateColumns) {
+					int index = table.indexOf(column);
+					existing[index] = row[index];
+				}
+				return new Result(2);
+			}
+			for (int index = 0; index < row.length; index++) {
+				if (table.columns.get(index).unique && row[index] != null) {
+					for (Object[] other : table.rows.values()) {
+						if (other[index] != null && compare(other[index], row[index]) == 0) {
+							throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + row[index] + "' for key '"
+									+ table.columns.get(index).name + "'");
+						}
+					}
+				}
+			}
+			table.rows.put(key, row);
+			return new Result(1);
+		}
+	}
+
+	private class Update extends Command {
+		String table;
+		List<String> columns = new ArrayList<>();
+		List<Value> values = new ArrayList<>();
+		List<Condition> conditions = new ArrayList<>();
+
+		@Override
+		Result run(List<Object> params) throws SQLException {
+			Table table = table(this.table);
+			int[] indexes = new int[columns.size()];
+			Object[] updated = new Object[columns.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = table.indexOf(columns.get(i));
+				if (table.primaryKey.contains(indexes[i])) {
+					throw new SQLFeatureNotSupportedException("Updating the primary key of " + table.name);
+				}
+				updated[i] = coerce(table.columns.get(indexes[i]), values.get(i).get(params));
+			}
+			Predicate<Object[]> predicate = where(table, conditions, params);
+			int count = 0;
+			for (Object[] row : table.rows.values()) {
+				if (predicate.test(row)) {
+					for (int i = 0; i < indexes.length; i++) {
+						row[indexes[i]] = updated[i];
+					}
+					count++;
+				}
+			}
+			return new Result(count);
+		}
+	}
+
+	private class Delete extends Command {
+		String table;
+		List<Condition> conditions = new ArrayList<>();
+
+		@Override
+		Result run(List<Object> params) throws SQLException {
+			Table table = table(this.table);
+			Predicate<Object[]> predicate = where(table, conditions, params);
+			int before = table.rows.size();
+			table.rows.values().removeIf(predicate);
+			return new Result(before - table.rows.size());
+		}
+	}
+
+	private class Select extends Command {
+		String table;
+		boolean distinct;
+		List<String> columns = new ArrayList<>();
+		/** Averaged column, null if the columns are selected */
+		String average;
+		String averageLabel;
+		List<Condition> conditions = new ArrayList<>();
+		List<Order> orders = new ArrayList<>();
+		Value limit;
+		Value offset;
+
+		@Override
+		boolean isQuery() {
+			return true;
+		}
+
+		@Override
+		Result run(List<Object> params) throws SQLException {
+			Table table = table(this.table);
+			Predicate<Object[]> predicate = where(table, conditions, params);
+			if (average != null) {
+				int index = table.indexOf(average);
+				double sum = 0;
+				int count = 0;
+				for (Object[] row : table.rows.values()) {
+					if (predicate.test(row) && row[index] instanceof Number) {
+						sum += ((Number) row[index]).doubleValue();
+						count++;
+					}
+				}
+				List<Object[]> rows = new ArrayList<>();
+				rows.add(new Object[] { count == 0 ? null : sum / count });
+				return new Result(List.of(averageLabel), rows);
+			}
+
+			List<Object[]> matches = new ArrayList<>();
+			for (Object[] row : table.rows.values()) {
+				if (predicate.test(row)) {
+					matches.add(row);
+				}
+			}
+			if (!orders.isEmpty()) {
+				Comparator<Object[]> comparator = null;
+				for (Order order : orders) {
+					int index = table.indexOf(order.column);
+					Comparator<Object[]> byColumn = (a, b) -> compare(a[index], b[index]);
+					byColumn = order.descending ? byColumn.reversed() : byColumn;
+					comparator = comparator == null ? byColumn : comparator.thenComparing(byColumn);
+				}
+				matches.sort(comparator);
+			}
+
+			int[] indexes = new int[columns.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = table.indexOf(columns.get(i));
+			}
+			long max = Long.MAX_VALUE;
+			if (limit != null) {
+				Object value = limit.get(params);
+				if (!(value instanceof Number)) {
+					throw new SQLException("Invalid LIMIT " + value);
+				}
+				max = ((Number) value).longValue();
+			}
+			long skip = 0;
+			if (offset != null) {
+				Object value = offset.get(params);
+				if (!(value instanceof Number)) {
+					throw new SQLException("Invalid OFFSET " + value);
+				}
+				skip = ((Number) value).longValue();
+			}
+			List<Object[]> rows = new ArrayList<>();
+			Set<List<Object>> seen = distinct ? new LinkedHashSet<>() : null;
+			for (Object[] row : matches) {
+				if (rows.size() >= max) {
+					break;
+				}
+				Object[] projected = new Object[indexes.length];
+				for (int i = 0; i < indexes.length; i++) {
+					projected[i] = row[indexes[i]];
+				}
+				if (seen != null) {
+					List<Object> normalized = new ArrayList<>();
+					for (Object value : projected) {
+						normalized.add(normalize(value));
+					}
+					if (!seen.add(normalized)) {
+						continue;
+					}
+				}
+				if (skip > 0) {
+					skip--;
+					continue;
+				}
+				rows.add(projected);
+			}
+			return new Result(columns, rows);
+		}
+	}
+
+	/**
+	 * Compares values like MySQL: nulls first, numbers and booleans by value, strings ignoring case
+	 */
+	static int compare(Object a, Object b) {
+		if (a == null || b == null) {
+			return a == null ? (b == null ? 0 : -1) : 1;
+		}
+		a = a instanceof Boolean ? ((Boolean) a ? 1.0 : 0.0) : a;
+		b = b instanceof Boolean ? ((Boolean) b ? 1.0 : 0.0) : b;
+		if (a instanceof Number && b instanceof Number) {
+			return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+		}
+		if (a instanceof Number || b instanceof Number) {
+			try {
+				double number = Double.parseDouble((a instanceof Number ? b : a).toString().trim());
+				double other = ((Number) (a instanceof Number ? a : b)).doubleValue();
+				return a instanceof Number ? Double.compare(other, number) : Double.compare(number, other);
+			} catch (NumberFormatException e) {
+				// compared as strings below
+			}
+		}
+		return String.CASE_INSENSITIVE_ORDER.compare(a.toString(), b.toString());
+	}
+
+	/**
+	 * Returns the value as it is compared in keys
+	 */
+	private static Object normalize(Object value) {
+		if (value instanceof String) {
+			return ((String) value).toLowerCase(Locale.ROOT);
+		}
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		return value;
+	}
+
+	/**
+	 * Converts a LIKE pattern to a regular expression
+	 */
+	private static Pattern like(String pattern) {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c == '\\' && i + 1 < pattern.length()) {
+				regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+			} else if (c == '%') {
+				regex.append(".*");
+			} else if (c == '_') {
+				regex.append('.');
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+	}
+
+	/**
+	 * Converts a value to the type of the column
+	 */
+	private static Object coerce(Column column, Object value) throws SQLException {
+		if (value == null) {
+			return null;
+		}
+		try {
+			switch (column.type) {
+				case INTEGER:
+					return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim());
+				case BIGINT:
+					return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString().trim());
+				case DOUBLE:
+					double number = value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString().trim());
+					if (column.scale >= 0 && !Double.isNaN(number) && !Double.isInfinite(number)) {
+						number = BigDecimal.valueOf(number).setScale(column.scale, RoundingMode.HALF_UP).doubleValue();
+					}
+					return number;
+				case BOOLEAN:
+					if (value instanceof Boolean) {
+						return value;
+					}
+					if (value instanceof Number) {
+						return ((Number) value).doubleValue() != 0;
+					}
+					return "1".equals(value.toString().trim()) || "true".equalsIgnoreCase(value.toString().trim());
+				default:
+					return value instanceof Boolean ? ((Boolean) value ? "1" : "0") : value.toString();
+			}
+		} catch (NumberFormatException e) {
+			throw new SQLException("Incorrect value '" + value + "' for column '" + column.name + "'");
+		}
+	}
+
+	/**
+	 * Recursive descent parser of the supported statements
+	 */
+	private class Parser {
+		private final String sql;
+		private final List<String> tokens = new ArrayList<>();
+		private int position;
+		private int params;
+
+		Parser(String sql) throws SQLException {
+			this.sql = sql;
+			tokenize();
+		}
+
+		private void tokenize() throws SQLException {
+			int i = 0;
+			while (i < sql.length()) {
+				char c = sql.charAt(i);
+				if (Character.isWhitespace(c) || c == ';') {
+					i++;
+				} else if (Character.isLetter(c) || c == '_') {
+					int start = i;
+					while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+						i++;
+					}
+					tokens.add(sql.substring(start, i));
+				} else if (Character.isDigit(c)) {
+					int start = i;
+					while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+						i++;
+					}
+					tokens.add(sql.substring(start, i));
+				} else if (c == '\'') {
+					StringBuilder literal = new StringBuilder("'");
+					i++;
+					while (true) {
+						if (i >= sql.length()) {
+							throw new SQLSyntaxErrorException("Unterminated string in " + sql);
+						}
+						if (sql.charAt(i) == '\'') {
+							if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+								literal.append('\'');
+								i += 2;
+								continue;
+							}
+							i++;
+							break;
+						}
+						literal.append(sql.charAt(i++));
+					}
+					tokens.add(literal.toString());
+				} else {
+					tokens.add(String.valueOf(c));
+					i++;
+				}
+			}
+		}
+
+		private String peek() {
+			return position < tokens.size() ? tokens.get(position) : "";
+		}
+
+		private String next() throws SQLException {
+			if (position >= tokens.size()) {
+				throw error();
+			}
+			return tokens.get(position++);
+		}
+
+		private boolean accept(String token) {
+			if (peek().equalsIgnoreCase(token)) {
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(String token) throws SQLException {
+			if (!accept(token)) {
+				throw error();
+			}
+		}
+
+		private SQLException error() {
+			String near = position < tokens.size() ? "near '" + tokens.get(position) + "'" : "at the end";
+			return new SQLSyntaxErrorException("Unsupported SQL " + near + ": " + sql);
+		}
+
+		private String identifier() throws SQLException {
+			String token = next();
+			if (!Character.isLetter(token.charAt(0)) && token.charAt(0) != '_') {
+				position--;
+				throw error();
+			}
+			return token;
+		}
+
+		private List<String> identifiers() throws SQLException {
+			List<String> names = new ArrayList<>();
+			expect("(");
+			do {
+				names.add(identifier());
+			} while (accept(","));
+			expect(")");
+			return names;
+		}
+
+		private Value value() throws SQLException {
+			String token = next();
+			if (token.equals("?")) {
+				return new Value(params++, null);
+			}
+			if (token.startsWith("'")) {
+				return new Value(-1, token.substring(1));
+			}
+			if (Character.isDigit(token.charAt(0))) {
+				return new Value(-1, Double.parseDouble(token));
+			}
+			switch (token.toUpperCase(Locale.ROOT)) {
+				case "TRUE":
+					return new Value(-1, true);
+				case "FALSE":
+					return new Value(-1, false);
+				case "NULL":
+					return new Value(-1, null);
+			}
+			position--;
+			throw error();
+		}
+
+		private List<Condition> where() throws SQLException {
+			List<Condition> conditions = new ArrayList<>();
+			if (!accept("WHERE")) {
+				return conditions;
+			}
+			do {
+				Condition condition = new Condition();
+				condition.column = identifier();
+				if (accept("IS")) {
+					expect("NULL");
+					condition.operator = "IS NULL";
+				} else if (accept("LIKE")) {
+					condition.operator = "LIKE";
+					condition.value = value();
+				} else {
+					expect("=");
+					condition.operator = "=";
+					condition.value = value();
+				}
+				conditions.add(condition);
+			} while (accept("AND"));
+			return conditions;
+		}
+
+		Command parse() throws SQLException {
+			Command command;
+			if (accept("SHOW")) {
+				command = showTables();
+			} else if (accept("CREATE")) {
+				command = createTable();
+			} else if (accept("INSERT")) {
+				command = insert();
+			} else if (accept("UPDATE")) {
+				command = update();
+			} else if (accept("DELETE")) {
+				command = delete();
+			} else if (accept("SELECT")) {
+				command = select();
+			} else {
+				throw error();
+			}
+			if (position < tokens.size()) {
+				throw error();
+			}
+			command.params = params;
+			return command;
+		}
+
+		private Command showTables() throws SQLException {
+			expect("TABLES");
+			ShowTables show = new ShowTables();
+			if (accept("LIKE")) {
+				Value pattern = value();
+				if (pattern.param >= 0 || pattern.literal == null) {
+					throw error();
+				}
+				show.pattern = like(pattern.literal.toString());
+			}
+			return show;
+		}
+
+		private Command createTable() throws SQLException {
+			expect("TABLE");
+			Table table = new Table(identifier());
+			expect("(");
+			do {
+				if (accept("PRIMARY")) {
+					expect("KEY");
+					for (String name : identifiers()) {
+						table.primaryKey.add(table.indexOf(name));
+					}
+					continue;
+				}
+				Column column = new Column();
+				column.name = identifier();
+				String type = identifier().toUpperCase(Locale.ROOT);
+				switch (type) {
+					case "INT":
+					case "INTEGER":
+						column.type = Type.INTEGER;
+						break;
+					case "BIGINT":
+						column.type = Type.BIGINT;
+						break;
+					case "DOUBLE":
+						column.type = Type.DOUBLE;
+						break;
+					case "BOOLEAN":
+						column.type = Type.BOOLEAN;
+						break;
+					case "VARCHAR":
+					case "CHAR":
+					case "TEXT":
+					case "MEDIUMTEXT":
+						column.type = Type.STRING;
+						break;
+					default:
+						position--;
+						throw error();
+				}
+				if (accept("(")) {
+					next();
+					if (accept(",")) {
+						column.scale = Integer.parseInt(next());
+					}
+					expect(")");
+				}
+				while (true) {
+					if (accept("NOT")) {
+						expect("NULL");
+						column.notNull = true;
+					} else if (accept("NULL")) {
+						column.notNull = false;
+					} else if (accept("PRIMARY")) {
+						expect("KEY");
+						table.primaryKey.add(table.columns.size());
+					} else if (accept("UNIQUE")) {
+						column.unique = true;
+					} else if (accept("AUTO_INCREMENT")) {
+						column.autoIncrement = true;
+					} else {
+						break;
+					}
+				}
+				table.indexes.put(column.name, table.columns.size());
+				table.columns.add(column);
+			} while (accept(","));
+			expect(")");
+			if (table.primaryKey.isEmpty()) {
+				throw new SQLFeatureNotSupportedException("Tables without primary key: " + sql);
+			}
+			for (int index : table.primaryKey) {
+				table.columns.get(index).notNull = true;
+			}
+			CreateTable create = new CreateTable();
+			create.table = table;
+			return create;
+		}
+
+		private Command insert() throws SQLException {
+			expect("INTO");
+			Insert insert = new Insert();
+			insert.table = identifier();
+			insert.columns = identifiers();
+			expect("VALUES");
+			expect("(");
+			do {
+				insert.values.add(value());
+			} while (accept(","));
+			expect(")");
+			if (insert.columns.size() != insert.values.size()) {
+				throw new SQLSyntaxErrorException("Column count doesn't match value count: " + sql);
+			}
+			if (accept("ON")) {
+				expect("DUPLICATE");
+				expect("KEY");
+				expect("UPDATE");
+				insert.updateColumns = new ArrayList<>();
+				do {
+					String column = identifier();
+					expect("=");
+					expect("VALUES");
+					expect("(");
+					if (!identifier().equalsIgnoreCase(column)) {
+						throw new SQLFeatureNotSupportedException("Only col = VALUES(col) updates: " + sql);
+					}
+					expect(")");
+					insert.updateColumns.add(column);
+				} while (accept(","));
+			}
+			return insert;
+		}
+
+		private Command update() throws SQLException {
+			Update update = new Update();
+			update.table = identifier();
+			expect("SET");
+			do {
+				update.columns.add(identifier());
+				expect("=");
+				update.values.add(value());
+			} while (accept(","));
+			update.conditions = where();
+			return update;
+		}
+
+		private Command delete() throws SQLException {
+			expect("FROM");
+			Delete delete = new Delete();
+			delete.table = identifier();
+			delete.conditions = where();
+			return delete;
+		}
+
+		private Command select() throws SQLException {
+			Select select = new Select();
+			select.distinct = accept("DISTINCT");
+			if (accept("AVG")) {
+				expect("(");
+				select.average = identifier();
+				expect(")");
+				select.averageLabel = accept("AS") ? identifier() : "AVG(" + select.average + ")";
+			} else {
+				do {
+					select.columns.add(identifier());
+				} while (accept(","));
+			}
+			expect("FROM");
+			select.table = identifier();
+			select.conditions = where();
+			if (accept("ORDER")) {
+				expect("BY");
+				do {
+					Order order = new Order();
+					order.column = identifier();
+					order.descending = accept("DESC");
+					if (!order.descending) {
+						accept("ASC");
+					}
+					select.orders.add(order);
+				} while (accept(","));
+			}
+			if (accept("LIMIT")) {
+				select.limit = value();
+				if (accept("OFFSET")) {
+					select.offset = value();
+				}
+			}
+			return select;
+		}
+	}
+
+	@Override
+	public String toString() {
+		Map<String, Integer> sizes = new HashMap<>();
+		lock.readLock().lock();
+		try {
+			for (Table table : tables.values()) {
+				sizes.put(table.name, table.rows.size());
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return "MemoryDatabase" + new TreeMap<>(sizes);
+	}
+}
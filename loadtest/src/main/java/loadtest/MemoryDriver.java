@@ -0,0 +1,343 @@
+package loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver of the in-memory stand-in database, for URIs like jdbc:hotelapp-mem:name. Connections to the
+ * same name share one MemoryDatabase for the life of the JVM. Connections, statements and result sets are
+ * proxies implementing the methods the DB handlers call, other methods throw SQLFeatureNotSupportedException.
+ */
+public class MemoryDriver implements Driver {
+
+	/** Prefix of the URIs of this driver */
+	public static final String PREFIX = "jdbc:hotelapp-mem:";
+
+	private static final Map<String, MemoryDatabase> databases = new ConcurrentHashMap<>();
+
+	static {
+		try {
+			DriverManager.registerDriver(new MemoryDriver());
+		} catch (SQLException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Registers the driver and returns the URI of a database
+	 * @param name name of the database
+	 * @return URI to set as uri in the database properties
+	 */
+	public static String uri(String name) {
+		return PREFIX + name;
+	}
+
+	/**
+	 * Returns the tables of a database and their number of rows
+	 * @param name name of the database
+	 * @return description of the database, or null if nothing connected to it yet
+	 */
+	public static String describe(String name) {
+		MemoryDatabase database = databases.get(name);
+		return database == null ? null : database.toString();
+	}
+
+	@Override
+	public Connection connect(String url, Properties info) {
+		if (!acceptsURL(url)) {
+			return null;
+		}
+		MemoryDatabase database = databases.computeIfAbsent(url.substring(PREFIX.length()), name -> new MemoryDatabase());
+		return proxy(Connection.class, new ConnectionHandler(database));
+	}
+
+	@Override
+	public boolean acceptsURL(String url) {
+		return url != null && url.startsWith(PREFIX);
+	}
+
+	@Override
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+		return new DriverPropertyInfo[0];
+	}
+
+	@Override
+	public int getMajorVersion() {
+		return 1;
+	}
+
+	@Override
+	public int getMinorVersion() {
+		return 0;
+	}
+
+	@Override
+	public boolean jdbcCompliant() {
+		return false;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(MemoryDriver.class.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	/**
+	 * Handles the methods of Object and the methods common to all proxies
+	 */
+	private abstract static class Handler implements InvocationHandler {
+		boolean closed;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "toString":
+					return getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "close":
+					closed = true;
+					return null;
+				case "isClosed":
+					return closed;
+				case "getWarnings":
+					return null;
+				case "clearWarnings":
+					return null;
+				case "isWrapperFor":
+					return false;
+			}
+			if (closed) {
+				throw new SQLException(method.getName() + " called after close");
+			}
+			return handle(proxy, method.getName(), args);
+		}
+
+		abstract Object handle(Object proxy, String method, Object[] args) throws SQLException;
+	}
+
+	private static class ConnectionHandler extends Handler {
+		private final MemoryDatabase database;
+
+		ConnectionHandler(MemoryDatabase database) {
+			this.database = database;
+		}
+
+		@Override
+		Object handle(Object proxy, String method, Object[] args) throws SQLException {
+			switch (method) {
+				case "prepareStatement":
+					return MemoryDriver.proxy(PreparedStatement.class, new StatementHandler(database, (Connection) proxy, (String) args[0]));
+				case "createStatement":
+					return MemoryDriver.proxy(Statement.class, new StatementHandler(database, (Connection) proxy, null));
+				case "isValid":
+				case "getAutoCommit":
+					return true;
+				case "isReadOnly":
+					return false;
+				case "setAutoCommit":
+				case "setReadOnly":
+				case "commit":
+				case "rollback":
+					// every statement is committed when it runs
+					return null;
+			}
+			throw new SQLFeatureNotSupportedException("Connection." + method);
+		}
+	}
+
+	private static class StatementHandler extends Handler {
+		private final MemoryDatabase database;
+		private final Connection connection;
+		private final String sql;
+		private final List<Object> params = new ArrayList<>();
+		private final List<List<Object>> batch = new ArrayList<>();
+		private MemoryDatabase.Result result;
+		private ResultSet resultSet;
+
+		StatementHandler(MemoryDatabase database, Connection connection, String sql) {
+			this.database = database;
+			this.connection = connection;
+			this.sql = sql;
+		}
+
+		@Override
+		Object handle(Object proxy, String method, Object[] args) throws SQLException {
+			if (method.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				int index = (Integer) args[0];
+				while (params.size() < index) {
+					params.add(null);
+				}
+				params.set(index - 1, method.equals("setNull") ? null : args[1]);
+				return null;
+			}
+			switch (method) {
+				case "clearParameters":
+					params.clear();
+					return null;
+				case "executeQuery":
+					if (!run(args).isQuery()) {
+						throw new SQLException("Statement did not return a result set");
+					}
+					return resultSet;
+				case "executeUpdate":
+				case "executeLargeUpdate":
+					if (run(args).isQuery()) {
+						throw new SQLException("Statement returned a result set");
+					}
+					return method.equals("executeUpdate") ? (Object) result.updateCount : (Object) (long) result.updateCount;
+				case "execute":
+					return run(args).isQuery();
+				case "getResultSet":
+					return resultSet;
+				case "getUpdateCount":
+					return result == null ? -1 : result.updateCount;
+				case "addBatch":
+					batch.add(new ArrayList<>(params));
+					return null;
+				case "clearBatch":
+					batch.clear();
+					return null;
+				case "executeBatch":
+					int[] counts = new int[batch.size()];
+					try {
+						for (int i = 0; i < counts.length; i++) {
+							counts[i] = database.execute(sql, batch.get(i)).updateCount;
+						}
+					} finally {
+						batch.clear();
+					}
+					return counts;
+				case "getConnection":
+					return connection;
+				case "setQueryTimeout":
+				case "setFetchSize":
+				case "setMaxRows":
+				case "setEscapeProcessing":
+					return null;
+			}
+			throw new SQLFeatureNotSupportedException("Statement." + method);
+		}
+
+		private MemoryDatabase.Result run(Object[] args) throws SQLException {
+			String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+			if (executed == null) {
+				throw new SQLException("No SQL to execute");
+			}
+			result = database.execute(executed, executed.equals(sql) ? params : List.of());
+			resultSet = result.isQuery() ? MemoryDriver.proxy(ResultSet.class, new ResultSetHandler(result)) : null;
+			return result;
+		}
+	}
+
+	private static class ResultSetHandler extends Handler {
+		private final MemoryDatabase.Result result;
+		private int row = -1;
+		private boolean wasNull;
+
+		ResultSetHandler(MemoryDatabase.Result result) {
+			this.result = result;
+		}
+
+		@Override
+		Object handle(Object proxy, String method, Object[] args) throws SQLException {
+			switch (method) {
+				case "next":
+					row = Math.min(row + 1, result.rows.size());
+					return row < result.rows.size();
+				case "wasNull":
+					return wasNull;
+				case "findColumn":
+					return column(args[0]) + 1;
+				case "getObject":
+					return value(args[0]);
+				case "getString": {
+					Object value = value(args[0]);
+					if (value instanceof Boolean) {
+						return (Boolean) value ? "1" : "0";
+					}
+					return value == null ? null : value.toString();
+				}
+				case "getBoolean": {
+					Object value = value(args[0]);
+					if (value instanceof Boolean) {
+						return value;
+					}
+					return value != null && (value instanceof Number ? ((Number) value).doubleValue() != 0
+							: "1".equals(value.toString()) || "true".equalsIgnoreCase(value.toString()));
+				}
+				case "getDouble":
+					return number(args[0]);
+				case "getInt":
+					return (int) number(args[0]);
+				case "getLong":
+					return (long) number(args[0]);
+			}
+			throw new SQLFeatureNotSupportedException("ResultSet." + method);
+		}
+
+		private int column(Object column) throws SQLException {
+			if (column instanceof Integer) {
+				int index = (Integer) column - 1;
+				if (index < 0 || index >= result.labels.size()) {
+					throw new SQLException("Column index out of range: " + column);
+				}
+				return index;
+			}
+			for (int i = 0; i < result.labels.size(); i++) {
+				if (result.labels.get(i).equalsIgnoreCase((String) column)) {
+					return i;
+				}
+			}
+			throw new SQLException("Column '" + column + "' not found");
+		}
+
+		private Object value(Object column) throws SQLException {
+			if (row < 0 || row >= result.rows.size()) {
+				throw new SQLException("No current row");
+			}
+			Object value = result.rows.get(row)[column(column)];
+			wasNull = value == null;
+			return value;
+		}
+
+		private double number(Object column) throws SQLException {
+			Object value = value(column);
+			if (value == null) {
+				return 0;
+			}
+			if (value instanceof Number) {
+				return ((Number) value).doubleValue();
+			}
+			if (value instanceof Boolean) {
+				return (Boolean) value ? 1 : 0;
+			}
+			try {
+				return Double.parseDouble(value.toString().trim());
+			} catch (NumberFormatException e) {
+				throw new SQLException("Not a number: " + value);
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package loadtest;
+
+import java.util.Locale;
+
+/**
+ * Routes driven by the virtual users, with their default share of the requests.
+ */
+public enum Route {
+
+	/** Hotel search by name and/or city on the welcome page */
+	SEARCH("/welcome", 30),
+	/** Hotel info page with the descriptions of the hotel */
+	HOTEL_INFO("/hotelInfo", 25),
+	/** Page of reviews of a hotel, in one of the review orders */
+	REVIEWS("/reviews", 25),
+	/** New review of a hotel, posted from the add review form */
+	ADD_REVIEW("/addReview", 10),
+	/** Profile page with the saved hotels, visited links and reviews of the user */
+	PROFILE("/profile", 10);
+
+	private final String path;
+	private final int defaultWeight;
+
+	/**
+	 * Constructor of this enum
+	 * @param path path of the route
+	 * @param defaultWeight share of the requests when no mix is given
+	 */
+	Route(String path, int defaultWeight) {
+		this.path = path;
+		this.defaultWeight = defaultWeight;
+	}
+
+	/**
+	 * Returns the path of the route
+	 * @return path
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns the share of the requests when no mix is given
+	 * @return weight
+	 */
+	public int getDefaultWeight() {
+		return defaultWeight;
+	}
+
+	/**
+	 * Returns the name of the route in the mix and the results, e.g. hotelInfo
+	 * @return name
+	 */
+	public String getName() {
+		String[] words = name().toLowerCase(Locale.ROOT).split("_");
+		StringBuilder name = new StringBuilder(words[0]);
+		for (int i = 1; i < words.length; i++) {
+			name.append(Character.toUpperCase(words[i].charAt(0))).append(words[i].substring(1));
+		}
+		return name.toString();
+	}
+
+	/**
+	 * Returns the route by name
+	 * @param name name of the route, e.g. hotelInfo
+	 * @return route, null if there is none with this name
+	 */
+	public static Route fromName(String name) {
+		for (Route route : values()) {
+			if (route.getName().equalsIgnoreCase(name.trim())) {
+				return route;
+			}
+		}
+		return null;
+	}
+}
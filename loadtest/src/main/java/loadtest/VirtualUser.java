@@ -0,0 +1,198 @@
+package loadtest;
+
+import hotelapp.HotelDetails;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Virtual user of the load test: registers and logs in with its own session cookie, then sends requests of the
+ * route mix one after the other until the test ends, waiting the think time between requests.
+ * Redirects are not followed, so every request is timed on its own and a redirect to /login counts as an error.
+ */
+class VirtualUser implements Runnable {
+
+	/** Password of the virtual users, valid for LoginDatabaseHandler.registerUser */
+	private static final String PASSWORD = "load1@";
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	private static final String[] ORDERS = { "newest", "rating", "recommended" };
+
+	private final LoadTest test;
+	private final String username;
+	private final Random random;
+	private final HttpClient client;
+
+	/**
+	 * Constructor of this class
+	 * @param test load test the user belongs to
+	 * @param id number of the user, part of its username
+	 * @param seed seed of the random choices of the user
+	 */
+	VirtualUser(LoadTest test, int id, long seed) {
+		this.test = test;
+		this.username = "loadtest" + id;
+		this.random = new Random(seed);
+		this.client = HttpClient.newBuilder()
+				.cookieHandler(new CookieManager())
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.connectTimeout(TIMEOUT)
+				.build();
+	}
+
+	/**
+	 * Registers the user if needed and logs in
+	 * @return true if the user is logged in
+	 */
+	boolean login() {
+		Map<String, String> form = new LinkedHashMap<>();
+		form.put("user", username);
+		form.put("pwd", PASSWORD);
+		try {
+			// registration fails with a duplicate user when the DB is reused, the login tells if the user exists
+			send(post("/register", form));
+			HttpResponse<Void> response = send(post("/login", form));
+			String location = response.headers().firstValue("Location").orElse("");
+			// the redirect carries the session id in the URL as well, ;jsessionid=...
+			if (response.statusCode() == 302 && location.contains("/welcome")) {
+				return true;
+			}
+			System.err.println("Login of " + username + " failed: " + response.statusCode() + " " + location);
+		} catch (IOException e) {
+			System.err.println("Login of " + username + " failed: " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	/**
+	 * Sends requests until the test ends
+	 */
+	@Override
+	public void run() {
+		while (!test.isOver() && !Thread.currentThread().isInterrupted()) {
+			Route route = test.nextRoute(random);
+			HttpRequest request = request(route, test.randomHotel(random));
+			long start = System.nanoTime();
+			boolean ok;
+			try {
+				ok = succeeded(route, send(request));
+			} catch (IOException e) {
+				ok = false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			test.record(route, start, System.nanoTime(), ok);
+			if (test.getThinkMillis() > 0) {
+				try {
+					Thread.sleep(test.getThinkMillis());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the request of a route for a hotel, with parameters like the forms of the pages send
+	 */
+	private HttpRequest request(Route route, HotelDetails hotel) {
+		Map<String, String> params = new LinkedHashMap<>();
+		switch (route) {
+			case SEARCH:
+				// like the search form: a city of the list, quoted, and half of the users also type a word of the name
+				params.put("name", random.nextBoolean() ? nameWord(hotel) : "");
+				params.put("city", "\"" + hotel.getCity() + "\"");
+				return get(route.getPath(), params);
+			case HOTEL_INFO:
+				params.put("hotelId", hotel.getId());
+				return get(route.getPath(), params);
+			case REVIEWS:
+				params.put("hotelId", hotel.getId());
+				params.put("order", ORDERS[random.nextInt(ORDERS.length)]);
+				return get(route.getPath(), params);
+			case ADD_REVIEW:
+				params.put("hotelId", hotel.getId());
+				params.put("title", "Load test review " + random.nextInt(1000));
+				params.put("reviewText", "Stayed " + (1 + random.nextInt(7)) + " nights, written by the load test.");
+				params.put("isRecom", String.valueOf(random.nextBoolean()));
+				params.put("rating", String.valueOf(1 + random.nextInt(5)));
+				return post(route.getPath(), params);
+			default:
+				return get(route.getPath(), params);
+		}
+	}
+
+	/**
+	 * Returns a word of the hotel name to search for
+	 */
+	private String nameWord(HotelDetails hotel) {
+		List<String> words = List.of(hotel.getName().split("\\s+"));
+		String word = words.get(random.nextInt(words.size()));
+		return word.length() > 2 || words.size() == 1 ? word : words.get(0);
+	}
+
+	/**
+	 * Returns whether the response is the one of a successful request: the page, or for a new review the
+	 * redirect to the hotel info page
+	 */
+	private static boolean succeeded(Route route, HttpResponse<Void> response) {
+		if (route == Route.ADD_REVIEW) {
+			return response.statusCode() == 302
+					&& response.headers().firstValue("Location").orElse("").contains("/hotelInfo");
+		}
+		return response.statusCode() == 200;
+	}
+
+	private HttpResponse<Void> send(HttpRequest request) throws IOException, InterruptedException {
+		return client.send(request, HttpResponse.BodyHandlers.discarding());
+	}
+
+	private HttpRequest get(String path, Map<String, String> params) {
+		String query = encode(params);
+		return HttpRequest.newBuilder(uri(query.isEmpty() ? path : path + "?" + query))
+				.timeout(TIMEOUT)
+				.GET()
+				.build();
+	}
+
+	private HttpRequest post(String path, Map<String, String> form) {
+		return HttpRequest.newBuilder(uri(path))
+				.timeout(TIMEOUT)
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(encode(form)))
+				.build();
+	}
+
+	private URI uri(String pathAndQuery) {
+		return test.getBase().resolve(pathAndQuery);
+	}
+
+	private static String encode(Map<String, String> params) {
+		StringBuilder encoded = new StringBuilder();
+		for (Map.Entry<String, String> param : params.entrySet()) {
+			if (encoded.length() > 0) {
+				encoded.append('&');
+			}
+			encoded.append(URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8))
+					.append('=')
+					.append(URLEncoder.encode(param.getValue() == null ? "" : param.getValue(), StandardCharsets.UTF_8));
+		}
+		return encoded.toString();
+	}
+}
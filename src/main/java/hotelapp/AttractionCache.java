@@ -0,0 +1,380 @@
+package hotelapp;
+
+import jettyServer.AttractionDatabaseHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of attractions fetched from Google Places API, keyed by hotel id and radius bucket.
+ * Requested radii are rounded up to a few buckets, so nearby radii share one fetch.
+ * Entries are fresh for TTL_MS, after that they are still served (stale-while-revalidate) for up to
+ * MAX_STALE_MS while a single refresh is running. The least recently used entries are evicted
+ * once there are more than MAX_ENTRIES. Every entry is also saved in the hotel_attractions table,
+ * so attractions are not fetched again after a restart. A hotel missing in memory is read from the table
+ * with all its radius buckets in one query, and buckets the table has no entry for are not looked up again
+ * for MISS_TTL_MS.
+ * Entries keep references to the attractions in the AttractionStore, so an attraction found for several
+ * hotels and radius buckets is kept in memory once. An entry that is evicted or replaced releases its
+ * references, so the store drops the attractions no entry refers to any more.
+ */
+public class AttractionCache {
+
+	/** Time an entry is served without refreshing it */
+	public static final long TTL_MS = 24 * 60 * 60 * 1000L;
+
+	/** Time an expired entry may still be served while it is refreshed */
+	public static final long MAX_STALE_MS = 7 * 24 * 60 * 60 * 1000L;
+
+	/** Maximum number of entries kept in memory */
+	public static final int MAX_ENTRIES = 1000;
+
+	/** Time after reading a hotel from the DB during which its missing radius buckets are not read again */
+	public static final long MISS_TTL_MS = 60 * 1000L;
+
+	/** Radius buckets in miles, the last one is the maximum radius supported by Places API (50 km) */
+	private static final int[] RADIUS_BUCKETS = { 1, 2, 5, 10, 20, 31 };
+
+	/** Makes sure only one cache is created. */
+	private static AttractionCache singleton = new AttractionCache();
+
+	private final Map<String, Entry> entries;
+	/** Time each hotel was last read from the DB, guarded by the lock of entries */
+	private final Map<String, Long> loadedHotels;
+	private final Set<String> refreshing;
+	private final LongAdder memoryHits;
+	private final LongAdder dbHits;
+	private final LongAdder misses;
+
+	/**
+	 * Creates the cache. Private constructor forces all other classes to use singleton.
+	 */
+	private AttractionCache() {
+		entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				if (size() > MAX_ENTRIES) {
+					AttractionStore.getInstance().release(eldest.getValue().getAttractionRefs());
+					return true;
+				}
+				return false;
+			}
+		};
+		loadedHotels = new LinkedHashMap<>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+		refreshing = ConcurrentHashMap.newKeySet();
+		
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		String help = "Attraction cache lookups, by where the entry was found";
+		memoryHits = registry.counter("attraction_cache_lookups_total", help, "result", "memory");
+		dbHits = registry.counter("attraction_cache_lookups_total", help, "result", "db");
+		misses = registry.counter("attraction_cache_lookups_total", help, "result", "miss");
+		registry.gauge("attraction_cache_entries", "Attraction cache entries in memory", () -> {
+			synchronized (entries) {
+				return entries.size();
+			}
+		});
+		registry.gauge("attraction_cache_refreshing", "Attraction cache entries being refreshed", refreshing::size);
+	}
+
+	/**
+	 * Gets the single instance of the cache.
+	 * @return instance of the cache
+	 */
+	public static AttractionCache getInstance() {
+		return singleton;
+	}
+
+	/**
+	 * Rounds the radius up to the closest bucket
+	 * @param radiusInMiles requested radius
+	 * @return radius bucket in miles
+	 */
+	public static int bucket(int radiusInMiles) {
+		for (int bucket : RADIUS_BUCKETS) {
+			if (radiusInMiles <= bucket) {
+				return bucket;
+			}
+		}
+		return RADIUS_BUCKETS[RADIUS_BUCKETS.length - 1];
+	}
+
+	/**
+	 * Returns all radius buckets
+	 * @return radius buckets in miles, smallest first
+	 */
+	public static int[] getRadiusBuckets() {
+		return RADIUS_BUCKETS.clone();
+	}
+
+	/**
+	 * Returns the cached attractions of a hotel and radius bucket, loading the hotel from the DB if it is
+	 * not in memory. The entry may be stale, check it with isFresh and isUsable.
+	 * @param hotelId hotel id
+	 * @param radiusBucket radius bucket in miles
+	 * @return cached entry, null if the attractions were never fetched
+	 */
+	public Entry get(String hotelId, int radiusBucket) {
+		String key = key(hotelId, radiusBucket);
+		try (Tracer.Span span = Tracer.getInstance().span("cache", "attractions " + key)) {
+			Entry entry;
+			synchronized (entries) {
+				entry = entries.get(key);
+			}
+			if (entry != null) {
+				memoryHits.increment();
+				span.setDetail("attractions " + key + " memory");
+				return entry;
+			}
+			long now = System.currentTimeMillis();
+			if (!isLoaded(hotelId, now)) {
+				load(hotelId, now);
+				synchronized (entries) {
+					entry = entries.get(key);
+				}
+			}
+			if (entry != null) {
+				dbHits.increment();
+				span.setDetail("attractions " + key + " db");
+			} else {
+				misses.increment();
+				span.setDetail("attractions " + key + " miss");
+			}
+			return entry;
+		}
+	}
+
+	/**
+	 * Returns the fresh entry of the smallest radius bucket that covers the requested bucket.
+	 * Attractions of a larger bucket are filtered by distance by the caller, so a smaller radius is served
+	 * from them without a new fetch. Reads all radius buckets of the hotel from the DB at most once.
+	 * @param hotelId hotel id
+	 * @param radiusBucket requested radius bucket in miles
+	 * @param now current time in milliseconds
+	 * @return fresh entry of this or a larger bucket, null if there is none
+	 */
+	public Entry getCovering(String hotelId, int radiusBucket, long now) {
+		Entry entry = covering(hotelId, radiusBucket, now);
+		if (entry != null) {
+			memoryHits.increment();
+			return entry;
+		}
+		if (isLoaded(hotelId, now)) {
+			return null;
+		}
+		load(hotelId, now);
+		entry = covering(hotelId, radiusBucket, now);
+		if (entry != null) {
+			dbHits.increment();
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the fresh entry covering the requested bucket like getCovering, looking only in memory, so it
+	 * never waits for the DB and can be called on a request thread.
+	 * @param hotelId hotel id
+	 * @param radiusBucket requested radius bucket in miles
+	 * @param now current time in milliseconds
+	 * @return fresh entry of this or a larger bucket in memory, null if there is none
+	 */
+	public Entry getCoveringInMemory(String hotelId, int radiusBucket, long now) {
+		Entry entry = covering(hotelId, radiusBucket, now);
+		if (entry != null) {
+			memoryHits.increment();
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the fresh entry in memory of the smallest radius bucket that covers the requested bucket
+	 * @param hotelId hotel id
+	 * @param radiusBucket requested radius bucket in miles
+	 * @param now current time in milliseconds
+	 * @return fresh entry of this or a larger bucket, null if there is none
+	 */
+	private Entry covering(String hotelId, int radiusBucket, long now) {
+		synchronized (entries) {
+			for (int bucket : RADIUS_BUCKETS) {
+				if (bucket < radiusBucket) {
+					continue;
+				}
+				Entry entry = entries.get(key(hotelId, bucket));
+				if (entry != null && entry.isFresh(now)) {
+					return entry;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the hotel was read from the DB less than MISS_TTL_MS ago, so buckets missing in memory are
+	 * missing in the DB too
+	 * @param hotelId hotel id
+	 * @param now current time in milliseconds
+	 * @return true if the hotel does not have to be read again
+	 */
+	private boolean isLoaded(String hotelId, long now) {
+		synchronized (entries) {
+			Long loaded = loadedHotels.get(hotelId);
+			return loaded != null && now - loaded < MISS_TTL_MS;
+		}
+	}
+
+	/**
+	 * Reads all radius buckets of the hotel from the DB in one query and keeps them in memory.
+	 * Entries already in memory are kept.
+	 * @param hotelId hotel id
+	 * @param now current time in milliseconds
+	 */
+	private void load(String hotelId, long now) {
+		Map<Integer, Entry> saved = AttractionDatabaseHandler.getInstance().getAttractions(hotelId);
+		List<Entry> unused = new ArrayList<>();
+		synchronized (entries) {
+			for (Map.Entry<Integer, Entry> bucket : saved.entrySet()) {
+				if (entries.putIfAbsent(key(hotelId, bucket.getKey()), bucket.getValue()) != null) {
+					// loaded or fetched by another thread at the same time, its entry is kept
+					unused.add(bucket.getValue());
+				}
+			}
+			loadedHotels.put(hotelId, now);
+		}
+		for (Entry entry : unused) {
+			AttractionStore.getInstance().release(entry.getAttractionRefs());
+		}
+	}
+
+	/**
+	 * Stores freshly fetched attractions of a hotel and radius bucket in memory and in the DB.
+	 * @param hotelId hotel id
+	 * @param radiusBucket radius bucket in miles
+	 * @param attractionRefs references to the attractions fetched, with their distance from the hotel
+	 * @return the new entry
+	 */
+	public Entry put(String hotelId, int radiusBucket, List<AttractionRef> attractionRefs) {
+		Entry entry = new Entry(attractionRefs, System.currentTimeMillis());
+		Entry replaced;
+		synchronized (entries) {
+			replaced = entries.put(key(hotelId, radiusBucket), entry);
+		}
+		if (replaced != null) {
+			AttractionStore.getInstance().release(replaced.getAttractionRefs());
+		}
+		AttractionDatabaseHandler.getInstance().saveAttractions(hotelId, radiusBucket, entry);
+		return entry;
+	}
+
+	/**
+	 * Marks the entry as being refreshed, so only one refresh per entry runs at a time.
+	 * @param hotelId hotel id
+	 * @param radiusBucket radius bucket in miles
+	 * @return true if the caller should refresh the entry, false if a refresh is already running
+	 */
+	public boolean startRefresh(String hotelId, int radiusBucket) {
+		return refreshing.add(key(hotelId, radiusBucket));
+	}
+
+	/**
+	 * Marks the refresh of the entry as finished
+	 * @param hotelId hotel id
+	 * @param radiusBucket radius bucket in miles
+	 */
+	public void endRefresh(String hotelId, int radiusBucket) {
+		refreshing.remove(key(hotelId, radiusBucket));
+	}
+
+	/**
+	 * Returns the key of a hotel and radius bucket
+	 * @param hotelId hotel id
+	 * @param radiusBucket radius bucket in miles
+	 * @return key of the cache entry
+	 */
+	private static String key(String hotelId, int radiusBucket) {
+		return hotelId + ":" + radiusBucket;
+	}
+
+	/**
+	 * References to the attractions of a hotel and radius bucket and the time they were fetched.
+	 * The entry keeps the attractions it resolved from the AttractionStore when it was created, so a request
+	 * still reading an entry that was evicted or replaced, and whose references were released, sees all of them.
+	 */
+	public static class Entry {
+		private final List<AttractionRef> attractionRefs;
+		private final List<TouristAttraction> attractions;
+		private final long fetched;
+
+		/**
+		 * Constructor of this class
+		 * @param attractionRefs references to the attractions fetched, held until the entry is released
+		 * @param fetched time the attractions were fetched, in milliseconds
+		 */
+		public Entry(List<AttractionRef> attractionRefs, long fetched) {
+			List<AttractionRef> refs = new ArrayList<>(attractionRefs.size());
+			List<TouristAttraction> resolved = new ArrayList<>(attractionRefs.size());
+			AttractionStore store = AttractionStore.getInstance();
+			for (AttractionRef ref : attractionRefs) {
+				TouristAttraction attraction = store.get(ref.getAttractionId());
+				if (attraction != null) {
+					refs.add(ref);
+					resolved.add(attraction);
+				}
+			}
+			this.attractionRefs = Collections.unmodifiableList(refs);
+			this.attractions = Collections.unmodifiableList(resolved);
+			this.fetched = fetched;
+		}
+
+		/**
+		 * Returns the attractions, in the order of getAttractionRefs
+		 * @return unmodifiable list of attractions
+		 */
+		public List<TouristAttraction> getAttractions() {
+			return attractions;
+		}
+
+		/**
+		 * Returns the references to the attractions
+		 * @return unmodifiable list of references, with the distance of each attraction from the hotel
+		 */
+		public List<AttractionRef> getAttractionRefs() {
+			return attractionRefs;
+		}
+
+		/**
+		 * Returns the time the attractions were fetched
+		 * @return time in milliseconds
+		 */
+		public long getFetched() {
+			return fetched;
+		}
+
+		/**
+		 * Checks if the entry can be served without refreshing it
+		 * @param now current time in milliseconds
+		 * @return true if the entry is younger than TTL_MS
+		 */
+		public boolean isFresh(long now) {
+			return now - fetched < TTL_MS;
+		}
+
+		/**
+		 * Checks if the entry can still be served while it is refreshed
+		 * @param now current time in milliseconds
+		 * @return true if the entry is younger than TTL_MS + MAX_STALE_MS
+		 */
+		public boolean isUsable(long now) {
+			return now - fetched < TTL_MS + MAX_STALE_MS;
+		}
+	}
+}
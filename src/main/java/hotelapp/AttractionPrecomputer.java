@@ -0,0 +1,140 @@
+package hotelapp;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Background job that fetches the attractions of every hotel at every radius bucket of the AttractionCache,
+ * so pages are served from the hotel_attractions table without an outbound request.
+ * A pass runs at start and then every PASS_INTERVAL_MS, well within the TTL of the cache, and skips entries
+ * that are still fresh. Fetches run on at most MAX_CONCURRENT_FETCHES threads and are started at
+ * most REQUESTS_PER_SECOND times per second.
+ */
+public class AttractionPrecomputer {
+
+	/** Maximum number of fetches running at the same time */
+	private static final int MAX_CONCURRENT_FETCHES = 4;
+
+	/** Maximum number of fetches started per second */
+	private static final int REQUESTS_PER_SECOND = 5;
+
+	/** Time between the start of two passes */
+	private static final long PASS_INTERVAL_MS = AttractionCache.TTL_MS / 2;
+
+	private final TouristAttractionFinder finder;
+	private final Supplier<List<String>> hotelIds;
+	private final ScheduledExecutorService scheduler;
+	private final ExecutorService fetchers;
+	private final Semaphore permits;
+	private long nextRequestNanos;
+
+	/**
+	 * Constructor of this class
+	 * @param finder finder used to fetch and cache attractions
+	 * @param hotelIds supplies the ids of all hotels at the start of every pass
+	 */
+	public AttractionPrecomputer(TouristAttractionFinder finder, Supplier<List<String>> hotelIds) {
+		this.finder = finder;
+		this.hotelIds = hotelIds;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "attractions-precompute");
+			thread.setDaemon(true);
+			return thread;
+		});
+		AtomicInteger threadCount = new AtomicInteger();
+		this.fetchers = Executors.newFixedThreadPool(MAX_CONCURRENT_FETCHES, r -> {
+			Thread thread = new Thread(r, "attractions-precompute-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.permits = new Semaphore(MAX_CONCURRENT_FETCHES);
+	}
+
+	/**
+	 * Starts the first pass right away and schedules the next ones.
+	 */
+	public void start() {
+		scheduler.scheduleWithFixedDelay(this::runPass, 0, PASS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the job. Fetches in flight are interrupted.
+	 */
+	public void stop() {
+		scheduler.shutdownNow();
+		fetchers.shutdownNow();
+	}
+
+	/**
+	 * Fetches the attractions of all hotels at all radius buckets that are missing or not fresh.
+	 */
+	private void runPass() {
+		AtomicInteger fetched = new AtomicInteger();
+		long start = System.currentTimeMillis();
+		try {
+			List<String> ids = hotelIds.get();
+			if (ids == null) {
+				return;
+			}
+			AttractionCache cache = AttractionCache.getInstance();
+			for (String hotelId : ids) {
+				for (int radius : AttractionCache.getRadiusBuckets()) {
+					AttractionCache.Entry entry = cache.get(hotelId, radius);
+					if (entry != null && entry.isFresh(System.currentTimeMillis())) {
+						continue;
+					}
+					permits.acquire();
+					awaitRate();
+					try {
+						fetchers.execute(() -> {
+							try {
+								if (finder.refreshAttractions(hotelId, radius) != null) {
+									fetched.incrementAndGet();
+								}
+							} catch (RuntimeException e) {
+								System.out.println("Could not fetch attractions of " + hotelId + ": " + e);
+							} finally {
+								permits.release();
+							}
+						});
+					} catch (RuntimeException e) {
+						// the task did not run, its permit would never be released
+						permits.release();
+						throw e;
+					}
+				}
+			}
+			// wait for the last fetches of the pass
+			permits.acquire(MAX_CONCURRENT_FETCHES);
+			permits.release(MAX_CONCURRENT_FETCHES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		} catch (RuntimeException e) {
+			// an exception would cancel the next runs
+			System.out.println("Could not precompute attractions: " + e);
+			return;
+		}
+		System.out.println("Precomputed attractions for " + fetched.get() + " hotel radii in "
+				+ (System.currentTimeMillis() - start) + " ms");
+	}
+
+	/**
+	 * Waits until the next fetch may start, so fetches are started at most REQUESTS_PER_SECOND times per second.
+	 * @throws InterruptedException if the job is stopped while waiting
+	 */
+	private void awaitRate() throws InterruptedException {
+		long now = System.nanoTime();
+		if (nextRequestNanos > now) {
+			TimeUnit.NANOSECONDS.sleep(nextRequestNanos - now);
+			now = nextRequestNanos;
+		}
+		nextRequestNanos = now + TimeUnit.SECONDS.toNanos(1) / REQUESTS_PER_SECOND;
+	}
+}
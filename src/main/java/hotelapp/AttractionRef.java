@@ -0,0 +1,36 @@
+package hotelapp;
+
+/**
+ * Reference from a hotel to an attraction in the AttractionStore, with the distance between them.
+ */
+public class AttractionRef {
+
+	private final String attractionId;
+	private final double distance;
+
+	/**
+	 * Constructor of this class
+	 * @param attractionId id of the attraction
+	 * @param distance distance from the hotel in miles, NaN if unknown
+	 */
+	public AttractionRef(String attractionId, double distance) {
+		this.attractionId = attractionId;
+		this.distance = distance;
+	}
+
+	/**
+	 * Returns the id of the attraction
+	 * @return attraction id
+	 */
+	public String getAttractionId() {
+		return attractionId;
+	}
+
+	/**
+	 * Returns the distance from the hotel
+	 * @return distance in miles, NaN if unknown
+	 */
+	public double getDistance() {
+		return distance;
+	}
+}
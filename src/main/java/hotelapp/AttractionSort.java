@@ -0,0 +1,47 @@
+package hotelapp;
+
+import java.util.Comparator;
+
+/**
+ * Orders in which the attractions near a hotel can be shown.
+ * Attractions with unknown distance are shown after the ones with known distance.
+ */
+public enum AttractionSort {
+
+	/** Closest attractions first, highest rated first for the same distance */
+	DISTANCE(Comparator.comparingDouble(NearbyAttraction::getDistance)
+			.thenComparing(Comparator.comparingDouble(NearbyAttraction::getRating).reversed())),
+	/** Highest rated attractions first, closest first for the same rating */
+	RATING(Comparator.comparingDouble(NearbyAttraction::getRating).reversed()
+			.thenComparingDouble(NearbyAttraction::getDistance));
+
+	private final Comparator<NearbyAttraction> comparator;
+
+	/**
+	 * Constructor of this enum
+	 * @param comparator order of the attractions
+	 */
+	AttractionSort(Comparator<NearbyAttraction> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Returns the order by name (distance or rating), DISTANCE if the name is unknown
+	 * @param name name of the order
+	 * @return attraction order
+	 */
+	public static AttractionSort fromString(String name) {
+		if (name != null && name.equalsIgnoreCase("rating")) {
+			return RATING;
+		}
+		return DISTANCE;
+	}
+
+	/**
+	 * Returns the comparator of this order
+	 * @return comparator
+	 */
+	public Comparator<NearbyAttraction> getComparator() {
+		return comparator;
+	}
+}
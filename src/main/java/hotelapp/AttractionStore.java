@@ -0,0 +1,113 @@
+package hotelapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global store of tourist attractions keyed by attraction id.
+ * Nearby hotels share most of their attractions, so hotels keep AttractionRefs to the attractions in this store
+ * instead of their own copies. Memory grows with the number of unique attractions, and an updated attraction
+ * replaces the stored one once for all hotels referring to it.
+ * Every reference returned by add is counted; holders give their references back with release when they drop
+ * them (e.g. an evicted AttractionCache entry), and an attraction is removed once no reference points to it.
+ */
+public class AttractionStore {
+
+	/** Makes sure only one store is created. */
+	private static AttractionStore singleton = new AttractionStore();
+
+	private final Map<String, Stored> attractions;
+
+	/**
+	 * Stored attraction and the number of references to it
+	 */
+	private static class Stored {
+		private final TouristAttraction attraction;
+		private final int references;
+
+		private Stored(TouristAttraction attraction, int references) {
+			this.attraction = attraction;
+			this.references = references;
+		}
+	}
+
+	/**
+	 * Creates the store. Private constructor forces all other classes to use singleton.
+	 */
+	private AttractionStore() {
+		attractions = new ConcurrentHashMap<>();
+		MetricsRegistry.getInstance().gauge("attraction_store_attractions", "Unique attractions kept in memory", attractions::size);
+	}
+
+	/**
+	 * Gets the single instance of the store.
+	 * @return instance of the store
+	 */
+	public static AttractionStore getInstance() {
+		return singleton;
+	}
+
+	/**
+	 * Adds the attraction to the store, keeping the stored instance if it did not change
+	 * and replacing it otherwise. The caller holds the returned reference until it calls release.
+	 * @param attraction attraction to add
+	 * @param distance distance from the hotel referring to it in miles, NaN if unknown
+	 * @return reference to the stored attraction
+	 */
+	public AttractionRef add(TouristAttraction attraction, double distance) {
+		attractions.compute(attraction.getId(), (id, stored) -> {
+			if (stored == null) {
+				return new Stored(attraction, 1);
+			}
+			return new Stored(stored.attraction.equals(attraction) ? stored.attraction : attraction, stored.references + 1);
+		});
+		return new AttractionRef(attraction.getId(), distance);
+	}
+
+	/**
+	 * Gives back references returned by add, removing the attractions no other reference points to
+	 * @param refs references that are no longer used
+	 */
+	public void release(List<AttractionRef> refs) {
+		for (AttractionRef ref : refs) {
+			attractions.computeIfPresent(ref.getAttractionId(),
+					(id, stored) -> stored.references > 1 ? new Stored(stored.attraction, stored.references - 1) : null);
+		}
+	}
+
+	/**
+	 * Returns the stored attraction
+	 * @param attractionId id of the attraction
+	 * @return attraction, null if it is not stored
+	 */
+	public TouristAttraction get(String attractionId) {
+		Stored stored = attractions.get(attractionId);
+		return stored != null ? stored.attraction : null;
+	}
+
+	/**
+	 * Returns the stored attractions the references point to
+	 * @param refs references to attractions
+	 * @return list of attractions in the order of the references
+	 */
+	public List<TouristAttraction> resolve(List<AttractionRef> refs) {
+		List<TouristAttraction> resolved = new ArrayList<>(refs.size());
+		for (AttractionRef ref : refs) {
+			Stored stored = attractions.get(ref.getAttractionId());
+			if (stored != null) {
+				resolved.add(stored.attraction);
+			}
+		}
+		return resolved;
+	}
+
+	/**
+	 * Returns the number of unique attractions stored
+	 * @return number of attractions
+	 */
+	public int size() {
+		return attractions.size();
+	}
+}
@@ -0,0 +1,177 @@
+package hotelapp;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker of an upstream service. Records the outcome of the last windowSize calls; when at least
+ * minimumCalls were recorded and the failure rate reaches failureRateThreshold the breaker opens and calls
+ * fail fast for openDurationMs. After that one trial call is let through (half open): if it succeeds the
+ * breaker closes, otherwise it opens again. Counts how many times each state was entered.
+ */
+public class CircuitBreaker {
+
+	/** States of the breaker */
+	public enum State {
+		/** Calls are let through and recorded */
+		CLOSED,
+		/** Calls fail fast */
+		OPEN,
+		/** One trial call is let through */
+		HALF_OPEN
+	}
+
+	private final String name;
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final long openDurationMs;
+
+	/** Outcomes of the last calls, true for a failure */
+	private final boolean[] window;
+	private int recorded;
+	private int failures;
+	private int next;
+
+	private State state = State.CLOSED;
+	private long openedAt;
+	private boolean trialInFlight;
+	private final Map<State, AtomicLong> transitions;
+
+	/**
+	 * Constructor of this class
+	 * @param name name of the upstream, used in the log
+	 * @param windowSize number of recent calls the failure rate is computed on
+	 * @param minimumCalls number of calls that must be recorded before the breaker can open
+	 * @param failureRateThreshold failure rate between 0 and 1 that opens the breaker
+	 * @param openDurationMs time calls fail fast before a trial call
+	 */
+	public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold, long openDurationMs) {
+		this.name = name;
+		this.window = new boolean[windowSize];
+		this.minimumCalls = minimumCalls;
+		this.failureRateThreshold = failureRateThreshold;
+		this.openDurationMs = openDurationMs;
+		this.transitions = new EnumMap<>(State.class);
+		for (State s : State.values()) {
+			transitions.put(s, new AtomicLong());
+		}
+	}
+
+	/**
+	 * Checks if a call may be made. Every call let through must be followed by onSuccess, onFailure or onCancelled.
+	 * @return true if the call may be made, false if it must fail fast
+	 */
+	public synchronized boolean tryAcquire() {
+		if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+			transitionTo(State.HALF_OPEN);
+		}
+		if (state == State.HALF_OPEN) {
+			if (trialInFlight) {
+				return false;
+			}
+			trialInFlight = true;
+			return true;
+		}
+		return state == State.CLOSED;
+	}
+
+	/**
+	 * Records a successful call
+	 */
+	public synchronized void onSuccess() {
+		if (state == State.HALF_OPEN) {
+			trialInFlight = false;
+			resetWindow();
+			transitionTo(State.CLOSED);
+		} else if (state == State.CLOSED) {
+			record(false);
+		}
+	}
+
+	/**
+	 * Records a failed or timed out call
+	 */
+	public synchronized void onFailure() {
+		if (state == State.HALF_OPEN) {
+			trialInFlight = false;
+			open();
+		} else if (state == State.CLOSED) {
+			record(true);
+			if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+				open();
+			}
+		}
+	}
+
+	/**
+	 * Records a call that was let through but not made, or whose outcome says nothing about the upstream
+	 */
+	public synchronized void onCancelled() {
+		if (state == State.HALF_OPEN) {
+			trialInFlight = false;
+		}
+	}
+
+	/**
+	 * Returns the current state
+	 * @return state of the breaker
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Returns the number of times the breaker entered the state
+	 * @param to state entered
+	 * @return number of transitions to the state
+	 */
+	public long getTransitions(State to) {
+		return transitions.get(to).get();
+	}
+
+	/**
+	 * Returns the name of the upstream
+	 * @return name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Adds an outcome to the window, replacing the oldest one once the window is full
+	 * @param failed true for a failure
+	 */
+	private void record(boolean failed) {
+		if (recorded == window.length) {
+			if (window[next]) {
+				failures--;
+			}
+		} else {
+			recorded++;
+		}
+		window[next] = failed;
+		if (failed) {
+			failures++;
+		}
+		next = (next + 1) % window.length;
+	}
+
+	private void resetWindow() {
+		recorded = 0;
+		failures = 0;
+		next = 0;
+	}
+
+	private void open() {
+		openedAt = System.currentTimeMillis();
+		resetWindow();
+		transitionTo(State.OPEN);
+	}
+
+	private void transitionTo(State to) {
+		System.out.println("Circuit breaker " + name + ": " + state + " -> " + to);
+		state = to;
+		transitions.get(to).incrementAndGet();
+	}
+}
@@ -0,0 +1,131 @@
+package hotelapp;
+
+import jettyServer.HotelDatabaseHandler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of hotels with the area and property descriptions scraped from their expedia page.
+ * Descriptions are stored in the areadesc and propertydesc columns of hotel_details, so each page is fetched once;
+ * the hotels read from the DB are kept in memory, so the hotel info page is served without an outbound request
+ * and, once cached, without a DB query. Descriptions stored by this process replace the cached hotel.
+ * The least recently used hotels are evicted once there are more than MAX_ENTRIES. A hotel that is not in
+ * the DB is not looked up again for MISS_TTL_MS.
+ */
+public class DescriptionCache {
+
+	/** Maximum number of hotels kept in memory */
+	public static final int MAX_ENTRIES = 1000;
+
+	/** Time a hotel that was not found in the DB is not looked up again */
+	public static final long MISS_TTL_MS = 60 * 1000L;
+
+	/** Makes sure only one cache is created. */
+	private static DescriptionCache singleton = new DescriptionCache();
+
+	private final Map<String, HotelDetails> hotels;
+	/** Time each hotel was not found in the DB, guarded by the lock of hotels */
+	private final Map<String, Long> missing;
+	private final LongAdder memoryHits;
+	private final LongAdder dbHits;
+	private final LongAdder misses;
+
+	/**
+	 * Creates the cache. Private constructor forces all other classes to use singleton.
+	 */
+	private DescriptionCache() {
+		hotels = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, HotelDetails> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+		missing = new LinkedHashMap<>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+		
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		String help = "Description cache lookups, by where the hotel was found";
+		memoryHits = registry.counter("description_cache_lookups_total", help, "result", "memory");
+		dbHits = registry.counter("description_cache_lookups_total", help, "result", "db");
+		misses = registry.counter("description_cache_lookups_total", help, "result", "miss");
+		registry.gauge("description_cache_entries", "Hotels with descriptions in memory", () -> {
+			synchronized (hotels) {
+				return hotels.size();
+			}
+		});
+	}
+
+	/**
+	 * Gets the single instance of the cache.
+	 * @return instance of the cache
+	 */
+	public static DescriptionCache getInstance() {
+		return singleton;
+	}
+
+	/**
+	 * Returns the hotel with its descriptions, loading it from the DB if it is not in memory and was not
+	 * missing in the DB within MISS_TTL_MS.
+	 * @param hotelId hotel id
+	 * @return hotel details, with null descriptions if they were never fetched; null if the hotel is not in the DB
+	 */
+	public HotelDetails get(String hotelId) {
+		if (hotelId == null) {
+			return null;
+		}
+		try (Tracer.Span span = Tracer.getInstance().span("cache", "descriptions " + hotelId)) {
+			HotelDetails hotel;
+			Long missed;
+			long now = System.currentTimeMillis();
+			synchronized (hotels) {
+				hotel = hotels.get(hotelId);
+				missed = missing.get(hotelId);
+			}
+			if (hotel != null) {
+				memoryHits.increment();
+				span.setDetail("descriptions " + hotelId + " memory");
+				return hotel;
+			}
+			if (missed != null && now - missed < MISS_TTL_MS) {
+				misses.increment();
+				span.setDetail("descriptions " + hotelId + " cached miss");
+				return null;
+			}
+			hotel = HotelDatabaseHandler.getInstance().getHotelWithDescriptions(hotelId);
+			if (hotel != null) {
+				dbHits.increment();
+				span.setDetail("descriptions " + hotelId + " db");
+				synchronized (hotels) {
+					hotels.putIfAbsent(hotelId, hotel);
+					missing.remove(hotelId);
+				}
+			} else {
+				synchronized (hotels) {
+					missing.put(hotelId, now);
+				}
+				misses.increment();
+				span.setDetail("descriptions " + hotelId + " miss");
+			}
+			return hotel;
+		}
+	}
+
+	/**
+	 * Stores the descriptions of a hotel in memory and in the DB.
+	 * @param hotel hotel details with the descriptions
+	 */
+	public void put(HotelDetails hotel) {
+		synchronized (hotels) {
+			hotels.put(hotel.getId(), hotel);
+			missing.remove(hotel.getId());
+		}
+		HotelDatabaseHandler.getInstance().updateDescriptions(hotel.getId(), hotel.getAreaDescription(),
+				hotel.getPropertyDescription());
+	}
+}
@@ -0,0 +1,93 @@
+package hotelapp;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Background job that fetches the expedia descriptions of the hotels that have none yet and stores them
+ * with the DescriptionCache, so the hotel info page never waits for expedia.
+ * Pages are fetched one at a time, one every FETCH_INTERVAL_MS. Once all pending hotels are fetched,
+ * the hotels without descriptions are looked up again every RESCAN_INTERVAL_MS, so failed fetches
+ * and new hotels are retried.
+ */
+public class DescriptionPrecomputer {
+
+	/** Time between two page fetches */
+	private static final long FETCH_INTERVAL_MS = 2000;
+
+	/** Time between two lookups of the hotels without descriptions */
+	private static final long RESCAN_INTERVAL_MS = 60 * 60 * 1000L;
+
+	private final TouristAttractionFinder finder;
+	private final Supplier<List<String>> hotelIds;
+	private final ScheduledExecutorService scheduler;
+	private final Deque<String> pending;
+	private long nextScan;
+	private int fetched;
+
+	/**
+	 * Constructor of this class
+	 * @param finder finder used to fetch and store descriptions
+	 * @param hotelIds supplies the ids of the hotels without descriptions
+	 */
+	public DescriptionPrecomputer(TouristAttractionFinder finder, Supplier<List<String>> hotelIds) {
+		this.finder = finder;
+		this.hotelIds = hotelIds;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "descriptions-precompute");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.pending = new ArrayDeque<>();
+	}
+
+	/**
+	 * Starts fetching right away.
+	 */
+	public void start() {
+		scheduler.scheduleWithFixedDelay(this::fetchNext, 0, FETCH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the job. A fetch in flight is interrupted.
+	 */
+	public void stop() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Fetches the descriptions of the next pending hotel, looking up the hotels without descriptions
+	 * when none are pending. Runs on the scheduler thread only.
+	 */
+	private void fetchNext() {
+		try {
+			if (pending.isEmpty()) {
+				if (fetched > 0) {
+					System.out.println("Fetched descriptions for " + fetched + " hotels");
+					fetched = 0;
+				}
+				long now = System.currentTimeMillis();
+				if (now < nextScan) {
+					return;
+				}
+				nextScan = now + RESCAN_INTERVAL_MS;
+				List<String> ids = hotelIds.get();
+				if (ids != null) {
+					pending.addAll(ids);
+				}
+			}
+			String hotelId = pending.poll();
+			if (hotelId != null && finder.refreshDescriptions(hotelId) != null) {
+				fetched++;
+			}
+		} catch (RuntimeException e) {
+			// an exception would cancel the next runs
+			System.out.println("Could not fetch descriptions: " + e);
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package hotelapp;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the "About this area" and "About this property" descriptions of a hotel from its expedia page
+ * while the page is read. Each section is the first h4 and the first paragraph after its heading, the same
+ * text the regular expressions of extractWithRegex find, but the page is scanned one character at a time,
+ * so only a fixed size read buffer and the descriptions are held in memory, and reading stops as soon as
+ * both descriptions are found. Line breaks are skipped, like the lines of the page were joined.
+ */
+public class ExpediaDescriptionExtractor {
+
+	/** Number of characters read from the page at a time */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Maximum length of the title and the text of a description, longer ones are cut */
+	private static final int MAX_DESCRIPTION_CHARS = 16384;
+
+	private static final Pattern AREA_PATTERN = Pattern.compile("(About this area)(.*?)<h4(.*?)>(.*?)<\\/h4>(.*?)<p(.*?)>(.*?)<\\/p>");
+	private static final Pattern PROPERTY_PATTERN = Pattern.compile("(About this property)(.*?)<h4(.*?)>(.*?)<\\/h4>(.*?)<p(.*?)>(.*?)<\\/p>");
+	/** Tags inside a description, e.g. the links and line breaks of the paragraph */
+	private static final Pattern TAG_PATTERN = Pattern.compile("<[^>]*>");
+
+	private final String areaDescription;
+	private final String propertyDescription;
+	private final long charsRead;
+
+	/**
+	 * Constructor of this class
+	 * @param areaDescription area description, empty if it was not found
+	 * @param propertyDescription property description, empty if it was not found
+	 * @param charsRead number of characters read from the page
+	 */
+	private ExpediaDescriptionExtractor(String areaDescription, String propertyDescription, long charsRead) {
+		this.areaDescription = areaDescription;
+		this.propertyDescription = propertyDescription;
+		this.charsRead = charsRead;
+	}
+
+	/**
+	 * Reads the page until both descriptions are found or the page ends. The reader is not closed.
+	 * @param page reader of the html page
+	 * @return descriptions found
+	 * @throws IOException if the page can not be read
+	 */
+	public static ExpediaDescriptionExtractor extract(Reader page) throws IOException {
+		Section area = new Section("About this area");
+		Section property = new Section("About this property");
+		char[] buffer = new char[BUFFER_SIZE];
+		long charsRead = 0;
+		int n;
+		while (!(area.isDone() && property.isDone()) && (n = page.read(buffer)) != -1) {
+			charsRead += n;
+			for (int i = 0; i < n; i++) {
+				char c = buffer[i];
+				if (c != '\n' && c != '\r') {
+					area.accept(c);
+					property.accept(c);
+				}
+			}
+		}
+		return new ExpediaDescriptionExtractor(area.getDescription(), property.getDescription(), charsRead);
+	}
+
+	/**
+	 * Finds the descriptions in the whole page with regular expressions.
+	 * Gives the same descriptions as extract, used to compare the streaming extractor against the regular expressions.
+	 * @param html html of the page, with the lines joined
+	 * @return descriptions found
+	 */
+	public static ExpediaDescriptionExtractor extractWithRegex(String html) {
+		return new ExpediaDescriptionExtractor(findWithRegex(AREA_PATTERN, html), findWithRegex(PROPERTY_PATTERN, html), html.length());
+	}
+
+	/**
+	 * Returns the About this area description
+	 * @return title and text of the description, empty if it was not found
+	 */
+	public String getAreaDescription() {
+		return areaDescription;
+	}
+
+	/**
+	 * Returns the About this property description
+	 * @return title and text of the description, empty if it was not found
+	 */
+	public String getPropertyDescription() {
+		return propertyDescription;
+	}
+
+	/**
+	 * Returns the number of characters read from the page
+	 * @return number of characters
+	 */
+	public long getCharsRead() {
+		return charsRead;
+	}
+
+	/**
+	 * Returns the description matched by the pattern
+	 * @param pattern pattern of the section
+	 * @param html html of the page
+	 * @return title and text of the description, empty if the pattern does not match
+	 */
+	private static String findWithRegex(Pattern pattern, String html) {
+		Matcher matcher = pattern.matcher(html);
+		if (matcher.find()) {
+			return toDescription(matcher.group(4), matcher.group(7));
+		}
+		return "";
+	}
+
+	/**
+	 * Joins the title and the text of a description as plain text, without the tags of the page and with
+	 * its entities decoded. The description is escaped again where it is rendered.
+	 * @param title text of the h4 heading
+	 * @param text text of the paragraph
+	 * @return description
+	 */
+	private static String toDescription(String title, String text) {
+		String description = title + System.lineSeparator() + System.lineSeparator() + text;
+		return StringEscapeUtils.unescapeHtml4(TAG_PATTERN.matcher(description).replaceAll(""));
+	}
+
+	/**
+	 * Finds one section of the page: its heading, then the first h4 and the first paragraph after it.
+	 * Looks for one literal at a time and captures the text of the h4 and of the paragraph.
+	 */
+	private static class Section {
+		/** Index of the literals whose preceding text is captured */
+		private static final int TITLE_END = 3;
+		private static final int TEXT_END = 6;
+
+		private final Literal[] literals;
+		private final StringBuilder title = new StringBuilder();
+		private final StringBuilder text = new StringBuilder();
+		private int next;
+
+		private Section(String heading) {
+			literals = new Literal[] { new Literal(heading), new Literal("<h4"), new Literal(">"), new Literal("</h4>"),
+					new Literal("<p"), new Literal(">"), new Literal("</p>") };
+		}
+
+		private boolean isDone() {
+			return next == literals.length;
+		}
+
+		/**
+		 * Feeds the next character of the page
+		 * @param c character
+		 */
+		private void accept(char c) {
+			if (isDone()) {
+				return;
+			}
+			Literal literal = literals[next];
+			StringBuilder capture = next == TITLE_END ? title : next == TEXT_END ? text : null;
+			if (capture != null && capture.length() < MAX_DESCRIPTION_CHARS + literal.length()) {
+				capture.append(c);
+			}
+			if (literal.matches(c)) {
+				if (capture != null) {
+					// the literal was captured with the text before it
+					capture.setLength(Math.min(MAX_DESCRIPTION_CHARS, Math.max(0, capture.length() - literal.length())));
+				}
+				next++;
+			}
+		}
+
+		/**
+		 * Returns the description if the whole section was found
+		 * @return title and text of the description, empty if the section was not found
+		 */
+		private String getDescription() {
+			return isDone() ? toDescription(title.toString(), text.toString()) : "";
+		}
+	}
+
+	/**
+	 * Finds a literal in a stream of characters (Knuth-Morris-Pratt), without keeping the characters read.
+	 */
+	private static class Literal {
+		private final String literal;
+		private final int[] fallback;
+		private int matched;
+
+		private Literal(String literal) {
+			this.literal = literal;
+			this.fallback = new int[literal.length()];
+			for (int i = 1, k = 0; i < literal.length(); i++) {
+				while (k > 0 && literal.charAt(i) != literal.charAt(k)) {
+					k = fallback[k - 1];
+				}
+				if (literal.charAt(i) == literal.charAt(k)) {
+					k++;
+				}
+				fallback[i] = k;
+			}
+		}
+
+		private int length() {
+			return literal.length();
+		}
+
+		/**
+		 * Feeds the next character
+		 * @param c character
+		 * @return true if the literal ends with this character
+		 */
+		private boolean matches(char c) {
+			while (matched > 0 && literal.charAt(matched) != c) {
+				matched = fallback[matched - 1];
+			}
+			if (literal.charAt(matched) == c) {
+				matched++;
+			}
+			if (matched == literal.length()) {
+				matched = 0;
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package hotelapp;
+
+/**
+ * Helper methods for distances between geo coordinates.
+ */
+public class GeoUtils {
+
+	/** Mean radius of the earth in miles */
+	public static final double EARTH_RADIUS_MILES = 3958.8;
+
+	/**
+	 * Computes the great-circle distance between two points using the haversine formula.
+	 * @param lat1 latitude of the first point in degrees
+	 * @param lon1 longitude of the first point in degrees
+	 * @param lat2 latitude of the second point in degrees
+	 * @param lon2 longitude of the second point in degrees
+	 * @return distance in miles
+	 */
+	public static double distanceMiles(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * EARTH_RADIUS_MILES * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+}
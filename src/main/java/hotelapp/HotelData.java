@@ -4,52 +4,62 @@ import jettyServer.HotelDatabaseHandler;
 import jettyServer.ReviewDatabaseHandler;
 import jettyServer.Status;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.InvalidParameterException;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
 
 /**
  * Used to store hotel data, attractions data and hotel descriptions.
  */
 public class HotelData {
 	
-	private Map<String, HotelDetails> hotelsMap;
+	private NavigableMap<String, HotelDetails> hotelsMap; //hotels sorted by id
+	private volatile List<String> sortedHotelIds; //cached sorted hotel ids, null after a hotel is added
 	private Map<String, TreeSet<HotelReview>> reviewsMap;
 	private TreeSet<HotelReview> reviewsSet; //stores all the reviews to a local set
 	
-	private Map<String, List<TouristAttraction>> touristAttractionsMap;
-	private List<TouristAttraction> touristAttractionsList;
+	private Map<String, List<AttractionRef>> touristAttractionsMap;
+	private List<AttractionRef> touristAttractionsList;
 	private Map<String, HotelDetails> descriptionsMap;
+	private ReviewTextStore reviewTextStore; //off heap storage for review titles and texts
+	private boolean persistReviews; //whether addReview also writes the review to DB
 	
 	protected static final HotelDatabaseHandler hotelHandler = HotelDatabaseHandler.getInstance();
 	
 	protected static final ReviewDatabaseHandler reviewHandler = ReviewDatabaseHandler.getInstance();
 	
+	/** Order of the review sets, the same whether the reviews were parsed from json or loaded from a snapshot */
+	private static final HotelReviewsComparator REVIEWS_COMPARATOR = new HotelReviewsComparator();
+	
 	/**
 	 * Constructor of this class. Initializes all instance variables.
+	 * Review titles and texts are kept in the shared ReviewTextStore.
 	 */
 	public HotelData() {
-		this.hotelsMap = new HashMap<>();
+		this(ReviewTextStore.getInstance());
+	}
+	
+	/**
+	 * Constructor of this class. Initializes all instance variables.
+	 * @param reviewTextStore store for review titles and texts, reviews are kept on heap if null
+	 */
+	public HotelData(ReviewTextStore reviewTextStore) {
+		this.reviewTextStore = reviewTextStore;
+		this.persistReviews = true;
+		this.hotelsMap = new ConcurrentSkipListMap<>();
 		this.reviewsMap = new HashMap<>();
-		/**sorts reviews based on review date, username and review ID*/
-		reviewsSet = new TreeSet<>((hr1, hr2) -> {
-			
-			if (hr1.getReviewDate().after(hr2.getReviewDate())) {
-				return -1;
-			} else if (hr1.getReviewDate().equals(hr2.getReviewDate())) {
-				if (hr1.getUserNickname().compareTo(hr2.getUserNickname()) == 0) {
-					return hr1.getReviewId().compareTo(hr2.getUserNickname());
-				} else {
-					return hr1.getUserNickname().compareTo(hr2.getUserNickname());
-				}
-			}
-			return 1;
-			
-		}
-		);
+		/**sorts reviews based on review date, username and review ID, like the sets loaded from a snapshot*/
+		reviewsSet = new TreeSet<>(REVIEWS_COMPARATOR);
 		
 		this.touristAttractionsMap = new HashMap<>();
 		touristAttractionsList = new ArrayList<>();
@@ -68,8 +78,9 @@ public class HotelData {
 	 */
 	public void addHotel(String hotelId, String hotelName, String city, String state, String streetAddress, double lat,
 	                     double lon) {
-		HotelDetails hotelDetails = new HotelDetails(hotelId, hotelName, city, state, streetAddress, lat, lon);
+		HotelDetails hotelDetails = new HotelDetails(hotelId, hotelName, streetAddress, city, state, lat, lon);
 		hotelsMap.put(hotelId, hotelDetails);
+		sortedHotelIds = null;
 	}
 	
 	/**
@@ -102,7 +113,7 @@ public class HotelData {
 			String streetAddress = hotel.getStreet();
 			String city = hotel.getCity();
 			String state = hotel.getState();
-			addHotelToDB(hotelId, hotelName, streetAddress, city, state, lat, lon);
+			addHotelToDB(hotelId, hotelName, city, state, streetAddress, lat, lon);
 		}
 	}
 	
@@ -146,9 +157,11 @@ public class HotelData {
 			if(rating > 5 || rating < 0){
 				throw new InvalidParameterException("Invalid rating "+rating);
 			}
-			HotelReview hotelReview = new HotelReview(reviewId, hotelId, username, rating, isRecom, reviewTitle, review, date);
+			HotelReview hotelReview = new HotelReview(reviewId, hotelId, username, rating, isRecom, reviewTitle, review, date, reviewTextStore);
 			reviewsSet.add(hotelReview);
-			addReviewToDB(hotelId, reviewId, rating, reviewTitle, review, isRecom, date, username);
+			if (persistReviews) {
+				addReviewToDB(hotelId, reviewId, rating, reviewTitle, review, isRecom, date, username);
+			}
 			return true;
 			
 		} catch (Exception e){
@@ -157,6 +170,15 @@ public class HotelData {
 		return false;
 	}
 	
+	/**
+	 * Sets whether addReview also writes every review to DB.
+	 * Turned off when reviews are written to DB in batches by the caller.
+	 * @param persistReviews true to write each added review to DB
+	 */
+	public void setPersistReviews(boolean persistReviews) {
+		this.persistReviews = persistReviews;
+	}
+	
 	/**
 	 * Adds the review to DB.
 	 * @param hotelId
@@ -205,21 +227,44 @@ public class HotelData {
 	}
 	
 	/**
-	 * Return an alphabetized list of the ids of all hotels
+	 * Return an alphabetized list of the ids of all hotels.
+	 * hotelsMap is kept sorted by id and the list is built once after hotels are added,
+	 * so repeated calls return the same unmodifiable list without sorting or copying.
 	 *
-	 * @return - list of strings with hotel id
+	 * @return - unmodifiable list of strings with hotel id
 	 */
 	public List<String> getHotels() {
-		List<String> hotelIDsList = new ArrayList<>();
-		if(!hotelsMap.isEmpty()) {
-			for (String hotelID : hotelsMap.keySet()) {
-				hotelIDsList.add(hotelID);
-			}
-			Collections.sort(hotelIDsList); //sorts hotel ids alphabetically
+		List<String> hotelIDsList = sortedHotelIds;
+		if (hotelIDsList == null) {
+			hotelIDsList = Collections.unmodifiableList(new ArrayList<>(hotelsMap.keySet()));
+			sortedHotelIds = hotelIDsList;
 		}
 		return hotelIDsList;
 	}
 	
+	/**
+	 * Return a page of the alphabetized list of the ids of all hotels
+	 * @param offset - index of the first hotel id to return
+	 * @param limit - maximum number of hotel ids to return
+	 * @return - unmodifiable view of the page of hotel ids
+	 */
+	public List<String> getHotels(int offset, int limit) {
+		List<String> hotelIDsList = getHotels();
+		int from = Math.max(0, Math.min(offset, hotelIDsList.size()));
+		int to = Math.max(from, Math.min(from + limit, hotelIDsList.size()));
+		return hotelIDsList.subList(from, to);
+	}
+	
+	/**
+	 * Return the alphabetized ids of all hotels starting with the given prefix
+	 * @param prefix - prefix of the hotel id
+	 * @return - sorted view of matching hotel ids
+	 */
+	public NavigableSet<String> getHotelsByIdPrefix(String prefix) {
+		return Collections.unmodifiableNavigableSet(
+				hotelsMap.subMap(prefix, true, prefix + Character.MAX_VALUE, false).navigableKeySet());
+	}
+	
 	/**
 	 * Method to add local reviews set to the main reviewsMap
 	 * Add review only if it is a valid hotel
@@ -233,6 +278,22 @@ public class HotelData {
 	}
 	
 	
+	/**
+	 * Removes the given reviews of a hotel from the main reviewsMap
+	 * @param hotelID - id of the hotel
+	 * @param reviewIds - ids of the reviews to remove, other reviews of the hotel are kept
+	 */
+	public void removeReviews(String hotelID, Collection<String> reviewIds) {
+		TreeSet<HotelReview> reviews = reviewsMap.get(hotelID);
+		if (reviews == null) {
+			return;
+		}
+		reviews.removeIf(review -> reviewIds.contains(review.getReviewId()));
+		if (reviews.isEmpty()) {
+			reviewsMap.remove(hotelID);
+		}
+	}
+	
 	/**
 	 * Adds tourist attractions near by to a hotel to a set
 	 * @param id Tourist attraction id
@@ -242,23 +303,34 @@ public class HotelData {
 	 */
 	public void addAttraction(String id, String name, double rating, String address) {
 		TouristAttraction touristAttraction = new TouristAttraction(id, name, rating, address);
-		touristAttractionsList.add(touristAttraction);
+		addAttraction(AttractionStore.getInstance().add(touristAttraction, Double.NaN));
+	}
+	
+	/**
+	 * Adds a reference to an attraction in the AttractionStore near by to a hotel
+	 * @param attractionRef reference to the attraction, with its distance from the hotel
+	 */
+	public void addAttraction(AttractionRef attractionRef) {
+		touristAttractionsList.add(attractionRef);
 	}
 	
 	/**
 	 * Writes all attractions for a hotel to a map
 	 * @param hotelID Id of a hotel
-	 * @param touristAttractionsList List of attractions near by the hotel id.
+	 * @param touristAttractionsList List of references to attractions near by the hotel id.
 	 */
-	public void writeAttractionsToMap(String hotelID, ArrayList<TouristAttraction> touristAttractionsList) {
-		touristAttractionsMap.put(hotelID, touristAttractionsList);
+	public void writeAttractionsToMap(String hotelID, List<AttractionRef> touristAttractionsList) {
+		List<AttractionRef> replaced = touristAttractionsMap.put(hotelID, touristAttractionsList);
+		if (replaced != null) {
+			AttractionStore.getInstance().release(replaced);
+		}
 	}
 	
 	/**
 	 * Used while copying to main thread from local thread
-	 * @return list of tourist attractions
+	 * @return list of references to tourist attractions
 	 */
-	public List<TouristAttraction> getTouristAttractionsList() {
+	public List<AttractionRef> getTouristAttractionsList() {
 		return touristAttractionsList;
 	}
 	
@@ -268,12 +340,9 @@ public class HotelData {
 	 * @return List of attractions by hotel id.
 	 */
 	public List<TouristAttraction> findAttractionsByHotelID(String hotelID){
-		if (touristAttractionsMap.get(hotelID) != null) {
-			List<TouristAttraction> attractions = new ArrayList<>();
-			for (TouristAttraction attraction:touristAttractionsMap.get(hotelID)) {
-				attractions.add(attraction);
-			}
-			return attractions;
+		List<AttractionRef> attractionRefs = touristAttractionsMap.get(hotelID);
+		if (attractionRefs != null) {
+			return AttractionStore.getInstance().resolve(attractionRefs);
 		}
 		return null;
 	}
@@ -288,54 +357,48 @@ public class HotelData {
 	}
 	
 	/**
-	 * Used in HotelSearch class. Gets the descriptions for a hotel by id. Cloning the object for encapsulation.
+	 * Used in HotelSearch class. Gets the descriptions for a hotel by id.
+	 * HotelDetails is immutable, so the stored object is returned without copying.
 	 * @param id hotel id
 	 * @return HotelDetails object with area and property descriptions
 	 */
 	public HotelDetails findDescriptionsByHotelId(String id) {
-		HotelDetails hotelDetails = descriptionsMap.get(id);
-		HotelDetails descriptionsClone = null;
-		if (hotelDetails != null) {
-			descriptionsClone = new HotelDetails(hotelDetails.getId(), hotelDetails.getName(), hotelDetails.getCity(), hotelDetails.getState(), hotelDetails.getStreet(), hotelDetails.getLatitude(), hotelDetails.getLongitude());
-			descriptionsClone.setAreaDescription(hotelDetails.getAreaDescription());
-			descriptionsClone.setPropertyDescription(hotelDetails.getPropertyDescription());
-		}
-		return descriptionsClone;
+		return descriptionsMap.get(id);
 	}
 	
 	/**
-	 * Get hotel details by id. Fetched from hotelsMap. Cloning the object to protect encapsulation
+	 * Get hotel details by id. Fetched from hotelsMap.
+	 * HotelDetails is immutable, so the stored object is returned without copying.
 	 * @param id hotel id
 	 * @return hotel details
 	 */
 	public HotelDetails findHotelById(String id) {
 		if (id != null) {
-			HotelDetails hotelDetails = hotelsMap.get(id);
-			if (hotelDetails != null) {
-				HotelDetails hotelDetailsClone = new HotelDetails(hotelDetails.getId(), hotelDetails.getName(), hotelDetails.getCity(), hotelDetails.getState(), hotelDetails.getStreet(), hotelDetails.getLatitude(), hotelDetails.getLongitude());
-				return hotelDetailsClone;
-			}
+			return hotelsMap.get(id);
 		}
 		return null;
 	}
 	
-	/** Get list of hotel reviews by hotel id.
+	/** Get list of hotel reviews by hotel id, most recent first.
 	 * @param hotelId Takes integer value
-	 * @return unmodifiable reference to the list of hotel reviews
+	 * @param count maximum number of reviews to return
+	 * @return list of at most count hotel reviews
 	 */
-	public ArrayList<HotelReview> findReviewsByHotelId(String hotelId, int count){
+	public List<HotelReview> findReviewsByHotelId(String hotelId, int count){
+		return findTopReviews(hotelId, count, ReviewOrder.NEWEST);
+	}
+	
+	/** Get the top reviews of a hotel in the given order without copying all reviews of the hotel.
+	 * @param hotelId id of the hotel
+	 * @param count maximum number of reviews to return
+	 * @param order order of the reviews
+	 * @return list of at most count hotel reviews, null if the hotel has no reviews
+	 */
+	public List<HotelReview> findTopReviews(String hotelId, int count, ReviewOrder order) {
 		if (hotelId != null && count > 0) {
-			TreeSet<HotelReview> list = reviewsMap.get(hotelId);
-			if (list != null) {
-				ArrayList<HotelReview> reviewsList = new ArrayList<>();
-				int counter = 0;
-				for (HotelReview review : list) {
-					if (counter < count) {
-						reviewsList.add(review);
-						counter++;
-					}
-				}
-				return reviewsList;
+			TreeSet<HotelReview> reviews = reviewsMap.get(hotelId);
+			if (reviews != null) {
+				return order.topK(reviews, count);
 			}
 		}
 		return null;
@@ -349,6 +412,15 @@ public class HotelData {
 	 */
 	public void printAttractions(Path filename) {
 		// FILL IN CODE
+		printAttractions(filename, this::findAttractionsByHotelID);
+	}
+	
+	/** Print attractions near the hotels to a file, getting the attractions of each hotel from the given function.
+	 *
+	 * @param filename name of the file to print to
+	 * @param attractionsByHotelId returns the attractions of a hotel id, null if there are none
+	 */
+	public void printAttractions(Path filename, Function<String, List<TouristAttraction>> attractionsByHotelId) {
 		try {
 			File file = new File (filename.toString());
 			PrintWriter printWriter = new PrintWriter (file);
@@ -359,8 +431,9 @@ public class HotelData {
 				printWriter.write(", ");
 				printWriter.write(hotelDetails.getName());
 				printWriter.write(System.lineSeparator());
-				if (findAttractionsByHotelID(hotelID) != null) {
-					for (TouristAttraction attraction : findAttractionsByHotelID(hotelID)) {
+				List<TouristAttraction> attractions = attractionsByHotelId.apply(hotelID);
+				if (attractions != null) {
+					for (TouristAttraction attraction : attractions) {
 						printWriter.write(attraction.toString());
 						printWriter.write(System.lineSeparator());
 					}
@@ -390,11 +463,11 @@ public class HotelData {
 			File file = new File (filename.toString());
 			PrintWriter printWriter = new PrintWriter (file);
 			for (String hotelID: getHotels()) {
-				if(findDescriptionsByHotelId(hotelID) != null) {
+				HotelDetails hotelDetails = findDescriptionsByHotelId(hotelID);
+				if(hotelDetails != null) {
 					printWriter.write(hotelID);
 					printWriter.write(System.lineSeparator()+System.lineSeparator());
 					
-					HotelDetails hotelDetails = findDescriptionsByHotelId(hotelID);
 					if (hotelDetails.getAreaDescription() != null) {
 						printWriter.write(hotelDetails.getAreaDescription());
 						printWriter.write(System.lineSeparator()+System.lineSeparator());
@@ -419,6 +492,173 @@ public class HotelData {
 		
 	}
 	
+	/**
+	 * Writes hotels, reviews, attractions and descriptions to a binary snapshot file.
+	 * The snapshot is written to a temporary file first and then moved in place.
+	 * @param snapshot path of the snapshot file
+	 * @param fingerprint fingerprint of the input files the data was loaded from
+	 * @throws IOException if the snapshot can not be written
+	 */
+	public void writeSnapshot(Path snapshot, long fingerprint) throws IOException {
+		Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			HotelDataSnapshot.writeHeader(out, fingerprint);
+			
+			out.writeInt(hotelsMap.size());
+			for (HotelDetails hotel : hotelsMap.values()) {
+				writeHotel(out, hotel);
+			}
+			
+			out.writeInt(reviewsMap.size());
+			for (Map.Entry<String, TreeSet<HotelReview>> entry : reviewsMap.entrySet()) {
+				HotelDataSnapshot.writeString(out, entry.getKey());
+				out.writeInt(entry.getValue().size());
+				for (HotelReview review : entry.getValue()) {
+					HotelDataSnapshot.writeString(out, review.getReviewId());
+					HotelDataSnapshot.writeString(out, review.getHotelId());
+					HotelDataSnapshot.writeString(out, review.getUserNickname());
+					out.writeInt(review.getRating());
+					out.writeBoolean(review.isRecommended());
+					out.writeLong(review.getReviewDate() == null ? Long.MIN_VALUE : review.getReviewDate().getTime());
+					HotelDataSnapshot.writeString(out, review.getTitle());
+					HotelDataSnapshot.writeString(out, review.getReviewText());
+				}
+			}
+			
+			out.writeInt(touristAttractionsMap.size());
+			for (Map.Entry<String, List<AttractionRef>> entry : touristAttractionsMap.entrySet()) {
+				HotelDataSnapshot.writeString(out, entry.getKey());
+				List<TouristAttraction> attractions = AttractionStore.getInstance().resolve(entry.getValue());
+				out.writeInt(attractions.size());
+				for (int i = 0; i < attractions.size(); i++) {
+					TouristAttraction attraction = attractions.get(i);
+					HotelDataSnapshot.writeString(out, attraction.getId());
+					HotelDataSnapshot.writeString(out, attraction.getName());
+					out.writeDouble(attraction.getRating());
+					HotelDataSnapshot.writeString(out, attraction.getAddress());
+					out.writeDouble(attraction.getLatitude());
+					out.writeDouble(attraction.getLongitude());
+					out.writeDouble(entry.getValue().get(i).getDistance());
+				}
+			}
+			
+			out.writeInt(descriptionsMap.size());
+			for (HotelDetails hotel : descriptionsMap.values()) {
+				writeHotel(out, hotel);
+				HotelDataSnapshot.writeString(out, hotel.getAreaDescription());
+				HotelDataSnapshot.writeString(out, hotel.getPropertyDescription());
+			}
+		}
+		Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Loads hotels, reviews, attractions and descriptions from a memory-mapped binary snapshot.
+	 * Does not write anything to DB, the snapshot is written only after the data was loaded to DB.
+	 * @param snapshot path of the snapshot file
+	 * @throws IOException if the snapshot can not be read or is corrupt
+	 */
+	public void loadSnapshot(Path snapshot) throws IOException {
+		ByteBuffer buffer = HotelDataSnapshot.map(snapshot);
+		try {
+			readSnapshot(buffer);
+		} catch (RuntimeException e) {
+			// a truncated or corrupt body fails with BufferUnderflowException, IllegalArgumentException and the like
+			throw new IOException("Corrupt snapshot " + snapshot + ": " + e, e);
+		}
+	}
+	
+	/**
+	 * Reads the body of a snapshot
+	 * @param buffer snapshot mapped by HotelDataSnapshot.map, positioned after the header
+	 */
+	private void readSnapshot(ByteBuffer buffer) {
+		int hotelsCount = buffer.getInt();
+		for (int i = 0; i < hotelsCount; i++) {
+			HotelDetails hotel = readHotel(buffer);
+			hotelsMap.put(hotel.getId(), hotel);
+		}
+		sortedHotelIds = null;
+		
+		int reviewedHotelsCount = buffer.getInt();
+		for (int i = 0; i < reviewedHotelsCount; i++) {
+			String hotelId = HotelDataSnapshot.readString(buffer);
+			int reviewsCount = buffer.getInt();
+			TreeSet<HotelReview> reviews = new TreeSet<>(REVIEWS_COMPARATOR);
+			for (int j = 0; j < reviewsCount; j++) {
+				String reviewId = HotelDataSnapshot.readString(buffer);
+				String reviewHotelId = HotelDataSnapshot.readString(buffer);
+				String username = HotelDataSnapshot.readString(buffer);
+				int rating = buffer.getInt();
+				boolean isRecom = buffer.get() != 0;
+				long time = buffer.getLong();
+				Date date = time == Long.MIN_VALUE ? null : new Date(time);
+				String title = HotelDataSnapshot.readString(buffer);
+				String text = HotelDataSnapshot.readString(buffer);
+				reviews.add(new HotelReview(reviewId, reviewHotelId, username, rating, isRecom, title, text, date, reviewTextStore));
+			}
+			reviewsMap.put(hotelId, reviews);
+		}
+		
+		int attractionHotelsCount = buffer.getInt();
+		for (int i = 0; i < attractionHotelsCount; i++) {
+			String hotelId = HotelDataSnapshot.readString(buffer);
+			int attractionsCount = buffer.getInt();
+			ArrayList<AttractionRef> attractions = new ArrayList<>(attractionsCount);
+			for (int j = 0; j < attractionsCount; j++) {
+				String id = HotelDataSnapshot.readString(buffer);
+				String name = HotelDataSnapshot.readString(buffer);
+				double rating = buffer.getDouble();
+				String address = HotelDataSnapshot.readString(buffer);
+				double latitude = buffer.getDouble();
+				double longitude = buffer.getDouble();
+				double distance = buffer.getDouble();
+				TouristAttraction attraction = new TouristAttraction(id, name, rating, address, latitude, longitude);
+				attractions.add(AttractionStore.getInstance().add(attraction, distance));
+			}
+			touristAttractionsMap.put(hotelId, attractions);
+		}
+		
+		int descriptionsCount = buffer.getInt();
+		for (int i = 0; i < descriptionsCount; i++) {
+			HotelDetails hotel = new HotelDetails.Builder(readHotel(buffer))
+					.setAreaDescription(HotelDataSnapshot.readString(buffer))
+					.setPropertyDescription(HotelDataSnapshot.readString(buffer))
+					.build();
+			descriptionsMap.put(hotel.getId(), hotel);
+		}
+	}
+	
+	/**
+	 * Writes general hotel information to the snapshot
+	 * @param out output stream of the snapshot
+	 * @param hotel hotel to write
+	 * @throws IOException if writing fails
+	 */
+	private void writeHotel(DataOutputStream out, HotelDetails hotel) throws IOException {
+		HotelDataSnapshot.writeString(out, hotel.getId());
+		HotelDataSnapshot.writeString(out, hotel.getName());
+		HotelDataSnapshot.writeString(out, hotel.getStreet());
+		HotelDataSnapshot.writeString(out, hotel.getCity());
+		HotelDataSnapshot.writeString(out, hotel.getState());
+		out.writeDouble(hotel.getLatitude());
+		out.writeDouble(hotel.getLongitude());
+	}
+	
+	/**
+	 * Reads general hotel information from the snapshot
+	 * @param buffer mapped snapshot
+	 * @return hotel read
+	 */
+	private HotelDetails readHotel(ByteBuffer buffer) {
+		String id = HotelDataSnapshot.readString(buffer);
+		String name = HotelDataSnapshot.readString(buffer);
+		String street = HotelDataSnapshot.readString(buffer);
+		String city = HotelDataSnapshot.readString(buffer);
+		String state = HotelDataSnapshot.readString(buffer);
+		double lat = buffer.getDouble();
+		double lon = buffer.getDouble();
+		return new HotelDetails(id, name, street, city, state, lat, lon);
+	}
+	
 }
-
-
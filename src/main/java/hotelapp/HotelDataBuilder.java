@@ -3,23 +3,37 @@ package hotelapp;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import jettyServer.Status;
 
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 /** Class HotelDataBuilder. Loads hotel info from input files to ThreadSafeHotelData (using multithreading). */
 public class HotelDataBuilder {
 	private ThreadSafeHotelData hdata; // the "big" ThreadSafeHotelData that will contain all hotel and reviews info
 	private ExecutorService exec;
+	private IngestionManifest manifest; // files ingested on previous runs, null to always ingest every file
+	private boolean skipUnchanged; // whether unchanged files are skipped entirely or parsed without DB writes
+	private Set<String> seenFiles; // review files found while parsing the reviews directory
 	
 	/** Constructor for class HotelDataBuilder.
 	 *  @param data */
@@ -27,6 +41,19 @@ public class HotelDataBuilder {
 		// FILL IN CODE
 		this.hdata = data;
 		exec = Executors.newFixedThreadPool(20);
+		seenFiles = ConcurrentHashMap.newKeySet();
+	}
+	
+	/**
+	 * Uses an ingestion manifest so only new or changed review files are written to DB,
+	 * and only reviews that were added, changed or removed since the previous run.
+	 * @param manifest manifest of the files ingested on previous runs
+	 * @param skipUnchanged true to skip parsing unchanged files, when their reviews are already loaded
+	 *                      (for example from a snapshot)
+	 */
+	public void setManifest(IngestionManifest manifest, boolean skipUnchanged) {
+		this.manifest = manifest;
+		this.skipUnchanged = skipUnchanged;
 	}
 	
 	/** Constructor for class HotelDataBuilder that takes ThreadSafeHotelData and
@@ -42,6 +69,12 @@ public class HotelDataBuilder {
 	 */
 	public void loadHotelInfo(String jsonFilename) {
 		// FILL IN CODE (from lab 1)
+		long start = System.nanoTime();
+		JfrEvents.ParseEvent event = new JfrEvents.ParseEvent();
+		event.begin();
+		event.file = jsonFilename;
+		event.kind = "hotels";
+		event.result = "failed";
 		try{
 			JsonParser jsonParser = new JsonParser();
 			JsonObject jsonObject = (JsonObject) jsonParser.parse(new FileReader(jsonFilename));
@@ -68,9 +101,16 @@ public class HotelDataBuilder {
 				hdata.addHotel(hotelID, hotelName, city, state, street, lat, lon);
 				
 			}
+			MetricsRegistry registry = MetricsRegistry.getInstance();
+			registry.histogram("ingest_hotels_parse_seconds", "Time to parse the hotels file").recordNanos(System.nanoTime() - start);
+			registry.counter("ingest_hotels_total", "Hotels loaded from the hotels file").add(hotels.size());
+			event.records = hotels.size();
+			event.result = "parsed";
 		} catch (FileNotFoundException e) {
 			System.out.println(e);
 			System.exit(0);
+		} finally {
+			event.commit();
 		}
 	}
 	
@@ -88,6 +128,57 @@ public class HotelDataBuilder {
 			System.out.println(e);
 			//System.out.printlnerror(e);
 		}
+		if (manifest != null) {
+			removeDeletedFiles(dir);
+		}
+	}
+	
+	/**
+	 * Parses the given review files again on the calling thread and merges them into ThreadSafeHotelData
+	 * (and DB). Used by ReviewsDirectoryWatcher for files created or modified while the server is running.
+	 * @param files review files to parse
+	 */
+	public void reloadReviews(Collection<Path> files) {
+		for (Path file : files) {
+			if (Files.isRegularFile(file)) {
+				try {
+					new Worker(file).run();
+				} catch (RuntimeException e) {
+					System.out.println("Could not parse the file " + file + ": " + e);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the ingestion manifest used by this builder
+	 * @return manifest, null if every file is always ingested
+	 */
+	public IngestionManifest getManifest() {
+		return manifest;
+	}
+	
+	/**
+	 * Removes reviews of the files that are in the manifest but were not found in the reviews directory
+	 * from DB and from ThreadSafeHotelData. A file stays in the manifest if its reviews could not be removed
+	 * from DB, so the next run retries.
+	 * @param dir path to the reviews directory
+	 */
+	private void removeDeletedFiles(Path dir) {
+		for (String path : new ArrayList<>(manifest.getPaths())) {
+			// compares path components, reviews10 is not inside reviews1
+			if (Paths.get(path).startsWith(dir) && !seenFiles.contains(path)) {
+				IngestionManifest.FileEntry entry = manifest.get(Paths.get(path));
+				if (HotelData.reviewHandler.removeReviews(entry.getReviews().keySet()) != Status.OK) {
+					System.out.println("Could not remove reviews of the deleted file " + path + " from DB");
+					continue;
+				}
+				manifest.remove(path);
+				if (entry.getHotelId() != null) {
+					hdata.removeReviews(entry.getHotelId(), entry.getReviews().keySet());
+				}
+			}
+		}
 	}
 	
 	/** Prints all hotel info to the file. Calls hdata's printToFile method. */
@@ -133,6 +224,8 @@ public class HotelDataBuilder {
 			this.filePath = filePath;
 			//Create local instance of ThreadSafeHotelData to add all reviews to local set
 			localData = new ThreadSafeHotelData();
+			//with a manifest only the changed reviews are written to DB, in a batch
+			localData.setPersistReviews(manifest == null);
 		}
 		
 		/**
@@ -140,9 +233,31 @@ public class HotelDataBuilder {
 		 */
 		@Override
 		public void run() {
+			long start = System.nanoTime();
+			String result = "failed";
+			JfrEvents.ParseEvent event = new JfrEvents.ParseEvent();
+			event.begin();
 			try {
+				seenFiles.add(filePath.toString());
+				long size = Files.size(filePath);
+				long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+				IngestionManifest.FileEntry previous = manifest != null ? manifest.get(filePath) : null;
+				boolean unchanged = previous != null && previous.matches(size, lastModified);
+				if (unchanged && skipUnchanged) {
+					result = "skipped";
+					return;
+				}
+				
+				byte[] content = Files.readAllBytes(filePath);
+				String hash = null;
+				if (manifest != null) {
+					hash = IngestionManifest.hash(content);
+					// file was touched but the content is the same
+					unchanged = unchanged || (previous != null && hash.equals(previous.getHash()));
+				}
+				
 				JsonParser jsonParser = new JsonParser();
-				JsonObject jsonObject = (JsonObject) jsonParser.parse(new FileReader(filePath.toString()));
+				JsonObject jsonObject = (JsonObject) jsonParser.parse(new String(content, StandardCharsets.UTF_8));
 				JsonObject reviewCollection = jsonObject.getAsJsonObject("reviewDetails").getAsJsonObject(
 						"reviewCollection");
 				JsonArray reviewList = reviewCollection.getAsJsonArray("review");
@@ -152,6 +267,7 @@ public class HotelDataBuilder {
 				int rating;
 				String date;
 				boolean isRecom;
+				Map<String, String> reviewHashes = new HashMap<>();
 				
 				for (int i = 0; i < reviewList.size(); i++) {
 					JsonObject reviewObject = reviewList.get(i).getAsJsonObject();
@@ -166,16 +282,90 @@ public class HotelDataBuilder {
 					isRecom = reviewObject.get("isRecommended").getAsBoolean();
 					
 					//adding reviews to local ThreadSafeHotelData
-					localData.addReview(hotelId, reviewId, rating, reviewTitle, review, isRecom, date, username);
+					boolean accepted = localData.addReview(hotelId, reviewId, rating, reviewTitle, review, isRecom, date, username);
+					// a rejected review is not recorded, so it is ingested once the file is corrected
+					if (manifest != null && accepted) {
+						reviewHashes.put(reviewId, hashReview(reviewObject));
+					}
 				}
 				//adding localData instance of reviews set to the main thread map of reviews
 				hdata.combine(hotelId, localData);
 				
+				// the manifest keeps the previous entry if DB was not updated, so the next run writes the changes again
+				if (manifest != null && (unchanged || writeChangesToDB(previous, reviewHashes) == Status.OK)) {
+					manifest.put(new IngestionManifest.FileEntry(filePath.toString(), hotelId, size, lastModified, hash, reviewHashes));
+				}
+				result = "parsed";
+				event.records = reviewList.size();
+				MetricsRegistry.getInstance().counter("ingest_reviews_total", "Reviews parsed from review files").add(reviewList.size());
+				
 			} catch (IOException e) {
 				System.out.println("Could not read the file: " + e);
 				//System.out.printlnerror("Could not read the file: " + e);
+			} finally {
+				MetricsRegistry registry = MetricsRegistry.getInstance();
+				registry.counter("ingest_review_files_total", "Review files seen, by result", "result", result).increment();
+				if (result.equals("parsed")) {
+					registry.histogram("ingest_review_file_parse_seconds", "Time to read, parse and merge a review file")
+							.recordNanos(System.nanoTime() - start);
+				}
+				event.end();
+				if (event.shouldCommit()) {
+					event.file = filePath.toString();
+					event.kind = "reviews";
+					event.result = result;
+					event.commit();
+				}
 			}
 			
 		}
+		
+		/**
+		 * Diffs reviews of the file with the reviews ingested on the previous run,
+		 * writes new and changed reviews and removes deleted reviews from DB.
+		 * @param previous manifest entry of the previous run, null if the file is new
+		 * @param reviewHashes hash of every review in the file by review id
+		 * @return Status.OK if all changes were written to DB
+		 */
+		private Status writeChangesToDB(IngestionManifest.FileEntry previous, Map<String, String> reviewHashes) {
+			Map<String, String> previousHashes = previous != null ? previous.getReviews() : new HashMap<>();
+			
+			List<HotelReview> changedReviews = new ArrayList<>();
+			for (HotelReview review : localData.getReviewsSet()) {
+				String reviewHash = reviewHashes.get(review.getReviewId());
+				if (!reviewHash.equals(previousHashes.get(review.getReviewId()))) {
+					changedReviews.add(review);
+				}
+			}
+			
+			List<String> removedReviews = new ArrayList<>();
+			for (String reviewId : previousHashes.keySet()) {
+				if (!reviewHashes.containsKey(reviewId)) {
+					removedReviews.add(reviewId);
+				}
+			}
+			
+			Status status = HotelData.reviewHandler.upsertReviews(changedReviews);
+			if (status != Status.OK) {
+				System.out.println("Could not write changed reviews to DB: " + status);
+				return status;
+			}
+			status = HotelData.reviewHandler.removeReviews(removedReviews);
+			if (status != Status.OK) {
+				System.out.println("Could not remove deleted reviews from DB: " + status);
+			}
+			return status;
+		}
+		
+		/**
+		 * Returns hash of a single review json object, used to find changed reviews
+		 * @param reviewObject review json object
+		 * @return hex encoded CRC32 of the review json
+		 */
+		private String hashReview(JsonObject reviewObject) {
+			CRC32 crc = new CRC32();
+			crc.update(reviewObject.toString().getBytes(StandardCharsets.UTF_8));
+			return Long.toHexString(crc.getValue());
+		}
 	}
 }
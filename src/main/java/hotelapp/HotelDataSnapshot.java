@@ -0,0 +1,148 @@
+package hotelapp;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Helper methods for the binary snapshot of HotelData (hotels, reviews, attractions and descriptions).
+ * The snapshot starts with a header of magic number, format version and a fingerprint of the input files,
+ * so a snapshot written for other input files (or by another version) is detected as stale.
+ * Strings are stored as length prefixed UTF-8 bytes, null strings have length -1.
+ */
+public class HotelDataSnapshot {
+
+	/** Magic number at the start of every snapshot file */
+	public static final int MAGIC = 0x48444153;
+
+	/** Version of the snapshot format, increment when the layout changes */
+	public static final int VERSION = 4;
+
+	/**
+	 * Computes a fingerprint of the input files: path, size and last modified time of the hotels file
+	 * and of every file in the reviews directory.
+	 * @param hotelsFile path to hotels json file
+	 * @param reviewsDir path to the reviews directory, may be null
+	 * @return fingerprint of the input files
+	 * @throws IOException if the input files can not be listed
+	 */
+	public static long fingerprint(Path hotelsFile, Path reviewsDir) throws IOException {
+		List<Path> files = new ArrayList<>();
+		files.add(hotelsFile);
+		if (reviewsDir != null) {
+			try (Stream<Path> paths = Files.walk(reviewsDir)) {
+				List<Path> reviewFiles = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+				Collections.sort(reviewFiles);
+				files.addAll(reviewFiles);
+			}
+		}
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (Path file : files) {
+				digest.update(file.toString().getBytes(StandardCharsets.UTF_8));
+				digest.update(ByteBuffer.allocate(16)
+						.putLong(Files.size(file))
+						.putLong(Files.getLastModifiedTime(file).toMillis())
+						.array());
+			}
+			return ByteBuffer.wrap(digest.digest()).getLong();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Checks if the snapshot exists and was written by this version for the input files with given fingerprint.
+	 * @param snapshot path to the snapshot file
+	 * @param fingerprint fingerprint of the current input files
+	 * @return true if the snapshot can be loaded instead of parsing the input files
+	 */
+	public static boolean isFresh(Path snapshot, long fingerprint) {
+		if (!Files.isRegularFile(snapshot)) {
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(16);
+			while (header.hasRemaining() && channel.read(header) > 0);
+			header.flip();
+			return header.remaining() == 16 && header.getInt() == MAGIC && header.getInt() == VERSION
+			       && header.getLong() == fingerprint;
+		} catch (IOException e) {
+			System.out.println("Could not read snapshot header: " + e);
+		}
+		return false;
+	}
+
+	/**
+	 * Memory-maps the snapshot file and skips the header.
+	 * @param snapshot path to the snapshot file
+	 * @return buffer positioned after the header
+	 * @throws IOException if the file can not be mapped or is not a snapshot
+	 */
+	public static ByteBuffer map(Path snapshot) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("Not a hotel data snapshot: " + snapshot);
+			}
+			buffer.getLong(); // fingerprint
+			return buffer;
+		}
+	}
+
+	/**
+	 * Writes the snapshot header.
+	 * @param out output stream of the snapshot
+	 * @param fingerprint fingerprint of the input files
+	 * @throws IOException if writing fails
+	 */
+	public static void writeHeader(DataOutputStream out, long fingerprint) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(fingerprint);
+	}
+
+	/**
+	 * Writes a length prefixed UTF-8 string.
+	 * @param out output stream of the snapshot
+	 * @param value string to write, may be null
+	 * @throws IOException if writing fails
+	 */
+	public static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Reads a length prefixed UTF-8 string.
+	 * @param buffer mapped snapshot
+	 * @return string read, may be null
+	 */
+	public static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
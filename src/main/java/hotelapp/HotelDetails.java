@@ -2,20 +2,22 @@ package hotelapp;
 
 /** This class stores hotel details.
  *  Used while parsing "hotels200.json" file that contains info about hotels.
+ *  Instances are immutable, so they can be shared between threads and caches without copying.
+ *  Use HotelDetails.Builder to create a hotel with descriptions or average rating.
  */
 
-public class HotelDetails{
-	
-	private String id;
-	private String name;
-	private String street;
-	private String city;
-	private String state;
-	private double latitude;
-	private double longitude;
-	private String areaDescription;
-	private String propertyDescription;
-	private String avgRating;
+public final class HotelDetails{
+
+	private final String id;
+	private final String name;
+	private final String street;
+	private final String city;
+	private final String state;
+	private final double latitude;
+	private final double longitude;
+	private final String areaDescription;
+	private final String propertyDescription;
+	private final String avgRating;
 	
 	/**
 	 * Constructor of this class
@@ -28,27 +30,30 @@ public class HotelDetails{
 	 * @param longitude - longitude info about the hotel
 	 */
 	public HotelDetails(String id, String name, String street, String city, String state, double latitude, double longitude) {
-		this.id = id;
-		this.name = name;
-		this.city = city;
-		this.state = state;
-		this.street = street;
-		this.latitude =latitude;
-		this.longitude = longitude;
+		this(id, name, street, city, state, latitude, longitude, null, null, null);
 	}
 	
 	public HotelDetails(String id, String name, String street, String city, String state) {
+		this(id, name, street, city, state, 0, 0);
+	}
+	
+	public HotelDetails (String name, double latitude, double longitude) {
+		this(null, name, null, null, null, latitude, longitude);
+	}
+	
+	/** Constructor used by the builder, sets all the fields */
+	private HotelDetails(String id, String name, String street, String city, String state, double latitude, double longitude,
+	                     String areaDescription, String propertyDescription, String avgRating) {
 		this.id = id;
 		this.name = name;
 		this.street = street;
 		this.city = city;
 		this.state = state;
-	}
-	
-	public HotelDetails (String name, double latitude, double longitude) {
-		this.name = name;
-		this.latitude =latitude;
+		this.latitude = latitude;
 		this.longitude = longitude;
+		this.areaDescription = areaDescription;
+		this.propertyDescription = propertyDescription;
+		this.avgRating = avgRating;
 	}
 	
 	/**
@@ -59,22 +64,6 @@ public class HotelDetails{
 		return this.name;
 	}
 	
-	/**
-	 * Sets area description for the hotel
-	 * @param areaDescription  has city where the hotel is located in and the area description
-	 */
-	public void setAreaDescription(String areaDescription) {
-		this.areaDescription = areaDescription;
-	}
-	
-	/**
-	 * Sets property description of the hotel
-	 * @param propertyDescription Has hotel name and property description
-	 */
-	public void setPropertyDescription(String propertyDescription) {
-		this.propertyDescription = propertyDescription;
-	}
-	
 	/**
 	 * Returns hotel id
 	 * @return Id of the hotel
@@ -144,11 +133,6 @@ public class HotelDetails{
 		return avgRating;
 	}
 	
-	/** Set average rating of hotel*/
-	public void setAvgRating(String avgRating) {
-		this.avgRating = avgRating;
-	}
-	
 	/**
 	 * Returns hotel information objects
 	 * @return - string of hotel information.
@@ -169,4 +153,76 @@ public class HotelDetails{
 		
 		return sb.toString();
 	}
+	
+	/**
+	 * Builder of HotelDetails. The only place where descriptions and average rating are set.
+	 */
+	public static class Builder {
+		private String id;
+		private String name;
+		private String street;
+		private String city;
+		private String state;
+		private double latitude;
+		private double longitude;
+		private String areaDescription;
+		private String propertyDescription;
+		private String avgRating;
+		
+		/**
+		 * Creates a builder starting with all the values of the given hotel
+		 * @param hotel hotel to copy the values from
+		 */
+		public Builder(HotelDetails hotel) {
+			this.id = hotel.id;
+			this.name = hotel.name;
+			this.street = hotel.street;
+			this.city = hotel.city;
+			this.state = hotel.state;
+			this.latitude = hotel.latitude;
+			this.longitude = hotel.longitude;
+			this.areaDescription = hotel.areaDescription;
+			this.propertyDescription = hotel.propertyDescription;
+			this.avgRating = hotel.avgRating;
+		}
+		
+		/**
+		 * Sets area description for the hotel
+		 * @param areaDescription  has city where the hotel is located in and the area description
+		 * @return this builder
+		 */
+		public Builder setAreaDescription(String areaDescription) {
+			this.areaDescription = areaDescription;
+			return this;
+		}
+		
+		/**
+		 * Sets property description of the hotel
+		 * @param propertyDescription Has hotel name and property description
+		 * @return this builder
+		 */
+		public Builder setPropertyDescription(String propertyDescription) {
+			this.propertyDescription = propertyDescription;
+			return this;
+		}
+		
+		/**
+		 * Set average rating of hotel
+		 * @param avgRating formatted average rating
+		 * @return this builder
+		 */
+		public Builder setAvgRating(String avgRating) {
+			this.avgRating = avgRating;
+			return this;
+		}
+		
+		/**
+		 * Creates the immutable hotel
+		 * @return hotel details
+		 */
+		public HotelDetails build() {
+			return new HotelDetails(id, name, street, city, state, latitude, longitude,
+					areaDescription, propertyDescription, avgRating);
+		}
+	}
 }
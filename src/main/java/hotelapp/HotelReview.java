@@ -1,11 +1,15 @@
 package hotelapp;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**Stores single review details for a hotel.
+ * Title and review text are either kept on heap or, when a ReviewTextStore is given,
+ * stored off heap with only their offsets and lengths kept in this object.
  * Overrides compareTo method to sort reviews by
  * review date (recent ones on top),user nickname (alphabetical order) and review id.
  */
@@ -19,6 +23,11 @@ public class HotelReview implements Comparable<HotelReview> {
 	private String user;
 	private Date date;
 	private boolean isRecommended;
+	private ReviewTextStore textStore;
+	private long titleOffset;
+	private int titleLength;
+	private long textOffset;
+	private int textLength;
 	
 	/**
 	 * Constructor of this class
@@ -32,19 +41,62 @@ public class HotelReview implements Comparable<HotelReview> {
 	 * @param userNickname - name of the user who gave hotel review
 	 */
 	public HotelReview(String reviewId, String hotelId, String userNickname, int rating, boolean isRecom, String title, String reviewText, String reviewDate) {
+		this(reviewId, hotelId, userNickname, rating, isRecom, title, reviewText, reviewDate, null);
+	}
+	
+	/**
+	 * Constructor of this class that stores title and review text in the given text store.
+	 * Keeps the text on heap if the store is null or can not be written to.
+	 * @param hotelId - id of hotel
+	 * @param reviewId - review of id
+	 * @param rating - rating of hotel
+	 * @param title - review title
+	 * @param reviewText - review
+	 * @param isRecom - recommendation of hotel as YES/NO
+	 * @param reviewDate - date of review
+	 * @param userNickname - name of the user who gave hotel review
+	 * @param textStore - off heap store for title and review text
+	 */
+	public HotelReview(String reviewId, String hotelId, String userNickname, int rating, boolean isRecom, String title, String reviewText, String reviewDate, ReviewTextStore textStore) {
+		this(reviewId, hotelId, userNickname, rating, isRecom, title, reviewText, parseDate(reviewDate), textStore);
+	}
+	
+	/**
+	 * Constructor of this class that takes an already parsed review date.
+	 * Used while loading reviews from a snapshot.
+	 * @param hotelId - id of hotel
+	 * @param reviewId - review of id
+	 * @param rating - rating of hotel
+	 * @param title - review title
+	 * @param reviewText - review
+	 * @param isRecom - recommendation of hotel as YES/NO
+	 * @param reviewDate - date of review
+	 * @param userNickname - name of the user who gave hotel review
+	 * @param textStore - off heap store for title and review text, may be null
+	 */
+	public HotelReview(String reviewId, String hotelId, String userNickname, int rating, boolean isRecom, String title, String reviewText, Date reviewDate, ReviewTextStore textStore) {
 		this.hotelId = hotelId;
 		this.reviewId = reviewId;
 		this.rating = rating;
-		this.title = title;
-		this.reviewText = reviewText;
+		storeText(title, reviewText, textStore);
 		this.user = userNickname;
 		this.isRecommended = isRecom;
+		this.date = reviewDate;
+	}
+	
+	/**
+	 * Parses review date in the format used by review files and the database.
+	 * @param reviewDate - date of review
+	 * @return parsed date, null if the date is invalid
+	 */
+	private static Date parseDate(String reviewDate) {
 		DateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
 		try {
-			this.date = format.parse(reviewDate);
+			return format.parse(reviewDate);
 		} catch (ParseException e) {
 			e.printStackTrace();
 		}
+		return null;
 	}
 	
 	/** Returns review id of the hotel */
@@ -62,16 +114,55 @@ public class HotelReview implements Comparable<HotelReview> {
 		return date;
 	}
 	
-	/** Returns title of the review */
+	/** Returns date and time of the review in the format used by review files and the database */
+	public String getReviewDateString() {
+		if (date == null) {
+			return null;
+		}
+		return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(date);
+	}
+	
+	/** Returns title of the review. Decoded from the text store if it is stored off heap. */
 	public String getTitle() {
+		if (textStore != null) {
+			return textStore.read(titleOffset, titleLength);
+		}
 		return title;
 	}
 	
-	/** Returns text of the review */
+	/** Returns text of the review. Decoded from the text store if it is stored off heap. */
 	public String getReviewText() {
+		if (textStore != null) {
+			return textStore.read(textOffset, textLength);
+		}
 		return reviewText;
 	}
 	
+	/**
+	 * Writes title and review text to the text store. Keeps them on heap if there is no store.
+	 * @param title - review title
+	 * @param reviewText - review
+	 * @param store - off heap store for title and review text
+	 */
+	private void storeText(String title, String reviewText, ReviewTextStore store) {
+		if (store != null && title != null && reviewText != null) {
+			try {
+				byte[] titleBytes = title.getBytes(StandardCharsets.UTF_8);
+				byte[] textBytes = reviewText.getBytes(StandardCharsets.UTF_8);
+				this.titleOffset = store.append(titleBytes);
+				this.titleLength = titleBytes.length;
+				this.textOffset = store.append(textBytes);
+				this.textLength = textBytes.length;
+				this.textStore = store;
+				return;
+			} catch (IOException | IllegalArgumentException e) {
+				System.err.println("Could not store review text off heap: " + e);
+			}
+		}
+		this.title = title;
+		this.reviewText = reviewText;
+	}
+	
 	/** Returns hotel id */
 	public String getHotelId() {
 		return hotelId;
@@ -128,9 +219,9 @@ public class HotelReview implements Comparable<HotelReview> {
 		sb.append("Rating: ");
 		sb.append(this.rating);
 		sb.append(System.lineSeparator());
-		sb.append(this.title);
+		sb.append(getTitle());
 		sb.append(System.lineSeparator());
-		sb.append(this.reviewText);
+		sb.append(getReviewText());
 		sb.append(System.lineSeparator());
 		
 		return sb.toString();
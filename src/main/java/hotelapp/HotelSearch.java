@@ -1,14 +1,21 @@
 package hotelapp;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 
 /** The main class for project 1.
  * The main function should take the following 4 command line arguments:
  * -hotels hotelFile -radius radiusInMiles
+ * Optional -snapshot snapshotFile loads the data from a binary snapshot written on a previous run
+ * if the input files did not change since then.
+ * Optional -manifest manifestFile writes to DB only the reviews of new or changed review files.
  *
  * and read general information about the hotels from the hotelFile (a JSON file)
  * and read fetch tourist attractions nearby hotel for the radius passed.
@@ -16,8 +23,18 @@ import java.util.Scanner;
  * See Readme for details.
  */
 public class HotelSearch {
+	
+	/** Finder shared by all attraction and description queries */
+	private TouristAttractionFinder finder;
+	
+	/** Spatial index over all hotels, built on the first findnear query */
+	private HotelSpatialIndex hotelIndex;
+	
 	/**
-	 * Search for hotel details, tourist attractions and descriptions by hotel id
+	 * Search for hotel details, tourist attractions and descriptions by hotel id.
+	 * findreviews takes an optional order: newest (default), rating or recommended.
+	 * findhotels lists the hotels with ids starting with the given prefix.
+	 * findnear lists the hotels within a radius (default 5 miles) of a location.
 	 * @param query what you want to find
 	 * @param threadSafeHotelData object of ThreadsafeHotelData
 	 */
@@ -33,7 +50,13 @@ public class HotelSearch {
 				else
 					System.out.println(hotelDetails);
 				break;
-			case "findreviews": List<HotelReview> hotelReviews = threadSafeHotelData.findReviewsByHotelId(queryParam[1], 20);
+			case "findhotels": String prefix = queryParam.length > 1 ? queryParam[1] : "";
+				for (String hotelId : threadSafeHotelData.getHotelsByIdPrefix(prefix)) {
+					System.out.println(hotelId + ", " + threadSafeHotelData.findHotelById(hotelId).getName());
+				}
+				break;
+			case "findreviews": ReviewOrder order = ReviewOrder.fromString(queryParam.length > 2 ? queryParam[2] : null);
+				List<HotelReview> hotelReviews = threadSafeHotelData.findTopReviews(queryParam[1], 20, order);
 				if (hotelReviews == null) {
 					if(threadSafeHotelData.findHotelById(queryParam[1])!= null)
 						System.out.println("There are no reviews for this hotel id.");
@@ -44,7 +67,7 @@ public class HotelSearch {
 					System.out.println(hotelReviews);
 				break;
 			
-			case "findattractions": TouristAttractionFinder attractionFinder = new TouristAttractionFinder(threadSafeHotelData);
+			case "findattractions": TouristAttractionFinder attractionFinder = getAttractionFinder(threadSafeHotelData);
 				attractionFinder.fetchAttractions(queryParam[1],2);
 				List<TouristAttraction> touristAttractions = threadSafeHotelData.findAttractionsByHotelID(queryParam[1]);
 				if (touristAttractions == null) {
@@ -58,7 +81,7 @@ public class HotelSearch {
 				}
 				break;
 				
-			case "finddescriptions": TouristAttractionFinder descriptions = new TouristAttractionFinder(threadSafeHotelData);
+			case "finddescriptions": TouristAttractionFinder descriptions = getAttractionFinder(threadSafeHotelData);
 				descriptions.parseHTML(queryParam[1]);
 				HotelDetails hotelDescription = threadSafeHotelData.findDescriptionsByHotelId(queryParam[1]);
 				if (hotelDescription != null) {
@@ -72,23 +95,68 @@ public class HotelSearch {
 				}
 				break;
 				
+			case "findnear": if (queryParam.length < 3) {
+					System.out.println("Usage: findnear <lat> <lng> [radiusInMiles]");
+					break;
+				}
+				try {
+					double lat = Double.parseDouble(queryParam[1]);
+					double lng = Double.parseDouble(queryParam[2]);
+					double radius = queryParam.length > 3 ? Double.parseDouble(queryParam[3]) : 5;
+					for (HotelSpatialIndex.Neighbor neighbor : getHotelIndex(threadSafeHotelData).withinRadius(lat, lng, radius)) {
+						System.out.println(neighbor.getHotel().getId() + ", " + neighbor.getHotel().getName()
+								+ " (" + neighbor.getFormattedDistance() + " miles)");
+					}
+				} catch (NumberFormatException e) {
+					System.out.println("Usage: findnear <lat> <lng> [radiusInMiles]");
+				}
+				break;
+				
 			default: System.out.println("Please enter the right query!");
 		}
 	}
 	
 	/**
-	 * Driver method to preload the maps and search for hotels, attractions and descriptions
+	 * Returns the attraction finder used by all queries, creating it on the first call
+	 * @param threadSafeHotelData object of ThreadsafeHotelData
+	 * @return attraction finder
+	 */
+	private TouristAttractionFinder getAttractionFinder(ThreadSafeHotelData threadSafeHotelData) {
+		if (finder == null) {
+			finder = new TouristAttractionFinder(threadSafeHotelData);
+		}
+		return finder;
+	}
+	
+	/**
+	 * Returns the spatial index over all hotels, building it on the first call
+	 * @param threadSafeHotelData object of ThreadsafeHotelData
+	 * @return spatial index
+	 */
+	private HotelSpatialIndex getHotelIndex(ThreadSafeHotelData threadSafeHotelData) {
+		if (hotelIndex == null) {
+			hotelIndex = HotelSpatialIndex.fromHotelData(threadSafeHotelData);
+		}
+		return hotelIndex;
+	}
+	
+	/**
+	 * Stops the attraction finder if it was created
+	 */
+	private void shutdown() {
+		if (finder != null) {
+			finder.shutdown();
+		}
+	}
+	
+	/**
+	 * Parses command line arguments in the -flag value format
 	 * @param args command line arguments
+	 * @return map of flag to value
 	 */
-	public static ThreadSafeHotelData loadHotelData (String[] args) {
+	public static Map<String, String> parseArgs(String[] args) {
 		HashMap<String, String> argsMap = new HashMap<String, String>();
-		
-		if (args.length < 4) {
-			System.out.println("Enter hotels json file path and reviews directory path");
-			System.exit(0);
-		}
-		
-		for (int i = 0; i < args.length; i += 2) {
+		for (int i = 0; i + 1 < args.length; i += 2) {
 			if (args[i].startsWith("-")) {
 				argsMap.put(args[i], args[i + 1]);
 			} else {
@@ -96,21 +164,82 @@ public class HotelSearch {
 				System.exit(0);
 			}
 		}
+		return argsMap;
+	}
+	
+	/**
+	 * Driver method to preload the maps and search for hotels, attractions and descriptions
+	 * @param args command line arguments
+	 */
+	public static ThreadSafeHotelData loadHotelData (String[] args) {
+		if (args.length < 4) {
+			System.out.println("Enter hotels json file path and reviews directory path");
+			System.exit(0);
+		}
 		
+		Map<String, String> argsMap = parseArgs(args);
 		ThreadSafeHotelData threadSafeHotelData = new ThreadSafeHotelData();
 		HotelDataBuilder hdBuilder = new HotelDataBuilder(threadSafeHotelData);
-		if (argsMap.get("-hotels") != null && argsMap.get("-hotels").endsWith(".json")) {
-			hdBuilder.loadHotelInfo(argsMap.get("-hotels"));
-		} else {
+		if (argsMap.get("-hotels") == null || !argsMap.get("-hotels").endsWith(".json")) {
 			System.out.println("Enter correct hotels json file path");
 			System.exit(0);
 		}
 		
+		long fingerprint = 0;
+		boolean snapshotLoaded = false;
+		Path snapshot = argsMap.get("-snapshot") != null ? Paths.get(argsMap.get("-snapshot")) : null;
+		Path manifestFile = argsMap.get("-manifest") != null ? Paths.get(argsMap.get("-manifest")) : null;
+		if (snapshot != null) {
+			try {
+				Path reviewsDir = argsMap.get("-reviews") != null ? Paths.get(argsMap.get("-reviews")) : null;
+				fingerprint = HotelDataSnapshot.fingerprint(Paths.get(argsMap.get("-hotels")), reviewsDir);
+				if (HotelDataSnapshot.isFresh(snapshot, fingerprint)) {
+					long start = System.nanoTime();
+					threadSafeHotelData.loadSnapshot(snapshot);
+					System.out.println("Loaded hotel data from snapshot in " + (System.nanoTime() - start) / 1000000 + " ms");
+					return threadSafeHotelData;
+				}
+				// a stale snapshot written after the manifest still holds the reviews of all unchanged files
+				if (manifestFile != null && Files.isRegularFile(snapshot) && Files.isRegularFile(manifestFile)
+				    && Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(manifestFile)) >= 0) {
+					threadSafeHotelData.loadSnapshot(snapshot);
+					snapshotLoaded = true;
+					System.out.println("Snapshot is stale, parsing only changed json files");
+				} else {
+					System.out.println("Snapshot is missing or stale, parsing json files");
+				}
+			} catch (IOException e) {
+				System.out.println("Could not load snapshot, parsing json files: " + e);
+				threadSafeHotelData = new ThreadSafeHotelData();
+				hdBuilder = new HotelDataBuilder(threadSafeHotelData);
+			}
+		}
+		
+		IngestionManifest manifest = null;
+		if (manifestFile != null) {
+			manifest = IngestionManifest.load(manifestFile);
+			hdBuilder.setManifest(manifest, snapshotLoaded);
+		}
+		
+		long start = System.nanoTime();
+		hdBuilder.loadHotelInfo(argsMap.get("-hotels"));
 		if (argsMap.get("-reviews") != null) {
 			hdBuilder.loadReviews(Paths.get(argsMap.get("-reviews")));
 		} else {
 			System.out.println("Enter correct reviews directory path");
 		}
+		System.out.println("Parsed hotel data from json files in " + (System.nanoTime() - start) / 1000000 + " ms");
+		
+		if (manifest != null) {
+			manifest.save(manifestFile);
+		}
+		if (snapshot != null) {
+			try {
+				threadSafeHotelData.writeSnapshot(snapshot, fingerprint);
+			} catch (IOException e) {
+				System.out.println("Could not write snapshot: " + e);
+			}
+		}
 		return threadSafeHotelData;
 	}
 	
@@ -125,6 +254,7 @@ public class HotelSearch {
 		while (scan.hasNext()) {
 			String query = scan.nextLine();
 			if(query.equalsIgnoreCase("exit")){
+				hotelSearch.shutdown();
 				System.exit(0);
 			}
 			hotelSearch.searchQuery(query, threadSafeHotelData);
@@ -0,0 +1,315 @@
+package hotelapp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable k-d tree over hotel coordinates, answering k-nearest and radius queries.
+ * Coordinates are stored as points on the unit sphere (x, y, z), so the straight line (chord) distance
+ * between two points grows with their great-circle distance and the distance to a splitting plane is a
+ * lower bound for it. Subtrees that can not contain closer hotels are skipped; reported distances are
+ * haversine distances in miles.
+ */
+public class HotelSpatialIndex {
+
+	private final Node root;
+	private final int size;
+
+	/**
+	 * Builds the index
+	 * @param hotels hotels to index
+	 */
+	public HotelSpatialIndex(Collection<HotelDetails> hotels) {
+		List<Node> nodes = new ArrayList<>(hotels.size());
+		for (HotelDetails hotel : hotels) {
+			nodes.add(new Node(hotel));
+		}
+		this.size = nodes.size();
+		this.root = build(nodes, 0, nodes.size(), 0);
+	}
+
+	/**
+	 * Builds the index over all hotels of the hotel data
+	 * @param hdata hotel data
+	 * @return spatial index
+	 */
+	public static HotelSpatialIndex fromHotelData(HotelData hdata) {
+		List<HotelDetails> hotels = new ArrayList<>();
+		for (String hotelId : hdata.getHotels()) {
+			hotels.add(hdata.findHotelById(hotelId));
+		}
+		return new HotelSpatialIndex(hotels);
+	}
+
+	/**
+	 * Returns the number of hotels in the index
+	 * @return number of hotels
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the k hotels closest to the given point
+	 * @param lat latitude in degrees
+	 * @param lng longitude in degrees
+	 * @param k maximum number of hotels to return
+	 * @return at most k hotels, closest first
+	 */
+	public List<Neighbor> nearest(double lat, double lng, int k) {
+		List<Neighbor> neighbors = new ArrayList<>();
+		if (k <= 0 || root == null) {
+			return neighbors;
+		}
+		double[] target = toPoint(lat, lng);
+		// max-heap on chord distance, the farthest of the best k on top
+		PriorityQueue<Candidate> best = new PriorityQueue<>(k, Comparator.comparingDouble((Candidate c) -> c.chord).reversed());
+		nearest(root, target, k, best);
+		for (Candidate candidate : best) {
+			neighbors.add(toNeighbor(candidate.node, lat, lng));
+		}
+		neighbors.sort(Comparator.comparingDouble(Neighbor::getDistance));
+		return neighbors;
+	}
+
+	/**
+	 * Finds all hotels within the radius of the given point
+	 * @param lat latitude in degrees
+	 * @param lng longitude in degrees
+	 * @param radiusInMiles radius in miles
+	 * @return hotels within the radius, closest first
+	 */
+	public List<Neighbor> withinRadius(double lat, double lng, double radiusInMiles) {
+		List<Neighbor> neighbors = new ArrayList<>();
+		if (root == null || radiusInMiles < 0) {
+			return neighbors;
+		}
+		double maxChord = toChord(radiusInMiles);
+		withinRadius(root, toPoint(lat, lng), maxChord, lat, lng, radiusInMiles, neighbors);
+		neighbors.sort(Comparator.comparingDouble(Neighbor::getDistance));
+		return neighbors;
+	}
+
+	/**
+	 * Finds all hotels within the radius of the given point by checking every hotel.
+	 * Gives the same result as withinRadius, used to compare the index against a linear scan.
+	 * @param hotels hotels to check
+	 * @param lat latitude in degrees
+	 * @param lng longitude in degrees
+	 * @param radiusInMiles radius in miles
+	 * @return hotels within the radius, closest first
+	 */
+	public static List<Neighbor> linearWithinRadius(Collection<HotelDetails> hotels, double lat, double lng, double radiusInMiles) {
+		List<Neighbor> neighbors = new ArrayList<>();
+		for (HotelDetails hotel : hotels) {
+			double distance = GeoUtils.distanceMiles(lat, lng, hotel.getLatitude(), hotel.getLongitude());
+			if (distance <= radiusInMiles) {
+				neighbors.add(new Neighbor(hotel, distance));
+			}
+		}
+		neighbors.sort(Comparator.comparingDouble(Neighbor::getDistance));
+		return neighbors;
+	}
+
+	/**
+	 * Finds the k hotels closest to the given point by checking every hotel.
+	 * Gives the same result as nearest, used to compare the index against a linear scan.
+	 * @param hotels hotels to check
+	 * @param lat latitude in degrees
+	 * @param lng longitude in degrees
+	 * @param k maximum number of hotels to return
+	 * @return at most k hotels, closest first
+	 */
+	public static List<Neighbor> linearNearest(Collection<HotelDetails> hotels, double lat, double lng, int k) {
+		List<Neighbor> neighbors = new ArrayList<>();
+		if (k <= 0) {
+			return neighbors;
+		}
+		// max-heap on distance, the farthest of the best k on top
+		PriorityQueue<Neighbor> best = new PriorityQueue<>(k, Comparator.comparingDouble(Neighbor::getDistance).reversed());
+		for (HotelDetails hotel : hotels) {
+			double distance = GeoUtils.distanceMiles(lat, lng, hotel.getLatitude(), hotel.getLongitude());
+			if (best.size() < k) {
+				best.add(new Neighbor(hotel, distance));
+			} else if (distance < best.peek().getDistance()) {
+				best.poll();
+				best.add(new Neighbor(hotel, distance));
+			}
+		}
+		neighbors.addAll(best);
+		neighbors.sort(Comparator.comparingDouble(Neighbor::getDistance));
+		return neighbors;
+	}
+
+	/**
+	 * Builds the subtree of nodes[from, to), splitting at the median of the axis of this depth
+	 * @return root of the subtree, null if the range is empty
+	 */
+	private static Node build(List<Node> nodes, int from, int to, int depth) {
+		if (from >= to) {
+			return null;
+		}
+		int axis = depth % 3;
+		nodes.subList(from, to).sort(Comparator.comparingDouble(n -> n.point[axis]));
+		int median = (from + to) >>> 1;
+		Node node = nodes.get(median);
+		node.axis = axis;
+		node.left = build(nodes, from, median, depth + 1);
+		node.right = build(nodes, median + 1, to, depth + 1);
+		return node;
+	}
+
+	/**
+	 * Adds the hotels of the subtree closer than the current k best to the heap,
+	 * visiting the far side of the splitting plane only if it can be closer
+	 */
+	private static void nearest(Node node, double[] target, int k, PriorityQueue<Candidate> best) {
+		if (node == null) {
+			return;
+		}
+		double chord = chord(node.point, target);
+		if (best.size() < k) {
+			best.add(new Candidate(node, chord));
+		} else if (chord < best.peek().chord) {
+			best.poll();
+			best.add(new Candidate(node, chord));
+		}
+
+		double diff = target[node.axis] - node.point[node.axis];
+		Node near = diff < 0 ? node.left : node.right;
+		Node far = diff < 0 ? node.right : node.left;
+		nearest(near, target, k, best);
+		if (best.size() < k || Math.abs(diff) < best.peek().chord) {
+			nearest(far, target, k, best);
+		}
+	}
+
+	/**
+	 * Adds the hotels of the subtree within the radius to the list,
+	 * visiting a side of the splitting plane only if it is closer than the radius
+	 */
+	private static void withinRadius(Node node, double[] target, double maxChord, double lat, double lng,
+	                                  double radiusInMiles, List<Neighbor> neighbors) {
+		if (node == null) {
+			return;
+		}
+		if (chord(node.point, target) <= maxChord) {
+			Neighbor neighbor = toNeighbor(node, lat, lng);
+			if (neighbor.getDistance() <= radiusInMiles) {
+				neighbors.add(neighbor);
+			}
+		}
+		double diff = target[node.axis] - node.point[node.axis];
+		if (diff - maxChord <= 0) {
+			withinRadius(node.left, target, maxChord, lat, lng, radiusInMiles, neighbors);
+		}
+		if (diff + maxChord >= 0) {
+			withinRadius(node.right, target, maxChord, lat, lng, radiusInMiles, neighbors);
+		}
+	}
+
+	/**
+	 * Returns the hotel of the node with its haversine distance from the queried point
+	 */
+	private static Neighbor toNeighbor(Node node, double lat, double lng) {
+		HotelDetails hotel = node.hotel;
+		return new Neighbor(hotel, GeoUtils.distanceMiles(lat, lng, hotel.getLatitude(), hotel.getLongitude()));
+	}
+
+	/**
+	 * Converts latitude and longitude to a point on the unit sphere
+	 */
+	private static double[] toPoint(double lat, double lng) {
+		double phi = Math.toRadians(lat);
+		double lambda = Math.toRadians(lng);
+		return new double[] { Math.cos(phi) * Math.cos(lambda), Math.cos(phi) * Math.sin(lambda), Math.sin(phi) };
+	}
+
+	/**
+	 * Converts a great-circle distance to the chord distance on the unit sphere, with a small margin for rounding
+	 */
+	private static double toChord(double miles) {
+		double angle = Math.min(Math.PI, miles / GeoUtils.EARTH_RADIUS_MILES);
+		return 2 * Math.sin(angle / 2) * (1 + 1e-9) + 1e-12;
+	}
+
+	/**
+	 * Returns the straight line distance between two points on the unit sphere
+	 */
+	private static double chord(double[] a, double[] b) {
+		double dx = a[0] - b[0];
+		double dy = a[1] - b[1];
+		double dz = a[2] - b[2];
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	/**
+	 * Hotel found by a query with its distance from the queried point.
+	 */
+	public static class Neighbor {
+		private final HotelDetails hotel;
+		private final double distance;
+
+		/**
+		 * Constructor of this class
+		 * @param hotel hotel found
+		 * @param distance distance in miles
+		 */
+		public Neighbor(HotelDetails hotel, double distance) {
+			this.hotel = hotel;
+			this.distance = distance;
+		}
+
+		/**
+		 * Returns the hotel
+		 * @return hotel details
+		 */
+		public HotelDetails getHotel() {
+			return hotel;
+		}
+
+		/**
+		 * Returns the distance from the queried point
+		 * @return distance in miles
+		 */
+		public double getDistance() {
+			return distance;
+		}
+
+		/**
+		 * Returns the distance rounded to two decimals, used by the templates
+		 * @return formatted distance in miles
+		 */
+		public String getFormattedDistance() {
+			return String.format("%.2f", distance);
+		}
+	}
+
+	/** Hotel with its point on the unit sphere and its subtrees */
+	private static class Node {
+		private final HotelDetails hotel;
+		private final double[] point;
+		private int axis;
+		private Node left;
+		private Node right;
+
+		private Node(HotelDetails hotel) {
+			this.hotel = hotel;
+			this.point = toPoint(hotel.getLatitude(), hotel.getLongitude());
+		}
+	}
+
+	/** Node found by a k-nearest query with its chord distance from the queried point */
+	private static class Candidate {
+		private final Node node;
+		private final double chord;
+
+		private Candidate(Node node, double chord) {
+			this.node = node;
+			this.chord = chord;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package hotelapp;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persisted manifest of ingested review files. For every file stores path, size, last modified time,
+ * content hash, review count and a hash of every review in the file, so re-runs of HotelDataBuilder only
+ * parse new or changed files and write only the changed reviews to DB.
+ * Stored as a json file using Gson.
+ */
+public class IngestionManifest {
+
+	/** Manifest entries by file path */
+	private Map<String, FileEntry> files;
+
+	/**
+	 * Constructor of this class. Creates an empty manifest.
+	 */
+	public IngestionManifest() {
+		files = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Loads the manifest from a json file. Returns an empty manifest if the file does not exist or can not be read.
+	 * @param manifestFile path to the manifest file
+	 * @return manifest
+	 */
+	public static IngestionManifest load(Path manifestFile) {
+		IngestionManifest manifest = new IngestionManifest();
+		if (Files.isRegularFile(manifestFile)) {
+			try (Reader reader = Files.newBufferedReader(manifestFile)) {
+				FileEntry[] entries = new Gson().fromJson(reader, FileEntry[].class);
+				if (entries != null) {
+					for (FileEntry entry : entries) {
+						manifest.files.put(entry.path, entry);
+					}
+				}
+			} catch (IOException | JsonSyntaxException e) {
+				System.out.println("Could not read ingestion manifest, ingesting all files: " + e);
+			}
+		}
+		return manifest;
+	}
+
+	/**
+	 * Saves the manifest to a json file. Writes to a temporary file first and moves it in place.
+	 * @param manifestFile path to the manifest file
+	 */
+	public void save(Path manifestFile) {
+		Path tmp = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(tmp)) {
+			Gson gson = new GsonBuilder().setPrettyPrinting().create();
+			gson.toJson(files.values().toArray(new FileEntry[0]), writer);
+		} catch (IOException e) {
+			System.out.println("Could not write ingestion manifest: " + e);
+			return;
+		}
+		try {
+			Files.move(tmp, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			System.out.println("Could not write ingestion manifest: " + e);
+		}
+	}
+
+	/**
+	 * Returns the entry for a file
+	 * @param file path of the review file
+	 * @return manifest entry, null if the file was not ingested before
+	 */
+	public FileEntry get(Path file) {
+		return files.get(file.toString());
+	}
+
+	/**
+	 * Adds or replaces the entry for a file
+	 * @param entry manifest entry
+	 */
+	public void put(FileEntry entry) {
+		files.put(entry.path, entry);
+	}
+
+	/**
+	 * Removes the entry for a file
+	 * @param path path of the review file
+	 * @return removed entry, null if there was none
+	 */
+	public FileEntry remove(String path) {
+		return files.remove(path);
+	}
+
+	/**
+	 * Returns paths of all files in the manifest
+	 * @return set of file paths
+	 */
+	public Set<String> getPaths() {
+		return files.keySet();
+	}
+
+	/**
+	 * Returns hex encoded SHA-256 hash of the content
+	 * @param content file content
+	 * @return content hash
+	 */
+	public static String hash(byte[] content) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest(content)) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Manifest entry of a single review file
+	 */
+	public static class FileEntry {
+		private String path;
+		private String hotelId;
+		private long size;
+		private long lastModified;
+		private String hash;
+		private int reviewCount;
+		/** hash of every review in the file by review id */
+		private Map<String, String> reviews;
+
+		/**
+		 * Constructor of this class
+		 * @param path path of the review file
+		 * @param hotelId id of the hotel reviewed in the file
+		 * @param size size of the file in bytes
+		 * @param lastModified last modified time of the file in milliseconds
+		 * @param hash hash of the file content
+		 * @param reviews hash of every review in the file by review id
+		 */
+		public FileEntry(String path, String hotelId, long size, long lastModified, String hash, Map<String, String> reviews) {
+			this.path = path;
+			this.hotelId = hotelId;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.reviews = new HashMap<>(reviews);
+			this.reviewCount = reviews.size();
+		}
+
+		/**
+		 * Checks if size and last modified time of the file are the same as when it was ingested
+		 * @param size current size of the file
+		 * @param lastModified current last modified time of the file
+		 * @return true if the file did not change
+		 */
+		public boolean matches(long size, long lastModified) {
+			return this.size == size && this.lastModified == lastModified;
+		}
+
+		/** Returns path of the file */
+		public String getPath() {
+			return path;
+		}
+
+		/** Returns id of the hotel reviewed in the file */
+		public String getHotelId() {
+			return hotelId;
+		}
+
+		/** Returns hash of the file content */
+		public String getHash() {
+			return hash;
+		}
+
+		/** Returns number of reviews in the file */
+		public int getReviewCount() {
+			return reviewCount;
+		}
+
+		/** Returns hash of every review in the file by review id */
+		public Map<String, String> getReviews() {
+			return reviews;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package hotelapp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Java Flight Recorder events of the application, so a single recording shows where the time of a request goes:
+ * the request itself, its DB statements, its template merge and its outbound calls, and the parsing of the input
+ * files. The events are enabled by default and cost next to nothing when no recording is running, e.g. start one with
+ * java -XX:StartFlightRecording=duration=60s,filename=hotels.jfr ... and open it in JDK Mission Control.
+ * All events are in the "Hotel App" category.
+ */
+public class JfrEvents {
+
+	/** Salt of the user hashes, so the same user has the same hash within one run only */
+	private static final byte[] USER_SALT = new byte[16];
+
+	static {
+		new SecureRandom().nextBytes(USER_SALT);
+	}
+
+	private JfrEvents() {
+	}
+
+	/**
+	 * Servlet request, from the time the filter receives it until the response is complete
+	 */
+	@Name("hotelapp.Request")
+	@Label("Request")
+	@Category({ "Hotel App", "HTTP" })
+	@Description("Request served by a servlet")
+	@StackTrace(false)
+	public static class RequestEvent extends Event {
+		@Label("Route")
+		@Description("Servlet path of the request")
+		public String route;
+
+		@Label("Method")
+		public String method;
+
+		@Label("User")
+		@Description("Salted hash of the logged in user, empty when not logged in")
+		public String user;
+
+		@Label("Status")
+		public int status;
+	}
+
+	/**
+	 * Execution of a DB statement; for queries the rows are the rows read from the result set
+	 */
+	@Name("hotelapp.DatabaseStatement")
+	@Label("Database Statement")
+	@Category({ "Hotel App", "Database" })
+	@Description("Statement executed by a DB handler")
+	public static class DatabaseEvent extends Event {
+		@Label("Statement")
+		@Description("SQL constant of the statement, e.g. ReviewDatabaseHandler.REVIEWS_BY_HOTELID_SQL")
+		public String statement;
+
+		@Label("Rows")
+		@Description("Rows read for queries, rows changed for updates")
+		public long rows;
+
+		@Label("Failed")
+		public boolean failed;
+	}
+
+	/**
+	 * Merge of a Velocity template into the response
+	 */
+	@Name("hotelapp.TemplateMerge")
+	@Label("Template Merge")
+	@Category({ "Hotel App", "Templates" })
+	@Description("Velocity template merged with its context")
+	@StackTrace(false)
+	public static class TemplateEvent extends Event {
+		@Label("Template")
+		public String template;
+	}
+
+	/**
+	 * Call to an upstream service, including the time waiting on its bulkhead
+	 */
+	@Name("hotelapp.OutboundCall")
+	@Label("Outbound Call")
+	@Category({ "Hotel App", "Outbound" })
+	@Description("Call to the Places API or expedia")
+	public static class OutboundEvent extends Event {
+		@Label("Upstream")
+		public String upstream;
+
+		@Label("Outcome")
+		@Description("ok, failed, timeout, rejected, short_circuited or interrupted")
+		public String outcome;
+	}
+
+	/**
+	 * Parse of an input file by HotelDataBuilder
+	 */
+	@Name("hotelapp.FileParse")
+	@Label("File Parse")
+	@Category({ "Hotel App", "Ingestion" })
+	@Description("Hotels or reviews file read, parsed and merged")
+	@StackTrace(false)
+	public static class ParseEvent extends Event {
+		@Label("File")
+		public String file;
+
+		@Label("Kind")
+		@Description("hotels or reviews")
+		public String kind;
+
+		@Label("Records")
+		@Description("Hotels or reviews in the file")
+		public long records;
+
+		@Label("Result")
+		@Description("parsed, skipped or failed")
+		public String result;
+	}
+
+	/**
+	 * Returns a salted hash of the user, so events of the same user can be grouped without recording who it is
+	 * @param username name of the user, may be null
+	 * @return first 12 hex digits of the salted SHA-256 of the name, empty if the name is null
+	 */
+	public static String anonymize(String username) {
+		if (username == null) {
+			return "";
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(USER_SALT);
+			byte[] hash = digest.digest(username.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 6; i++) {
+				hex.append(String.format("%02x", hash[i]));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return "";
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package hotelapp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations, recorded in microseconds into log-linear buckets like HdrHistogram:
+ * values below SUB_BUCKETS have their own bucket, larger values share a bucket with the values of the same
+ * power of two and the same top bits, so every value is known within about 3%. Durations up to about
+ * 19 hours are recorded, longer ones are counted in the last bucket.
+ */
+public class LatencyHistogram {
+
+	/** Buckets per power of two, and number of exact buckets for the smallest values */
+	private static final int SUB_BUCKETS = 32;
+	private static final int SUB_BUCKET_BITS = 5;
+
+	/** Largest power of two of the recorded values, in microseconds */
+	private static final int MAX_EXPONENT = 36;
+
+	private static final int BUCKETS = 2 * SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sumMicros = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/**
+	 * Records a duration
+	 * @param nanos duration in nanoseconds
+	 */
+	public void recordNanos(long nanos) {
+		recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+	}
+
+	/**
+	 * Records a duration
+	 * @param micros duration in microseconds
+	 */
+	public void recordMicros(long micros) {
+		long value = Math.max(0, micros);
+		counts.incrementAndGet(index(value));
+		count.incrementAndGet();
+		sumMicros.addAndGet(value);
+		maxMicros.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Returns the number of recorded durations
+	 * @return count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the sum of the recorded durations
+	 * @return sum in microseconds
+	 */
+	public long getSumMicros() {
+		return sumMicros.get();
+	}
+
+	/**
+	 * Returns the longest recorded duration
+	 * @return maximum in microseconds
+	 */
+	public long getMaxMicros() {
+		return maxMicros.get();
+	}
+
+	/**
+	 * Returns the duration below which the given percentage of the durations fall
+	 * @param percentile percentile between 0 and 100
+	 * @return upper bound of the bucket of the percentile in microseconds, 0 if nothing was recorded
+	 */
+	public long getPercentileMicros(double percentile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), maxMicros.get());
+			}
+		}
+		return maxMicros.get();
+	}
+
+	/**
+	 * Returns the number of durations up to the bound, counting the buckets whose values are all within it
+	 * @param micros bound in microseconds
+	 * @return cumulative count
+	 */
+	public long getCountAtOrBelow(long micros) {
+		long seen = 0;
+		for (int i = 0; i < BUCKETS && upperBound(i) <= micros; i++) {
+			seen += counts.get(i);
+		}
+		return seen;
+	}
+
+	/**
+	 * Returns the bucket of a value
+	 * @param value value in microseconds
+	 * @return index of the bucket
+	 */
+	private static int index(long value) {
+		if (value < 2 * SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent >= MAX_EXPONENT) {
+			return BUCKETS - 1;
+		}
+		int shift = exponent - SUB_BUCKET_BITS;
+		int sub = (int) (value >>> shift);
+		return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (sub - SUB_BUCKETS);
+	}
+
+	/**
+	 * Returns the largest value of a bucket
+	 * @param index index of the bucket
+	 * @return largest value in microseconds
+	 */
+	private static long upperBound(int index) {
+		if (index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+		long sub = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+}
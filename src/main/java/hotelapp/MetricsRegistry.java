@@ -0,0 +1,189 @@
+package hotelapp;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of the metrics of the application: counters, gauges and latency histograms, each identified by
+ * a name and a set of labels. Servlets, DB handlers, caches and the data builder publish to the single registry,
+ * which is written in the Prometheus text format by the /metrics endpoint.
+ * Counters and histograms are created on first use; counts kept by other classes (for example SingleFlight)
+ * are registered as functions read at export time.
+ */
+public class MetricsRegistry {
+
+	/** Bounds of the exported histogram buckets in seconds */
+	private static final double[] BUCKET_BOUNDS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+	/** Makes sure only one registry is created. */
+	private static MetricsRegistry singleton = new MetricsRegistry();
+
+	private final Map<String, Family> families;
+
+	/**
+	 * Creates the registry. Private constructor forces all other classes to use singleton.
+	 */
+	private MetricsRegistry() {
+		families = new ConcurrentSkipListMap<>();
+	}
+
+	/**
+	 * Gets the single instance of the registry.
+	 * @return instance of the registry
+	 */
+	public static MetricsRegistry getInstance() {
+		return singleton;
+	}
+
+	/**
+	 * Returns the counter with the name and labels, creating it on first use
+	 * @param name name of the counter, ending with _total
+	 * @param help description of the counter
+	 * @param labels label names and values, alternating
+	 * @return counter
+	 */
+	public LongAdder counter(String name, String help, String... labels) {
+		return (LongAdder) family(name, help, "counter").metrics.computeIfAbsent(labels(labels), key -> new LongAdder());
+	}
+
+	/**
+	 * Registers a counter whose value is kept by another class, replacing a previous registration
+	 * @param name name of the counter, ending with _total
+	 * @param help description of the counter
+	 * @param value reads the current value
+	 * @param labels label names and values, alternating
+	 */
+	public void counter(String name, String help, DoubleSupplier value, String... labels) {
+		family(name, help, "counter").metrics.put(labels(labels), value);
+	}
+
+	/**
+	 * Registers a gauge, replacing a previous registration
+	 * @param name name of the gauge
+	 * @param help description of the gauge
+	 * @param value reads the current value
+	 * @param labels label names and values, alternating
+	 */
+	public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+		family(name, help, "gauge").metrics.put(labels(labels), value);
+	}
+
+	/**
+	 * Returns the histogram with the name and labels, creating it on first use
+	 * @param name name of the histogram, ending with _seconds
+	 * @param help description of the histogram
+	 * @param labels label names and values, alternating
+	 * @return histogram
+	 */
+	public LatencyHistogram histogram(String name, String help, String... labels) {
+		return (LatencyHistogram) family(name, help, "histogram").metrics.computeIfAbsent(labels(labels),
+				key -> new LatencyHistogram());
+	}
+
+	/**
+	 * Writes all metrics in the Prometheus text format, version 0.0.4
+	 * @param writer writer of the response
+	 * @throws IOException if the response can not be written
+	 */
+	public void writePrometheus(Writer writer) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (Family family : families.values()) {
+			sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+			sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+			for (Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+				String labels = metric.getKey();
+				Object value = metric.getValue();
+				if (value instanceof LatencyHistogram) {
+					writeHistogram(sb, family.name, labels, (LatencyHistogram) value);
+				} else {
+					double number = value instanceof LongAdder ? ((LongAdder) value).sum() : ((DoubleSupplier) value).getAsDouble();
+					sb.append(family.name).append(braces(labels)).append(' ').append(format(number)).append('\n');
+				}
+			}
+		}
+		writer.write(sb.toString());
+	}
+
+	/**
+	 * Appends the buckets, sum and count of a histogram
+	 */
+	private static void writeHistogram(StringBuilder sb, String name, String labels, LatencyHistogram histogram) {
+		String prefix = labels.isEmpty() ? "" : labels + ",";
+		for (double bound : BUCKET_BOUNDS) {
+			long count = histogram.getCountAtOrBelow((long) (bound * 1000000));
+			sb.append(name).append("_bucket{").append(prefix).append("le=\"").append(format(bound)).append("\"} ")
+					.append(count).append('\n');
+		}
+		long count = histogram.getCount();
+		sb.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(count).append('\n');
+		sb.append(name).append("_sum").append(braces(labels)).append(' ')
+				.append(format(histogram.getSumMicros() / 1e6)).append('\n');
+		sb.append(name).append("_count").append(braces(labels)).append(' ').append(count).append('\n');
+	}
+
+	/**
+	 * Returns the family of the name, creating it on first use
+	 * @throws IllegalArgumentException if the name is already used by a metric of another type
+	 */
+	private Family family(String name, String help, String type) {
+		Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+		if (!family.type.equals(type)) {
+			throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type);
+		}
+		return family;
+	}
+
+	/**
+	 * Formats label names and values as name="value" pairs separated by commas
+	 * @param labels label names and values, alternating
+	 * @return formatted labels, empty if there are none
+	 */
+	private static String labels(String... labels) {
+		if (labels.length % 2 != 0) {
+			throw new IllegalArgumentException("Labels must be name and value pairs");
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < labels.length; i += 2) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			String value = labels[i + 1] == null ? "" : labels[i + 1];
+			sb.append(labels[i]).append("=\"")
+					.append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+					.append('"');
+		}
+		return sb.toString();
+	}
+
+	private static String braces(String labels) {
+		return labels.isEmpty() ? "" : "{" + labels + "}";
+	}
+
+	private static String format(double value) {
+		if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	/**
+	 * Metrics of one name and type, by their formatted labels
+	 */
+	private static class Family {
+		private final String name;
+		private final String help;
+		private final String type;
+		private final Map<String, Object> metrics;
+
+		private Family(String name, String help, String type) {
+			this.name = name;
+			this.help = help;
+			this.type = type;
+			this.metrics = new ConcurrentSkipListMap<>();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package hotelapp;
+
+/**
+ * Attraction near a hotel with its distance from the hotel, shown on the attractions page.
+ */
+public class NearbyAttraction {
+
+	private final TouristAttraction attraction;
+	private final double distance;
+
+	/**
+	 * Constructor of this class
+	 * @param attraction attraction from the AttractionStore
+	 * @param distance distance from the hotel in miles, NaN if unknown
+	 */
+	public NearbyAttraction(TouristAttraction attraction, double distance) {
+		this.attraction = attraction;
+		this.distance = distance;
+	}
+
+	/**
+	 * Returns the attraction
+	 * @return tourist attraction
+	 */
+	public TouristAttraction getAttraction() {
+		return attraction;
+	}
+
+	/**
+	 * Returns the attraction name
+	 * @return name of the attraction
+	 */
+	public String getName() {
+		return attraction.getName();
+	}
+
+	/**
+	 * Returns the attraction address
+	 * @return address of the attraction
+	 */
+	public String getAddress() {
+		return attraction.getAddress();
+	}
+
+	/**
+	 * Returns the attraction rating
+	 * @return rating of the attraction
+	 */
+	public double getRating() {
+		return attraction.getRating();
+	}
+
+	/**
+	 * Returns the distance from the hotel
+	 * @return distance in miles, NaN if unknown
+	 */
+	public double getDistance() {
+		return distance;
+	}
+
+	/**
+	 * Returns the distance rounded to two decimals, used by the templates
+	 * @return formatted distance in miles, empty if unknown
+	 */
+	public String getFormattedDistance() {
+		return Double.isNaN(distance) ? "" : String.format("%.2f", distance);
+	}
+}
@@ -0,0 +1,143 @@
+package hotelapp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP client used for all outbound requests (Google Places API and expedia pages).
+ * Wraps a single java.net.http.HttpClient, which keeps connections alive and reuses them per host,
+ * reuses TLS sessions and parses headers and chunked bodies. Adds connect and read timeouts and
+ * transparent gzip decoding of response bodies.
+ */
+public class PooledHttpClient {
+
+	/** Maximum time to establish a connection */
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+	
+	/** Maximum time to wait for a response once the request is sent */
+	private static final Duration READ_TIMEOUT = Duration.ofSeconds(10);
+	
+	/** Makes sure only one client (and connection pool) is created. */
+	private static PooledHttpClient singleton = new PooledHttpClient();
+	
+	private final HttpClient client;
+	private final Duration readTimeout;
+	
+	/**
+	 * Creates the client. Private constructor forces all other classes to use singleton.
+	 */
+	private PooledHttpClient() {
+		this(CONNECT_TIMEOUT, READ_TIMEOUT);
+	}
+	
+	/**
+	 * Creates a client with its own connection pool and timeouts, used by tests.
+	 * @param connectTimeout maximum time to establish a connection
+	 * @param readTimeout maximum time to wait for a response once the request is sent
+	 */
+	PooledHttpClient(Duration connectTimeout, Duration readTimeout) {
+		this.readTimeout = readTimeout;
+		client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(connectTimeout)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build();
+	}
+	
+	/**
+	 * Gets the single instance of the client.
+	 * @return instance of the client
+	 */
+	public static PooledHttpClient getInstance() {
+		return singleton;
+	}
+	
+	/**
+	 * Sends a GET request and returns the response body as a string.
+	 * @param url url to fetch
+	 * @return response body
+	 * @throws IOException if the request fails, times out or the status is not 2xx
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public String get(String url) throws IOException, InterruptedException {
+		HttpResponse<InputStream> response = client.send(newRequest(url), HttpResponse.BodyHandlers.ofInputStream());
+		try (InputStream body = decode(response)) {
+			String content = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+			if (response.statusCode() / 100 != 2) {
+				throw new IOException("Unexpected status " + response.statusCode() + " for " + url);
+			}
+			return content;
+		}
+	}
+	
+	/**
+	 * Sends a GET request and reads the response body while it arrives, without holding the whole body in memory.
+	 * If the reader returns before the end of the body, the rest of the body is not downloaded and the connection
+	 * is closed instead of being reused.
+	 * @param url url to fetch
+	 * @param reader reads the decoded body
+	 * @param <T> type of the result of the reader
+	 * @return result of the reader
+	 * @throws IOException if the request fails, times out, the status is not 2xx or the reader fails
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public <T> T get(String url, BodyReader<T> reader) throws IOException, InterruptedException {
+		HttpResponse<InputStream> response = client.send(newRequest(url), HttpResponse.BodyHandlers.ofInputStream());
+		try (InputStream body = decode(response)) {
+			if (response.statusCode() / 100 != 2) {
+				throw new IOException("Unexpected status " + response.statusCode() + " for " + url);
+			}
+			return reader.read(new InputStreamReader(body, StandardCharsets.UTF_8));
+		}
+	}
+	
+	/**
+	 * Creates a GET request with read timeout that accepts gzip encoded responses
+	 * @param url url to fetch
+	 * @return request
+	 */
+	private HttpRequest newRequest(String url) {
+		return HttpRequest.newBuilder(URI.create(url))
+				.timeout(readTimeout)
+				.header("Accept-Encoding", "gzip")
+				.GET()
+				.build();
+	}
+	
+	/**
+	 * Returns the response body, decoding it if it is gzip encoded
+	 * @param response http response
+	 * @return decoded body
+	 * @throws IOException if the gzip header is invalid
+	 */
+	private InputStream decode(HttpResponse<InputStream> response) throws IOException {
+		String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+		if (encoding.equalsIgnoreCase("gzip")) {
+			return new GZIPInputStream(response.body());
+		}
+		return response.body();
+	}
+	
+	/**
+	 * Reads a response body.
+	 * @param <T> type of the result
+	 */
+	public interface BodyReader<T> {
+		/**
+		 * Reads the body
+		 * @param body decoded response body
+		 * @return result
+		 * @throws IOException if the body can not be read
+		 */
+		T read(Reader body) throws IOException;
+	}
+}
@@ -0,0 +1,115 @@
+package hotelapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Orders in which the top reviews of a hotel can be retrieved.
+ * Per hotel reviews are kept sorted newest first, so NEWEST and RECOMMENDED are read by walking
+ * the sorted reviews and stopping after k matches. Other orders keep a bounded heap of the best k reviews.
+ */
+public enum ReviewOrder {
+
+	/** Most recent reviews first */
+	NEWEST(new HotelReviewsComparator(), false, true),
+	/** Highest rated reviews first, most recent first for the same rating */
+	HIGHEST_RATED(Comparator.comparingInt(HotelReview::getRating).reversed().thenComparing(new HotelReviewsComparator()), false, false),
+	/** Most recent reviews that recommend the hotel */
+	RECOMMENDED(new HotelReviewsComparator(), true, true);
+
+	private final Comparator<HotelReview> comparator;
+	private final boolean recommendedOnly;
+	private final boolean newestFirst;
+
+	/**
+	 * Constructor of this enum
+	 * @param comparator order of the reviews, best review first
+	 * @param recommendedOnly whether only reviews recommending the hotel are returned
+	 * @param newestFirst whether the order is the same as the order of reviews sorted newest first
+	 */
+	ReviewOrder(Comparator<HotelReview> comparator, boolean recommendedOnly, boolean newestFirst) {
+		this.comparator = comparator;
+		this.recommendedOnly = recommendedOnly;
+		this.newestFirst = newestFirst;
+	}
+
+	/**
+	 * Returns the order by name (newest, rating or recommended), NEWEST if the name is unknown
+	 * @param name name of the order
+	 * @return review order
+	 */
+	public static ReviewOrder fromString(String name) {
+		if (name != null) {
+			switch (name.toLowerCase()) {
+				case "rating":
+				case "highest_rated":
+					return HIGHEST_RATED;
+				case "recommended":
+					return RECOMMENDED;
+			}
+		}
+		return NEWEST;
+	}
+
+	/**
+	 * Returns the comparator of this order, best review first
+	 * @return comparator
+	 */
+	public Comparator<HotelReview> getComparator() {
+		return comparator;
+	}
+
+	/**
+	 * Returns the top k reviews in this order.
+	 * @param newestFirstReviews reviews of a hotel sorted most recent first
+	 * @param k maximum number of reviews to return
+	 * @return list of at most k reviews, best review first
+	 */
+	public List<HotelReview> topK(Iterable<HotelReview> newestFirstReviews, int k) {
+		List<HotelReview> top = new ArrayList<>(Math.min(k, 64));
+		if (k <= 0) {
+			return top;
+		}
+		if (newestFirst) {
+			// reviews are already in this order, stop once k reviews are found
+			Iterator<HotelReview> it = newestFirstReviews.iterator();
+			while (it.hasNext() && top.size() < k) {
+				HotelReview review = it.next();
+				if (matches(review)) {
+					top.add(review);
+				}
+			}
+			return top;
+		}
+
+		// min-heap of the best k reviews, the worst of them on top
+		PriorityQueue<HotelReview> heap = new PriorityQueue<>(k, comparator.reversed());
+		for (HotelReview review : newestFirstReviews) {
+			if (!matches(review)) {
+				continue;
+			}
+			if (heap.size() < k) {
+				heap.add(review);
+			} else if (comparator.compare(review, heap.peek()) < 0) {
+				heap.poll();
+				heap.add(review);
+			}
+		}
+		top.addAll(heap);
+		Collections.sort(top, comparator);
+		return top;
+	}
+
+	/**
+	 * Checks if the review is returned for this order
+	 * @param review hotel review
+	 * @return true if the review can be returned
+	 */
+	private boolean matches(HotelReview review) {
+		return !recommendedOnly || review.isRecommended();
+	}
+}
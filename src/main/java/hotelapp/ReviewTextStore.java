@@ -0,0 +1,213 @@
+package hotelapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only, memory-mapped storage for review titles and review texts.
+ * Text is encoded as UTF-8 and written into fixed size mapped segments of a file,
+ * so only the offset and length of each text has to be kept on heap.
+ * Text is decoded again only when it is read (for example when a review is rendered).
+ * Identical texts are stored once: appending a text that is already in the store returns its offset,
+ * so reloading or re-ingesting review files does not grow the file. The offsets of the stored texts are kept in an
+ * open addressing table of primitive longs, about 32 bytes per unique text, instead of boxed map entries.
+ * The file is truncated when it is opened,
+ * so it never outlives the process that wrote it.
+ */
+public class ReviewTextStore {
+
+	/** Size of a single mapped segment of the file. A text never spans two segments. */
+	private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	/** Shared store used by HotelData instances created without an explicit store. */
+	private static ReviewTextStore singleton;
+
+	private final FileChannel channel;
+	private final List<MappedByteBuffer> segments;
+	private volatile MappedByteBuffer[] readSegments;
+	private long position;
+	/** Initial number of slots of the offsets table, a power of two */
+	private static final int INITIAL_SLOTS = 1024;
+
+	/** Hash and length of the stored texts (see key), by slot */
+	private long[] keys = new long[INITIAL_SLOTS];
+	/** Offset + 1 of the last text appended with the key of the slot, 0 if the slot is empty */
+	private long[] offsets = new long[INITIAL_SLOTS];
+	/** Number of used slots */
+	private int used;
+
+	/**
+	 * Constructor of this class. Opens (or creates) the file used to store the text.
+	 * @param file path of the append-only text file
+	 * @throws IOException if the file can not be opened
+	 */
+	public ReviewTextStore(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		segments = new ArrayList<>();
+		readSegments = new MappedByteBuffer[0];
+		position = 0;
+	}
+
+	/**
+	 * Returns the shared store, backed by a temporary file that is deleted on exit.
+	 * @return shared review text store or null if the temporary file can not be created
+	 */
+	public static synchronized ReviewTextStore getInstance() {
+		if (singleton == null) {
+			try {
+				File file = File.createTempFile("review-text", ".dat");
+				file.deleteOnExit();
+				singleton = new ReviewTextStore(file.toPath());
+			} catch (IOException e) {
+				System.err.println("Unable to create review text store, keeping review text on heap: " + e);
+			}
+		}
+		return singleton;
+	}
+
+	/**
+	 * Appends text to the store, unless the same text is already stored.
+	 * @param text text to append
+	 * @return offset of the encoded text in the store
+	 * @throws IOException if a new segment can not be mapped
+	 */
+	public synchronized long append(byte[] text) throws IOException {
+		if (text.length > SEGMENT_SIZE) {
+			throw new IllegalArgumentException("Text is too long to store: " + text.length + " bytes");
+		}
+		long key = ((long) Arrays.hashCode(text) << 32) | text.length;
+		int slot = slot(key);
+		if (offsets[slot] != 0 && matches(offsets[slot] - 1, text)) {
+			return offsets[slot] - 1;
+		}
+		int segmentIndex = (int) (position / SEGMENT_SIZE);
+		int segmentOffset = (int) (position % SEGMENT_SIZE);
+		if (segmentOffset + text.length > SEGMENT_SIZE) {
+			// start the text at the beginning of the next segment
+			segmentIndex++;
+			segmentOffset = 0;
+			position = (long) segmentIndex * SEGMENT_SIZE;
+		}
+
+		ByteBuffer segment = segment(segmentIndex).duplicate();
+		segment.position(segmentOffset);
+		segment.put(text);
+
+		long offset = position;
+		position += text.length;
+		if (offsets[slot] == 0) {
+			used++;
+		}
+		keys[slot] = key;
+		offsets[slot] = offset + 1;
+		if (used * 2 > keys.length) {
+			grow();
+		}
+		return offset;
+	}
+	
+	/**
+	 * Returns the slot of the key in the offsets table: the slot holding the key, or the empty slot to put it in
+	 * @param key hash and length of a text
+	 * @return index of the slot
+	 */
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		while (offsets[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	/**
+	 * Doubles the size of the offsets table, keeping it at most half full
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		long[] oldOffsets = offsets;
+		keys = new long[oldKeys.length * 2];
+		offsets = new long[oldOffsets.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldOffsets[i] != 0) {
+				int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				offsets[slot] = oldOffsets[i];
+			}
+		}
+	}
+	
+	/**
+	 * Checks whether the text is stored at the given offset.
+	 * @param offset offset returned by append
+	 * @param text encoded text
+	 * @return true if the stored bytes are the same
+	 */
+	private boolean matches(long offset, byte[] text) {
+		ByteBuffer segment = segments.get((int) (offset / SEGMENT_SIZE)).duplicate();
+		segment.position((int) (offset % SEGMENT_SIZE));
+		for (byte b : text) {
+			if (segment.get() != b) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Encodes the text as UTF-8 and appends it to the store.
+	 * @param text text to append
+	 * @return offset of the encoded text in the store
+	 * @throws IOException if a new segment can not be mapped
+	 */
+	public long append(String text) throws IOException {
+		return append(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Reads and decodes text stored at the given offset.
+	 * @param offset offset returned by append
+	 * @param length number of encoded bytes
+	 * @return decoded text
+	 */
+	public String read(long offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer segment = readSegments[(int) (offset / SEGMENT_SIZE)].duplicate();
+		segment.position((int) (offset % SEGMENT_SIZE));
+		segment.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns number of bytes appended to the store so far.
+	 * @return size of the store in bytes
+	 */
+	public synchronized long size() {
+		return position;
+	}
+
+	/**
+	 * Maps the segment with given index, mapping all the missing segments before it.
+	 * @param index index of the segment
+	 * @return mapped segment
+	 * @throws IOException if the segment can not be mapped
+	 */
+	private MappedByteBuffer segment(int index) throws IOException {
+		while (segments.size() <= index) {
+			long start = (long) segments.size() * SEGMENT_SIZE;
+			segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE));
+			readSegments = segments.toArray(new MappedByteBuffer[0]);
+		}
+		return segments.get(index);
+	}
+}
@@ -0,0 +1,196 @@
+package hotelapp;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Watches the reviews directory (and all its subdirectories) for created and modified review files
+ * and feeds them through the HotelDataBuilder worker, so they are merged into the running
+ * ThreadSafeHotelData and DB without a restart.
+ * Events are debounced: files are collected until no new event arrived for DEBOUNCE_MS,
+ * then parsed together as one batch.
+ */
+public class ReviewsDirectoryWatcher {
+
+	/** Quiet period after the last event before a batch is parsed */
+	private static final long DEBOUNCE_MS = 500;
+
+	/** Batch is parsed right away once it has this many files */
+	private static final int MAX_BATCH_SIZE = 100;
+
+	private final Path dir;
+	private final HotelDataBuilder builder;
+	private final Path manifestFile;
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> watchedDirs;
+	private final Set<Path> pendingFiles;
+	private final ScheduledExecutorService scheduler;
+	private ScheduledFuture<?> scheduledFlush;
+	private Thread watchThread;
+
+	/**
+	 * Constructor of this class
+	 * @param dir path to the reviews directory
+	 * @param builder builder used to parse the review files
+	 * @param manifestFile path of the ingestion manifest to save after every batch, may be null
+	 * @throws IOException if the watch service can not be created
+	 */
+	public ReviewsDirectoryWatcher(Path dir, HotelDataBuilder builder, Path manifestFile) throws IOException {
+		this.dir = dir;
+		this.builder = builder;
+		this.manifestFile = manifestFile;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.watchedDirs = new HashMap<>();
+		this.pendingFiles = new LinkedHashSet<>();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "reviews-reload");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Registers the reviews directory and starts watching it on a background thread.
+	 * @throws IOException if the directories can not be registered
+	 */
+	public void start() throws IOException {
+		registerAll(dir);
+		watchThread = new Thread(this::watch, "reviews-watcher");
+		watchThread.setDaemon(true);
+		watchThread.start();
+		System.out.println("Watching " + dir + " for new reviews");
+	}
+
+	/**
+	 * Stops watching the reviews directory. Pending files that were not parsed yet are dropped.
+	 */
+	public void stop() {
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			System.out.println("Could not close the watch service: " + e);
+		}
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Waits for file events and adds the created or modified review files to the pending batch.
+	 */
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				Path watchedDir = watchedDirs.get(key);
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						// events were lost, check every file again
+						addPending(listFiles(dir));
+						continue;
+					}
+					Path path = watchedDir.resolve((Path) event.context());
+					if (Files.isDirectory(path)) {
+						if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+							registerAll(path);
+							addPending(listFiles(path));
+						}
+					} else {
+						addPending(List.of(path));
+					}
+				}
+				if (!key.reset()) {
+					watchedDirs.remove(key);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// watcher was stopped
+		} catch (IOException e) {
+			System.out.println("Stopped watching " + dir + ": " + e);
+		}
+	}
+
+	/**
+	 * Adds review files to the pending batch and schedules parsing of the batch.
+	 * @param files created or modified files
+	 */
+	private synchronized void addPending(List<Path> files) {
+		for (Path file : files) {
+			if (file.toString().endsWith(".json")) {
+				pendingFiles.add(file);
+			}
+		}
+		if (pendingFiles.isEmpty()) {
+			return;
+		}
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+		}
+		long delay = pendingFiles.size() >= MAX_BATCH_SIZE ? 0 : DEBOUNCE_MS;
+		scheduledFlush = scheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Parses all pending review files as one batch and saves the ingestion manifest.
+	 */
+	private void flush() {
+		List<Path> batch;
+		synchronized (this) {
+			batch = new ArrayList<>(pendingFiles);
+			pendingFiles.clear();
+			scheduledFlush = null;
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		System.out.println("Reloading " + batch.size() + " review files");
+		builder.reloadReviews(batch);
+		if (manifestFile != null && builder.getManifest() != null) {
+			builder.getManifest().save(manifestFile);
+		}
+	}
+
+	/**
+	 * Registers a directory and all its subdirectories with the watch service.
+	 * @param start directory to register
+	 * @throws IOException if a directory can not be registered
+	 */
+	private void registerAll(Path start) throws IOException {
+		try (Stream<Path> paths = Files.walk(start)) {
+			for (Path path : paths.filter(Files::isDirectory).collect(Collectors.toList())) {
+				WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+				watchedDirs.put(key, path);
+			}
+		}
+	}
+
+	/**
+	 * Lists all regular files in a directory and its subdirectories.
+	 * @param start directory to list
+	 * @return list of files
+	 * @throws IOException if the directory can not be listed
+	 */
+	private List<Path> listFiles(Path start) throws IOException {
+		try (Stream<Path> paths = Files.walk(start)) {
+			return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package hotelapp;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one call.
+ * The first caller of a key runs the call, callers arriving while it is in flight wait for it
+ * and get the same result. Counts how many calls were issued and how many were coalesced.
+ * @param <K> type of the key
+ * @param <V> type of the result
+ */
+public class SingleFlight<K, V> {
+
+	private final Map<K, CompletableFuture<V>> inFlight;
+	private final AtomicLong issued;
+	private final AtomicLong coalesced;
+
+	/**
+	 * Constructor of this class
+	 */
+	public SingleFlight() {
+		inFlight = new ConcurrentHashMap<>();
+		issued = new AtomicLong();
+		coalesced = new AtomicLong();
+	}
+
+	/**
+	 * Runs the call for the key, or waits for the call already in flight for the key.
+	 * @param key key of the call
+	 * @param call call to run if none is in flight
+	 * @return result of the call
+	 * @throws RuntimeException thrown by the call, also to the callers that waited for it
+	 */
+	public V execute(K key, Supplier<V> call) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+		if (existing != null) {
+			coalesced.incrementAndGet();
+			return await(existing);
+		}
+
+		issued.incrementAndGet();
+		try {
+			V result = call.get();
+			future.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	/**
+	 * Returns the number of calls that were run
+	 * @return number of calls issued
+	 */
+	public long getIssued() {
+		return issued.get();
+	}
+
+	/**
+	 * Returns the number of calls that waited for a call in flight instead of running
+	 * @return number of calls coalesced
+	 */
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	/**
+	 * Waits for the result of a call in flight
+	 * @param future result of the call
+	 * @return result of the call, null if the waiting thread was interrupted
+	 */
+	private V await(CompletableFuture<V> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
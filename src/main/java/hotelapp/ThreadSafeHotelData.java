@@ -1,9 +1,12 @@
 package hotelapp;
 
+import java.io.IOException;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 /**
  * Uses ReentrantReadWriteLock class from the concurrent package.
@@ -22,6 +25,15 @@ public class ThreadSafeHotelData extends HotelData {
 		lock = new ReentrantReadWriteLock();
 	}
 	
+	/**
+	 * This class constructor calling HotelData (parent) class constructor with a review text store
+	 * @param reviewTextStore store for review titles and texts
+	 */
+	public ThreadSafeHotelData(ReviewTextStore reviewTextStore) {
+		super(reviewTextStore);
+		lock = new ReentrantReadWriteLock();
+	}
+	
 	/**
 	 * Overridden method to make it thread safe using write lock. Adds hotel to hotelsMap. Similar to project 4.
 	 * @param hotelId - id of the hotel
@@ -97,6 +109,22 @@ public class ThreadSafeHotelData extends HotelData {
 	}
 	
 	
+	/**
+	 * Overridden method to make it thread safe using write lock. Removes the given reviews of a hotel.
+	 * @param hotelID - id of the hotel
+	 * @param reviewIds - ids of the reviews to remove
+	 */
+	@Override
+	public void removeReviews(String hotelID, Collection<String> reviewIds) {
+		try {
+			lock.writeLock().lock();
+			super.removeReviews(hotelID, reviewIds);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
 	/**
 	 * Overridden method to make it thread safe using read lock.
 	 * Gets the list of all hotel ids sorted alphabetically.
@@ -113,6 +141,60 @@ public class ThreadSafeHotelData extends HotelData {
 		}
 	}
 	
+	/**
+	 * Overridden method to make it thread safe using read lock.
+	 * Gets the top reviews of a hotel in the given order.
+	 * @param hotelId id of the hotel
+	 * @param count maximum number of reviews to return
+	 * @param order order of the reviews
+	 * @return list of at most count hotel reviews
+	 */
+	@Override
+	public List<HotelReview> findTopReviews(String hotelId, int count, ReviewOrder order) {
+		try {
+			lock.readLock().lock();
+			return super.findTopReviews(hotelId, count, order);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Overridden method to make it thread safe using read lock.
+	 * Gets a page of hotel ids sorted alphabetically.
+	 * @param offset - index of the first hotel id to return
+	 * @param limit - maximum number of hotel ids to return
+	 * @return List of hotel ids
+	 */
+	@Override
+	public List<String> getHotels(int offset, int limit) {
+		try {
+			lock.readLock().lock();
+			return super.getHotels(offset, limit);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Overridden method to make it thread safe using read lock.
+	 * Gets the hotel ids starting with the prefix sorted alphabetically.
+	 * @param prefix - prefix of the hotel id
+	 * @return sorted set of hotel ids
+	 */
+	@Override
+	public NavigableSet<String> getHotelsByIdPrefix(String prefix) {
+		try {
+			lock.readLock().lock();
+			return super.getHotelsByIdPrefix(prefix);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+	
 	/**
 	 * Adds attraction to attractionsMap. Overridden method to make it thread safe using write lock.
 	 * @param id Tourist attraction id
@@ -130,6 +212,20 @@ public class ThreadSafeHotelData extends HotelData {
 		}
 	}
 	
+	/**
+	 * Adds a reference to an attraction. Overridden method to make it thread safe using write lock.
+	 * @param attractionRef reference to the attraction, with its distance from the hotel
+	 */
+	@Override
+	public void addAttraction(AttractionRef attractionRef) {
+		try {
+			lock.writeLock().lock();
+			super.addAttraction(attractionRef);
+		} finally{
+			lock.writeLock().unlock();
+		}
+	}
+	
 	/**
 	 * Writes attractions data from local list to main map. Using write lock to make it thread safe
 	 * @param hotelID
@@ -138,7 +234,7 @@ public class ThreadSafeHotelData extends HotelData {
 	public void combineAllAttractions(String hotelID, ThreadSafeHotelData localData) {
 		try {
 			lock.writeLock().lock();
-			super.writeAttractionsToMap(hotelID, (ArrayList<TouristAttraction>) localData.getTouristAttractionsList());
+			super.writeAttractionsToMap(hotelID, localData.getTouristAttractionsList());
 			
 		} finally{
 			lock.writeLock().unlock();
@@ -189,6 +285,51 @@ public class ThreadSafeHotelData extends HotelData {
 		}
 		
 	}
+	
+	/**
+	 * Overridden method to make it thread safe using read lock. Prints attractions given by the function for a hotel.
+	 * @param filename name of the file to print to
+	 * @param attractionsByHotelId returns the attractions of a hotel id
+	 */
+	@Override
+	public void printAttractions(Path filename, Function<String, List<TouristAttraction>> attractionsByHotelId) {
+		try {
+			lock.readLock().lock();
+			super.printAttractions(filename, attractionsByHotelId);
+		} finally{
+			lock.readLock().unlock();
+		}
+		
+	}
+	
+	/**
+	 * Overridden method to make it thread safe using read lock. Writes all data to a binary snapshot.
+	 * @param snapshot path of the snapshot file
+	 * @param fingerprint fingerprint of the input files the data was loaded from
+	 * @throws IOException if the snapshot can not be written
+	 */
+	@Override
+	public void writeSnapshot(Path snapshot, long fingerprint) throws IOException {
+		try {
+			lock.readLock().lock();
+			super.writeSnapshot(snapshot, fingerprint);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Overridden method to make it thread safe using write lock. Loads all data from a binary snapshot.
+	 * @param snapshot path of the snapshot file
+	 * @throws IOException if the snapshot can not be read
+	 */
+	@Override
+	public void loadSnapshot(Path snapshot) throws IOException {
+		try {
+			lock.writeLock().lock();
+			super.loadSnapshot(snapshot);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
 }
-
-
@@ -1,5 +1,7 @@
 package hotelapp;
 
+import java.util.Objects;
+
 /**
  * Stores tourist attraction details namely id, name, rating and address
  */
@@ -10,6 +12,8 @@ public class TouristAttraction {
     private String name;
     private double rating;
     private String address;
+    private double latitude;
+    private double longitude;
 
     /** Constructor for TouristAttraction
      *
@@ -20,10 +24,25 @@ public class TouristAttraction {
      */
     public TouristAttraction(String id, String name, double rating, String address) {
         // FILL IN CODE
+        this(id, name, rating, address, Double.NaN, Double.NaN);
+    }
+    
+    /** Constructor for TouristAttraction with its location
+     *
+     * @param id id of the attraction
+     * @param name name of the attraction
+     * @param rating overall rating of the attraction
+     * @param address address of the attraction
+     * @param latitude latitude of the attraction, NaN if unknown
+     * @param longitude longitude of the attraction, NaN if unknown
+     */
+    public TouristAttraction(String id, String name, double rating, String address, double latitude, double longitude) {
         this.id = id;
         this.name = name;
         this.rating = rating;
         this.address = address;
+        this.latitude = latitude;
+        this.longitude = longitude;
     }
 
     // FILL IN CODE: add getters as needed
@@ -60,6 +79,60 @@ public class TouristAttraction {
         return address;
     }
     
+    /**
+     * Returns latitude of the attraction
+     * @return latitude, NaN if unknown
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+    
+    /**
+     * Returns longitude of the attraction
+     * @return longitude, NaN if unknown
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+    
+    /**
+     * Checks if the location of the attraction is known
+     * @return true if latitude and longitude are known
+     */
+    public boolean hasLocation() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+    
+    /**
+     * Checks if the other object is an attraction with the same id, name, rating, address and location
+     *
+     * @param o other object
+     * @return true if the attractions are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TouristAttraction)) {
+            return false;
+        }
+        TouristAttraction other = (TouristAttraction) o;
+        return Double.compare(rating, other.rating) == 0 && Objects.equals(id, other.id)
+                && Objects.equals(name, other.name) && Objects.equals(address, other.address)
+                && Double.compare(latitude, other.latitude) == 0 && Double.compare(longitude, other.longitude) == 0;
+    }
+    
+    /**
+     * hashCode() method
+     *
+     * @return hash code of the id, name, rating, address and location
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, rating, address, latitude, longitude);
+    }
+    
     /**
      * toString() method
      *
@@ -5,154 +5,415 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import jettyServer.HotelBaseServlet;
 
-import javax.net.ssl.SSLSocket;
-import javax.net.ssl.SSLSocketFactory;
-import java.io.*;
-import java.net.URL;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** Class responsible for getting tourist attractions near each hotel from the Google Places API.
  *  Also scrapes some data about hotels from expedia html webpage.
  */
 public class TouristAttractionFinder {
 
-    private static final String host = "maps.googleapis.com";
-    private static final String path = "/maps/api/place/textsearch/json";
+    private static final String CONFIG_FILE = "input/config.json";
+    private static String scheme = "https";
+    private static String host = "maps.googleapis.com";
+    private static String path = "/maps/api/place/textsearch/json";
     private static String myAPIKey;
+    private static boolean configLoaded = false;
+    
+    /** Radius used by the CLI and when the attractions page is opened without a radius */
+    public static final int DEFAULT_RADIUS = 2;
+    
+    /** Number of threads used for background fetches */
+    private static final int FETCH_THREADS = 4;
+    /** Maximum number of background fetches waiting for a thread */
+    private static final int MAX_QUEUED_FETCHES = 100;
+    
+    /**
+     * Calls to Google Places API, at most 8 at a time. The deadline is well below the 5 s the attractions page
+     * waits, so a slow call fails and is counted by the circuit breaker before the page falls back.
+     */
+    private static final Upstream placesApi = new Upstream("places", 8, 3000);
+    /** Calls to expedia pages, only fetched in the background, at most 2 at a time */
+    private static final Upstream expedia = new Upstream("expedia", 2, 15000);
+    
+    /** Concurrent fetches of the same hotel and radius bucket share one request */
+    private static final SingleFlight<String, AttractionCache.Entry> attractionFlights = new SingleFlight<>();
+    /** Concurrent fetches of the same expedia page share one request */
+    private static final SingleFlight<String, ExpediaDescriptionExtractor> descriptionFlights = new SingleFlight<>();
+    
+    static {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.counter("singleflight_issued_total", "Calls run, by kind of fetch", attractionFlights::getIssued, "fetch", "attractions");
+        registry.counter("singleflight_coalesced_total", "Calls that waited for a call in flight, by kind of fetch",
+                attractionFlights::getCoalesced, "fetch", "attractions");
+        registry.counter("singleflight_issued_total", "Calls run, by kind of fetch", descriptionFlights::getIssued, "fetch", "descriptions");
+        registry.counter("singleflight_coalesced_total", "Calls that waited for a call in flight, by kind of fetch",
+                descriptionFlights::getCoalesced, "fetch", "descriptions");
+    }
 
     // Add instance variables as needed (for example, store a reference to ThreadSafeHotelData)
     private ThreadSafeHotelData hdata;
     // FILL IN CODE: add data structures to store attractions
     // Alternatively, you can store these data structures in ThreadSafeHotelData
     private ExecutorService exec;
+    private PooledHttpClient httpClient;
+    private volatile boolean fetchOnRequest = true;
     
     
-    /** Constructor for TouristAttractionFinder
+    /** Constructor for TouristAttractionFinder.
+     * The finder owns a bounded pool of named threads for background fetches, so it should be created once
+     * and shared, and stopped with shutdown() when it is no longer used.
      *
      * @param hdata
      */
     public TouristAttractionFinder(ThreadSafeHotelData hdata) {
         // FILL IN CODE
         this.hdata = hdata;
-        exec = Executors.newSingleThreadExecutor();
+        AtomicInteger threadCount = new AtomicInteger();
+        exec = new ThreadPoolExecutor(FETCH_THREADS, FETCH_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_FETCHES), r -> {
+                    Thread thread = new Thread(r, "attractions-fetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        httpClient = PooledHttpClient.getInstance();
+    }
+    
+    /**
+     * Sets whether findAttractions may call Google Places API when the cache has no usable entry.
+     * Turned off when the attractions are precomputed by AttractionPrecomputer, so requests never wait for
+     * an outbound call and are served from the cache only.
+     * @param fetchOnRequest false to serve requests from the cache only
+     */
+    public void setFetchOnRequest(boolean fetchOnRequest) {
+        this.fetchOnRequest = fetchOnRequest;
+    }
+    
+    /**
+     * Stops the background fetch threads, waiting a few seconds for running fetches to finish.
+     */
+    public void shutdown() {
+        exec.shutdown();
+        try {
+            if (!exec.awaitTermination(5, TimeUnit.SECONDS)) {
+                exec.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            exec.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
 
     /**
-     * Creates a secure socket to communicate with Google Places API server,
-     * sends a GET request (to find attractions close to
-     * the hotel within a given radius), and gets a response as a string.
-     * Removes headers from the response string and parses the remaining json to
-     * get Attractions info. Adds attractions to the corresponding data structure that supports
-     * efficient search for tourist attractions given the hotel id.
+     * Sends a GET request to Google Places API (to find attractions close to
+     * the hotel within a given radius) using the shared keep-alive HTTP client,
+     * and parses the json response to get Attractions info. Adds attractions to the corresponding data
+     * structure that supports efficient search for tourist attractions given the hotel id.
      *
-     * @return
+     * @return json response, null if the request failed
      */
     public String fetchAttractions(String hotelID, int radiusInMiles) {
         // FILL IN CODE
-        // This method should call getRequest method
-        if (hotelID != null) {
-            JsonParser jsonParser = new JsonParser();
-            JsonObject jsonObject = null;
-            try {
-                jsonObject = (JsonObject) jsonParser.parse(new FileReader("input/config.json"));
-                myAPIKey = jsonObject.get("apikey").getAsString();
-                if (myAPIKey.isEmpty()) {
-                    throw new IllegalArgumentException("API key missing in config.json file");
-                }
-        
-            } catch (FileNotFoundException e) {
-                System.out.println(e);
-            } catch (IllegalArgumentException e) {
-                System.out.println(e);
+        try (Tracer.Span span = Tracer.getInstance().span("finder", "fetchAttractions " + hotelID)) {
+            String response = requestAttractions(findHotel(hotelID), radiusInMiles);
+            if (response != null) {
+                parseTouristAttractions(hotelID, response);
+            } else {
+                span.setDetail("fetchAttractions " + hotelID + " failed");
             }
+            return response;
+        }
+    }
     
-            PrintWriter out = null;
-            BufferedReader in = null;
-            SSLSocket socket = null;
-            String response = "";
+    /**
+     * Returns attractions near the hotel from the attraction cache, filtered by their distance from the hotel
+     * and sorted. A fresh entry of the requested or a larger radius bucket is filtered locally, so changing the
+     * radius does not fetch again. Otherwise stale entries are returned while they are refreshed in the
+     * background, missing or expired entries are fetched from Google Places API before returning.
+     *
+     * @param hotelID hotel id
+     * @param radiusInMiles requested radius, attractions farther from the hotel are left out
+     * @param sort order of the attractions
+     * @return list of attractions with their distance, empty if they could not be fetched
+     */
+    public List<NearbyAttraction> findAttractions(String hotelID, int radiusInMiles, AttractionSort sort) {
+        try (Tracer.Span span = Tracer.getInstance().span("finder", "findAttractions " + hotelID)) {
+            List<NearbyAttraction> attractions = nearbyAttractions(hotelID, null, findEntry(hotelID, radiusInMiles), radiusInMiles, sort);
+            span.setDetail("findAttractions " + hotelID + " " + attractions.size() + " attractions");
+            return attractions;
+        }
+    }
     
+    /**
+     * Returns attractions near the hotel like findAttractions, without blocking the calling thread.
+     * Fresh attractions cached in memory complete the future right away, otherwise the DB and Google Places API
+     * are queried on the fetch threads.
+     *
+     * @param hotelDetails hotel, found with findHotelAsync
+     * @param radiusInMiles requested radius, attractions farther from the hotel are left out
+     * @param sort order of the attractions
+     * @return future list of attractions, completed exceptionally if too many fetches are queued
+     */
+    public CompletableFuture<List<NearbyAttraction>> findAttractionsAsync(HotelDetails hotelDetails, int radiusInMiles,
+                                                                          AttractionSort sort) {
+        Tracer tracer = Tracer.getInstance();
+        String hotelID = hotelDetails.getId();
+        try (Tracer.Span span = tracer.span("finder", "findAttractionsAsync " + hotelID)) {
+            AttractionCache.Entry entry = AttractionCache.getInstance().getCoveringInMemory(hotelID,
+                    AttractionCache.bucket(radiusInMiles), System.currentTimeMillis());
+            if (entry != null) {
+                span.setDetail("findAttractionsAsync " + hotelID + " cached");
+                return CompletableFuture.completedFuture(nearbyAttractions(hotelID, hotelDetails, entry, radiusInMiles, sort));
+            }
             try {
-                HotelBaseServlet hbServlet = new HotelBaseServlet();
-                HotelDetails hotelDetails = hbServlet.getHotelById(hotelID);
-                SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
-                String query = "?query=tourist%20attractions+in+";
-                String radius = String.valueOf(Math.round(radiusInMiles * 1609.34));
-                String params = hotelDetails.getCity().replace(" ", "%20")+"&location="+hotelDetails.getLatitude()+","+hotelDetails.getLongitude()+"&radius="+radius+"&key="+myAPIKey;
-                String urlString = "https://"+host+path+query+params;
-        
-                URL url = new URL(urlString);
-                // HTTPS uses port 443
-                socket = (SSLSocket) factory.createSocket(url.getHost(), 443);
-                // output stream for the secure socket
-                out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()));
-                String request = getRequest(url.getHost(), url.getPath()+"?"+url.getQuery());
-        
-                out.println(request); // send a request to the server
-                out.flush();
-        
-                // input stream for the secure socket.
-                in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                return CompletableFuture.supplyAsync(tracer.wrap(() -> findAttractions(hotelID, radiusInMiles, sort)), exec);
+            } catch (RejectedExecutionException e) {
+                span.setDetail("findAttractionsAsync " + hotelID + " rejected");
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+    
+    /**
+     * Returns the hotel without blocking the calling thread. A hotel in the hotel data completes the future
+     * right away, otherwise it is read from the DB on the fetch threads.
+     *
+     * @param hotelID hotel id
+     * @return future hotel, completed with null if the hotel does not exist, exceptionally if too many fetches
+     * are queued
+     */
+    public CompletableFuture<HotelDetails> findHotelAsync(String hotelID) {
+        HotelDetails hotelDetails = hotelID != null ? hdata.findHotelById(hotelID) : null;
+        if (hotelDetails != null || hotelID == null) {
+            return CompletableFuture.completedFuture(hotelDetails);
+        }
+        try {
+            return CompletableFuture.supplyAsync(Tracer.getInstance().wrap(() -> findHotel(hotelID)), exec);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Fetches attractions from Google Places API and stores them in the attraction cache, even if the cached
+     * attractions are still fresh. Used by AttractionPrecomputer.
+     * @param hotelID hotel id
+     * @param radiusBucket radius bucket in miles
+     * @return attractions fetched, null if the request failed
+     */
+    public List<TouristAttraction> refreshAttractions(String hotelID, int radiusBucket) {
+        AttractionCache.Entry entry = loadAttractions(hotelID, radiusBucket);
+        return entry != null ? entry.getAttractions() : null;
+    }
+    
+    /**
+     * Returns the cache entry to serve the radius from: a fresh entry of this or a larger bucket, a stale entry
+     * that is refreshed in the background, or a freshly fetched one.
+     * @param hotelID hotel id
+     * @param radiusInMiles requested radius
+     * @return cache entry, null if the attractions were never fetched and could not be fetched now
+     */
+    private AttractionCache.Entry findEntry(String hotelID, int radiusInMiles) {
+        AttractionCache cache = AttractionCache.getInstance();
+        int bucket = AttractionCache.bucket(radiusInMiles);
+        long now = System.currentTimeMillis();
+        AttractionCache.Entry covering = cache.getCovering(hotelID, bucket, now);
+        if (covering != null) {
+            return covering;
+        }
         
-                // use input stream to read server's response
-                String line;
-                StringBuffer sb = new StringBuffer();
-                while ((line = in.readLine()) != null) {
-                    sb.append(line);
+        AttractionCache.Entry entry = cache.get(hotelID, bucket);
+        if (!fetchOnRequest) {
+            return entry;
+        }
+        if (entry != null && entry.isUsable(now)) {
+            if (cache.startRefresh(hotelID, bucket)) {
+                try {
+                    exec.submit(() -> {
+                        try {
+                            loadAttractions(hotelID, bucket);
+                        } finally {
+                            cache.endRefresh(hotelID, bucket);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // too many refreshes queued or finder stopped, refresh on a later request
+                    cache.endRefresh(hotelID, bucket);
                 }
+            }
+            return entry;
+        }
         
-                String s = sb.toString();
-        
-                /**Pattern to strip response header*/
-                Pattern p1 = Pattern.compile("(.*?)\\{(.*)");
-        
-                Matcher m1 = p1.matcher(s);
-        
-                if (m1.find()) {
-                    response = "{ "+m1.group(2);
+        AttractionCache.Entry fetched = loadAttractions(hotelID, bucket);
+        return fetched != null ? fetched : entry;
+    }
+    
+    /**
+     * Resolves the attractions of the cache entry, leaves out the ones farther than the radius and sorts them.
+     * Distances missing in the entry are computed from the location of the attraction and the hotel;
+     * attractions without a known distance are kept and sorted last.
+     * @param hotelID hotel id
+     * @param hotelDetails hotel, null to look it up when a distance is missing
+     * @param entry cache entry, may be null
+     * @param radiusInMiles radius in miles
+     * @param sort order of the attractions
+     * @return attractions within the radius with their distance
+     */
+    private List<NearbyAttraction> nearbyAttractions(String hotelID, HotelDetails hotelDetails, AttractionCache.Entry entry,
+                                                     int radiusInMiles, AttractionSort sort) {
+        List<NearbyAttraction> attractions = new ArrayList<>();
+        if (entry == null) {
+            return attractions;
+        }
+        List<AttractionRef> refs = entry.getAttractionRefs();
+        List<TouristAttraction> entryAttractions = entry.getAttractions();
+        for (int i = 0; i < refs.size(); i++) {
+            TouristAttraction attraction = entryAttractions.get(i);
+            double distance = refs.get(i).getDistance();
+            if (Double.isNaN(distance) && attraction.hasLocation()) {
+                if (hotelDetails == null) {
+                    hotelDetails = findHotel(hotelID);
                 }
-            } catch (IOException e) {
-                System.out.println(
-                        "An IOException occured while writing to the socket stream or reading from the stream: "+e);
-            } catch (Exception e) {
-                System.out.println(e);
-            } finally {
-                try {
-                    // close the streams and the socket
-                    out.close();
-                    in.close();
-                    socket.close();
-                } catch (IOException e) {
-                    System.out.println("An exception occured while trying to close the streams or the socket: "+e);
+                if (hotelDetails != null) {
+                    distance = GeoUtils.distanceMiles(hotelDetails.getLatitude(), hotelDetails.getLongitude(),
+                            attraction.getLatitude(), attraction.getLongitude());
                 }
             }
-            parseTouristAttractions(hotelID, response);
-            return response;
+            if (Double.isNaN(distance) || distance <= radiusInMiles) {
+                attractions.add(new NearbyAttraction(attraction, distance));
+            }
+        }
+        attractions.sort(sort.getComparator());
+        return attractions;
+    }
+    
+    /**
+     * Fetches attractions from Google Places API and stores them in the attraction cache.
+     * Concurrent calls for the same hotel and radius bucket share one request.
+     * @param hotelID hotel id
+     * @param radiusBucket radius bucket in miles
+     * @return the new cache entry, null if the request failed
+     */
+    private AttractionCache.Entry loadAttractions(String hotelID, int radiusBucket) {
+        return attractionFlights.execute(hotelID + ":" + radiusBucket, () -> {
+            HotelDetails hotelDetails = findHotel(hotelID);
+            String response = requestAttractions(hotelDetails, radiusBucket);
+            if (response == null) {
+                return null;
+            }
+            return AttractionCache.getInstance().put(hotelID, radiusBucket, toAttractionRefs(response, hotelDetails));
+        });
+    }
+    
+    /**
+     * Returns the counters of attraction fetches
+     * @return single flight of attraction fetches, with issued and coalesced counts
+     */
+    public static SingleFlight<String, AttractionCache.Entry> getAttractionFlights() {
+        return attractionFlights;
+    }
+    
+    /**
+     * Returns the counters of expedia page fetches
+     * @return single flight of description fetches, with issued and coalesced counts
+     */
+    public static SingleFlight<String, ExpediaDescriptionExtractor> getDescriptionFlights() {
+        return descriptionFlights;
+    }
+    
+    /**
+     * Returns the guard of the calls to Google Places API
+     * @return upstream with its circuit breaker and call counts
+     */
+    public static Upstream getPlacesUpstream() {
+        return placesApi;
+    }
+    
+    /**
+     * Returns the guard of the calls to expedia
+     * @return upstream with its circuit breaker and call counts
+     */
+    public static Upstream getExpediaUpstream() {
+        return expedia;
+    }
+    
+    /**
+     * Returns the hotel from the hotel data, or from the DB if the hotel data was not loaded
+     * @param hotelID hotel id
+     * @return hotel details, null if the hotel does not exist
+     */
+    private HotelDetails findHotel(String hotelID) {
+        if (hotelID == null) {
+            return null;
+        }
+        HotelDetails hotelDetails = hdata.findHotelById(hotelID);
+        if (hotelDetails == null) {
+            HotelBaseServlet hbServlet = new HotelBaseServlet();
+            hotelDetails = hbServlet.getHotelById(hotelID);
+        }
+        return hotelDetails;
+    }
+    
+    /**
+     * Sends a GET request to Google Places API to find attractions close to the hotel within a given radius.
+     * The request is guarded by the places upstream, so it fails fast while Places API is failing.
+     *
+     * @return json response, null if the request failed, timed out or was not made
+     */
+    private String requestAttractions(HotelDetails hotelDetails, int radiusInMiles) {
+        if (hotelDetails != null) {
+            loadConfig();
+            if (myAPIKey == null || myAPIKey.isEmpty()) {
+                System.out.println(new IllegalArgumentException("API key missing in config.json file"));
+            }
+    
+            String query = "?query=tourist%20attractions+in+";
+            String radius = String.valueOf(Math.round(radiusInMiles * 1609.34));
+            String params = hotelDetails.getCity().replace(" ", "%20")+"&location="+hotelDetails.getLatitude()+","+hotelDetails.getLongitude()+"&radius="+radius+"&key="+myAPIKey;
+            String urlString = scheme+"://"+host+path+query+params;
+            
+            return placesApi.call(() -> httpClient.get(urlString));
         }
         
         return null;
     }
     
     /**
-     * Takes a host and a string containing path/resource/query and creates a
-     * string of the HTTP GET request
-     *
-     * @param host
-     * @param pathResourceQuery
-     * @return
+     * Reads apikey, host, path and optional scheme from input/config.json.
+     * The file is read only once, on the first call.
      */
-    private String getRequest(String host, String pathResourceQuery) {
-        String request = "GET " + pathResourceQuery + " HTTP/1.1" + System.lineSeparator() // GET
-                         // request
-                         + "Host: " + host + System.lineSeparator() // Host header required for HTTP/1.1
-                         + "Connection: close" + System.lineSeparator() // make sure the server closes the
-                         // connection after we fetch one page
-                         + System.lineSeparator();
-        return request;
+    private static synchronized void loadConfig() {
+        if (configLoaded) {
+            return;
+        }
+        configLoaded = true;
+        try {
+            JsonParser jsonParser = new JsonParser();
+            JsonObject jsonObject = (JsonObject) jsonParser.parse(new FileReader(CONFIG_FILE));
+            myAPIKey = jsonObject.get("apikey").getAsString();
+            if (jsonObject.has("host")) {
+                host = jsonObject.get("host").getAsString();
+            }
+            if (jsonObject.has("path")) {
+                path = jsonObject.get("path").getAsString();
+            }
+            if (jsonObject.has("scheme")) {
+                scheme = jsonObject.get("scheme").getAsString();
+            }
+        } catch (FileNotFoundException e) {
+            System.out.println(e);
+        }
     }
     
     /**
@@ -162,134 +423,90 @@ public class TouristAttractionFinder {
      */
     public void parseTouristAttractions(String hotelID, String touristAttractionsJson) {
         // FILL IN CODE (from lab 1)
+        ThreadSafeHotelData localData = new ThreadSafeHotelData();
+        for (AttractionRef attractionRef : toAttractionRefs(touristAttractionsJson, findHotel(hotelID))) {
+            localData.addAttraction(attractionRef);
+        }
+        hdata.combineAllAttractions(hotelID, localData);
+    }
+    
+    /**
+     * Parses the json response of Google Places API using JsonParser and adds the attractions to the AttractionStore.
+     * @param touristAttractionsJson JSON response
+     * @param hotelDetails hotel the attractions are near to, used to compute their distance
+     * @return references to the attractions, empty if the response has no results
+     */
+    private List<AttractionRef> toAttractionRefs(String touristAttractionsJson, HotelDetails hotelDetails) {
+        List<AttractionRef> attractionRefs = new ArrayList<>();
         JsonParser jsonParser = new JsonParser();
         JsonObject jsonObject = (JsonObject) jsonParser.parse(touristAttractionsJson);
         JsonArray touristAttractions = jsonObject.getAsJsonArray("results");
+        if (touristAttractions == null) {
+            return attractionRefs;
+        }
         
-        String id = "";
-        String name = "";
-        double rating = 0.0;
-        String address = "";
-        ThreadSafeHotelData localData = new ThreadSafeHotelData();
-        
+        AttractionStore store = AttractionStore.getInstance();
         for(int i = 0; i < touristAttractions.size(); i++){
             JsonObject attraction = touristAttractions.get(i).getAsJsonObject();
-            name = attraction.get("name").getAsString();
-            id = attraction.get("id").getAsString();
-            rating = attraction.get("rating").getAsDouble();
-            address = attraction.get("formatted_address").getAsString();
+            String name = attraction.get("name").getAsString();
+            String id = attraction.has("id") ? attraction.get("id").getAsString() : attraction.get("place_id").getAsString();
+            double rating = attraction.has("rating") ? attraction.get("rating").getAsDouble() : 0.0;
+            String address = attraction.has("formatted_address") ? attraction.get("formatted_address").getAsString() : "";
             
-            localData.addAttraction(id, name, rating, address);
-        }
-        if(localData != null) {
-            hdata.combineAllAttractions(hotelID, localData);
+            double latitude = Double.NaN;
+            double longitude = Double.NaN;
+            if (attraction.has("geometry")) {
+                JsonObject location = attraction.getAsJsonObject("geometry").getAsJsonObject("location");
+                latitude = location.get("lat").getAsDouble();
+                longitude = location.get("lng").getAsDouble();
+            }
+            double distance = Double.NaN;
+            if (hotelDetails != null && !Double.isNaN(latitude)) {
+                distance = GeoUtils.distanceMiles(hotelDetails.getLatitude(), hotelDetails.getLongitude(), latitude, longitude);
+            }
+            attractionRefs.add(store.add(new TouristAttraction(id, name, rating, address, latitude, longitude), distance));
         }
+        return attractionRefs;
     }
     
     
     /** Print attractions near the hotels to a file.
      * The format is described in the project description.
+     * Attractions are read from the attraction cache (hotel_attractions table) at the default radius,
+     * hotels without cached attractions fall back to the attractions fetched with fetchAttractions.
      *
      * @param filename
      */
     public void printAttractions(Path filename) {
         // FILL IN CODE
-        hdata.printAttractions(filename);
+        AttractionCache cache = AttractionCache.getInstance();
+        int bucket = AttractionCache.bucket(DEFAULT_RADIUS);
+        hdata.printAttractions(filename, hotelID -> {
+            AttractionCache.Entry entry = cache.get(hotelID, bucket);
+            return entry != null ? entry.getAttractions() : hdata.findAttractionsByHotelID(hotelID);
+        });
     }
     
     
     /**
-     * Creates a secure socket to communicate with Google Places API server,
-     * sends a GET request (to find attractions close to
-     * the hotel within a given radius), and gets a response as a string.
-     * Removes headers from the response string and parses the remaining json to
-     * get Attractions info. Adds attractions to the corresponding data structure that supports
-     * efficient search for tourist attractions given the hotel id.
+     * Sends a GET request for the expedia page of the hotel using the shared keep-alive HTTP client
+     * and extracts the descriptions while the page arrives, stopping the download once both are found.
+     * Concurrent calls for the same hotel share one request, which is guarded by the expedia upstream.
      *
-     * @return
+     * @return descriptions of the hotel, null if the hotel id is null or the request failed, timed out or was not made
      */
-    public String fetchDescriptions(String hotelID) {
+    public ExpediaDescriptionExtractor fetchDescriptions(String hotelID) {
         // FILL IN CODE
-        // This method should call getRequest method
         if (hotelID != null) {
-            /*JsonParser jsonParser = new JsonParser();
-            JsonObject jsonObject = null;
-            try {
-                jsonObject = (JsonObject) jsonParser.parse(new FileReader("input/config.json"));
-                myAPIKey = jsonObject.get("apikey").getAsString();
-                if (myAPIKey.isEmpty()) {
-                    throw new IllegalArgumentException("API key missing in config.json file");
+            String urlString = "https://www.expedia.com/h" + hotelID + ".Hotel-Information";
+            try (Tracer.Span span = Tracer.getInstance().span("finder", "fetchDescriptions " + hotelID)) {
+                ExpediaDescriptionExtractor descriptions = descriptionFlights.execute(hotelID,
+                        () -> expedia.call(() -> httpClient.get(urlString, ExpediaDescriptionExtractor::extract)));
+                if (descriptions == null) {
+                    span.setDetail("fetchDescriptions " + hotelID + " failed");
                 }
-                
-            } catch (FileNotFoundException e) {
-                System.out.println(e);
-            } catch (IllegalArgumentException e) {
-                System.out.println(e);
+                return descriptions;
             }
-            */
-            PrintWriter out = null;
-            BufferedReader in = null;
-            SSLSocket socket = null;
-            String response = "";
-            
-            try {
-                HotelDetails hotelDetails = hdata.findHotelById(hotelID);
-                SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
-                //String query = "?query=tourist%20attractions+in+";
-                //String radius = String.valueOf(Math.round(radiusInMiles * 1609.34));
-                //String params = hotelDetails.getCity().replace(" ", "-")+"&location="+hotelDetails.getLatitude()+","+hotelDetails.getLongitude()+"&radius="+radius+"&key="+myAPIKey;
-                String urlString = "https://www.expedia.com/h" + hotelID + ".Hotel-Information";
-                URL url = new URL(urlString);
-                System.out.println(url);
-                // HTTPS uses port 443
-                socket = (SSLSocket) factory.createSocket(url.getHost(), 443);
-                // output stream for the secure socket
-                out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()));
-                String request = getRequest(url.getHost(), url.getPath());
-                System.out.println(request);
-                out.println(request); // send a request to the server
-                out.flush();
-                
-                // input stream for the secure socket.
-                in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                
-                // use input stream to read server's response
-                String line;
-                StringBuffer sb = new StringBuffer();
-                while ((line = in.readLine()) != null) {
-                    sb.append(line);
-                    System.out.println(line);
-                }
-                
-                String s = sb.toString();
-                System.out.println(response);
-                
-                /**Pattern to strip response header*/
-                Pattern p1 = Pattern.compile("(.*?)\\{(.*)");
-                
-                Matcher m1 = p1.matcher(s);
-                
-                if (m1.find()) {
-                    response = "{ "+m1.group(2);
-                }
-            } catch (IOException e) {
-                System.out.println(
-                        "An IOException occured while writing to the socket stream or reading from the stream: "+e);
-            } catch (Exception e) {
-                System.out.println(e);
-            } finally {
-                try {
-                    // close the streams and the socket
-                    out.close();
-                    in.close();
-                    socket.close();
-                } catch (IOException e) {
-                    System.out.println("An exception occured while trying to close the streams or the socket: "+e);
-                }
-            }
-            
-            //parseTouristAttractions(hotelID, response);
-            return response;
         }
         
         return null;
@@ -297,47 +514,50 @@ public class TouristAttractionFinder {
     
     
     /**
-     * Takes an html file from expedia for a particular hotelId, and scrapes it for some data about this hotel:
-     * About this area and About this property descriptions. Stores this information in ThreadSafeHotelData so that
-     * we are able to efficiently access it given the hotel Id.
+     * Fetches the expedia page of the hotel, extracts its descriptions and stores them with the DescriptionCache
+     * (in memory and in hotel_details). Used by DescriptionPrecomputer.
+     * @param hotelID hotel id
+     * @return hotel details with the descriptions, null if the hotel does not exist or the request failed
+     */
+    public HotelDetails refreshDescriptions(String hotelID) {
+        HotelDetails hotelDetails = findHotel(hotelID);
+        if (hotelDetails == null) {
+            return null;
+        }
+        ExpediaDescriptionExtractor descriptions = fetchDescriptions(hotelID);
+        if (descriptions == null) {
+            return null;
+        }
+        HotelDetails hotelDescriptions = new HotelDetails.Builder(hotelDetails)
+                .setAreaDescription(descriptions.getAreaDescription())
+                .setPropertyDescription(descriptions.getPropertyDescription())
+                .build();
+        DescriptionCache.getInstance().put(hotelDescriptions);
+        return hotelDescriptions;
+    }
+    
+    
+    /**
+     * Gets the About this area and About this property descriptions for a particular hotelId and stores them in
+     * ThreadSafeHotelData so that we are able to efficiently access them given the hotel Id.
+     * Descriptions already stored in hotel_details are used as they are, otherwise the expedia page is fetched
+     * and the descriptions are stored for the next time.
      */
     public void parseHTML(String hotelId) {
-        String response = fetchDescriptions(hotelId);
-        System.out.println(response);
-            /*BufferedReader br = new BufferedReader(new FileReader(filename.toString()));
-    
-            // use input stream to read server's response
-            String line;
-            StringBuffer sb = new StringBuffer();
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
-            }
-            String s = sb.toString();
-             */
         HotelDetails hotelDetails = hdata.findHotelById(hotelId);
         if(hotelDetails != null) {
-            Pattern p1 = Pattern.compile("(About this area)(.*?)<h4(.*?)>(.*?)<\\/h4>(.*?)<p(.*?)>(.*?)<\\/p>");
-            String areaDescription = "";
-            Matcher m1 = p1.matcher(response);
-            if (m1.find()) {
-                areaDescription = m1.group(4);
-                areaDescription += System.lineSeparator()+System.lineSeparator();
-                areaDescription += m1.group(7);
-                areaDescription = areaDescription.replace("&#x27;", "'");
-            }
-            hotelDetails.setAreaDescription(areaDescription);
-
-            Pattern p2 = Pattern.compile("(About this property)(.*?)<h4(.*?)>(.*?)<\\/h4>(.*?)<p(.*?)>(.*?)<\\/p>");
-            String propertyDescription = "";
-            Matcher m2 = p2.matcher(response);
-            if (m2.find()) {
-                propertyDescription = m2.group(4);
-                propertyDescription += System.lineSeparator()+System.lineSeparator();
-                propertyDescription += m2.group(7);
-                propertyDescription = propertyDescription.replace("&#x27;", "'");
+            HotelDetails stored = DescriptionCache.getInstance().get(hotelId);
+            if (stored == null || stored.getAreaDescription() == null) {
+                stored = refreshDescriptions(hotelId);
+                if (stored == null) {
+                    return;
+                }
             }
-            hotelDetails.setPropertyDescription(propertyDescription);
-            hdata.addDescription(hotelId, hotelDetails);
+            HotelDetails hotelDescriptions = new HotelDetails.Builder(hotelDetails)
+                    .setAreaDescription(stored.getAreaDescription())
+                    .setPropertyDescription(stored.getPropertyDescription())
+                    .build();
+            hdata.addDescription(hotelId, hotelDescriptions);
         } else {
             System.out.println("Hotel doesn't exist with id-" + hotelId);
         }
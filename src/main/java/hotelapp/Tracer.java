@@ -0,0 +1,472 @@
+package hotelapp;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Lightweight in-process tracer. Each request gets a Trace with an id; spans opened while it is the current trace
+ * of the thread (DB statements, cache lookups, template merges, attraction finder and upstream calls) are recorded
+ * in it with their offset, duration and nesting. Work handed to other threads keeps the trace by wrapping the task
+ * with wrap.
+ * Finished traces are sampled into a ring buffer of the most recent CAPACITY traces: every trace slower than
+ * SLOW_TRACE_MS is kept and a fraction SAMPLE_RATE of the others. The traces are shown on /debug/traces.
+ * Opening a span without a current trace is a no-op, so background work is not traced.
+ */
+public class Tracer {
+
+	/** Number of traces kept in the ring buffer */
+	public static final int CAPACITY = 256;
+
+	/** Traces at least this slow are always kept */
+	public static final long SLOW_TRACE_MS = 250;
+
+	/** Fraction of the faster traces kept */
+	public static final double SAMPLE_RATE = 0.1;
+
+	/** Spans recorded per trace, further spans are only counted */
+	public static final int MAX_SPANS = 500;
+
+	/** Span returned when there is no current trace */
+	private static final Span NOOP = new Span(null, null, null, null);
+
+	/** Makes sure only one tracer is created. */
+	private static Tracer singleton = new Tracer();
+
+	private final ThreadLocal<Scope> current = new ThreadLocal<>();
+	private final Trace[] traces = new Trace[CAPACITY];
+	private final AtomicLong next = new AtomicLong();
+
+	/**
+	 * Creates the tracer. Private constructor forces all other classes to use singleton.
+	 */
+	private Tracer() {
+	}
+
+	/**
+	 * Gets the single instance of the tracer.
+	 * @return instance of the tracer
+	 */
+	public static Tracer getInstance() {
+		return singleton;
+	}
+
+	/**
+	 * Starts a trace and makes it the current trace of the thread
+	 * @param name name of the trace, e.g. the route of the request
+	 * @return new trace
+	 */
+	public Trace start(String name) {
+		Trace trace = new Trace(name);
+		current.set(new Scope(trace, null));
+		return trace;
+	}
+
+	/**
+	 * Clears the current trace of the thread, without finishing it. Used when a request continues asynchronously.
+	 */
+	public void detach() {
+		current.remove();
+	}
+
+	/**
+	 * Finishes the trace and keeps it in the ring buffer if it is slow or sampled
+	 * @param trace trace to finish
+	 * @param status outcome of the trace, e.g. the status code of the response
+	 */
+	public void finish(Trace trace, int status) {
+		trace.finish(status);
+		if (trace.getDurationMillis() >= SLOW_TRACE_MS || ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE) {
+			traces[(int) (next.getAndIncrement() % CAPACITY)] = trace;
+		}
+	}
+
+	/**
+	 * Returns the current trace of the thread
+	 * @return current trace, null if there is none
+	 */
+	public Trace current() {
+		Scope scope = current.get();
+		return scope != null ? scope.trace : null;
+	}
+
+	/**
+	 * Opens a span in the current trace, nested in the innermost open span. Close it with try-with-resources.
+	 * @param name name of the span, e.g. db or cache
+	 * @param detail what the span did, e.g. the statement or the key looked up
+	 * @return open span, a no-op span if the thread has no current trace
+	 */
+	public Span span(String name, String detail) {
+		Scope scope = current.get();
+		if (scope == null) {
+			return NOOP;
+		}
+		Span span = new Span(scope, scope.span, name, detail);
+		scope.span = span;
+		return span;
+	}
+
+	/**
+	 * Wraps the task so it runs in the current trace and span of the calling thread
+	 * @param task task to run on another thread
+	 * @param <T> type of the result
+	 * @return wrapped task, the task itself if there is no current trace
+	 */
+	public <T> Supplier<T> wrap(Supplier<T> task) {
+		Scope scope = current.get();
+		if (scope == null) {
+			return task;
+		}
+		Scope captured = new Scope(scope.trace, scope.span);
+		return () -> {
+			Scope previous = enter(captured);
+			try {
+				return task.get();
+			} finally {
+				current.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Wraps the callback so it runs in the current trace and span of the calling thread, e.g. the completion
+	 * of a CompletableFuture
+	 * @param callback callback run on another thread
+	 * @param <T> type of the result
+	 * @param <U> type of the exception
+	 * @return wrapped callback, the callback itself if there is no current trace
+	 */
+	public <T, U> BiConsumer<T, U> wrap(BiConsumer<T, U> callback) {
+		Scope scope = current.get();
+		if (scope == null) {
+			return callback;
+		}
+		Scope captured = new Scope(scope.trace, scope.span);
+		return (result, e) -> {
+			Scope previous = enter(captured);
+			try {
+				callback.accept(result, e);
+			} finally {
+				current.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Makes the trace and span of the scope current on this thread
+	 * @param scope scope captured on another thread, copied so spans opened here do not change it
+	 * @return previous scope of this thread, to be restored
+	 */
+	private Scope enter(Scope scope) {
+		Scope previous = current.get();
+		current.set(new Scope(scope.trace, scope.span));
+		return previous;
+	}
+
+	/**
+	 * Returns the traces in the ring buffer
+	 * @return kept traces, most recent first
+	 */
+	public List<Trace> getRecentTraces() {
+		List<Trace> recent = new ArrayList<>();
+		for (Trace trace : traces) {
+			if (trace != null) {
+				recent.add(trace);
+			}
+		}
+		recent.sort(Comparator.comparingLong(Trace::getStartMillis).reversed());
+		return recent;
+	}
+
+	/**
+	 * Returns the trace with the id, if it is still in the ring buffer
+	 * @param id trace id
+	 * @return trace, null if it was not kept or was overwritten
+	 */
+	public Trace getTrace(String id) {
+		for (Trace trace : traces) {
+			if (trace != null && trace.getId().equals(id)) {
+				return trace;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Trace of a thread: the trace and the innermost open span
+	 */
+	private static class Scope {
+		private final Trace trace;
+		private Span span;
+
+		private Scope(Trace trace, Span span) {
+			this.trace = trace;
+			this.span = span;
+		}
+	}
+
+	/**
+	 * Trace of one request: its id, name, timing and spans
+	 */
+	public static class Trace {
+		private final String id;
+		private final String name;
+		private final long startMillis;
+		private final long startNanos;
+		private final List<Span> spans = new ArrayList<>();
+		private int droppedSpans;
+		private volatile long durationNanos = -1;
+		private volatile int status;
+
+		private Trace(String name) {
+			this.id = String.format("%016x", ThreadLocalRandom.current().nextLong());
+			this.name = name;
+			this.startMillis = System.currentTimeMillis();
+			this.startNanos = System.nanoTime();
+		}
+
+		private void finish(int status) {
+			this.status = status;
+			this.durationNanos = System.nanoTime() - startNanos;
+		}
+
+		private synchronized void add(Span span) {
+			if (spans.size() < MAX_SPANS) {
+				spans.add(span);
+			} else {
+				droppedSpans++;
+			}
+		}
+
+		/**
+		 * Returns the id of the trace
+		 * @return 16 hex digits
+		 */
+		public String getId() {
+			return id;
+		}
+
+		/**
+		 * Returns the name of the trace
+		 * @return route of the request
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the time the trace started
+		 * @return time in milliseconds since the epoch
+		 */
+		public long getStartMillis() {
+			return startMillis;
+		}
+
+		/**
+		 * Returns the duration of the trace
+		 * @return duration in milliseconds, -1 if the trace is not finished
+		 */
+		public double getDurationMillis() {
+			return durationNanos < 0 ? -1 : durationNanos / 1e6;
+		}
+
+		/**
+		 * Returns the duration of the trace for display
+		 * @return duration in milliseconds with one decimal
+		 */
+		public String getFormattedDuration() {
+			return String.format("%.1f", getDurationMillis());
+		}
+
+		/**
+		 * Returns the time the trace started for display
+		 * @return local time with milliseconds
+		 */
+		public String getFormattedStart() {
+			return new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(startMillis));
+		}
+
+		/**
+		 * Returns the outcome of the trace
+		 * @return status code of the response
+		 */
+		public int getStatus() {
+			return status;
+		}
+
+		/**
+		 * Returns the closed spans of the trace
+		 * @return spans in the order they started
+		 */
+		public synchronized List<Span> getSpans() {
+			List<Span> sorted = new ArrayList<>(spans);
+			sorted.sort(Comparator.comparingLong(span -> span.startNanos));
+			return Collections.unmodifiableList(sorted);
+		}
+
+		/**
+		 * Returns the number of spans not recorded because the trace had MAX_SPANS already
+		 * @return number of dropped spans
+		 */
+		public synchronized int getDroppedSpans() {
+			return droppedSpans;
+		}
+
+		/**
+		 * Returns the number of spans with the name, with the time spent in them
+		 * @param spanName name of the spans, e.g. db
+		 * @return count and total milliseconds, e.g. "12 / 40.12 ms"
+		 */
+		public synchronized String summarize(String spanName) {
+			int count = 0;
+			long nanos = 0;
+			for (Span span : spans) {
+				if (span.name.equals(spanName)) {
+					count++;
+					nanos += span.durationNanos;
+				}
+			}
+			return String.format("%d / %.2f ms", count, nanos / 1e6);
+		}
+	}
+
+	/**
+	 * Timed operation within a trace. Closing the span records it in its trace.
+	 */
+	public static class Span implements AutoCloseable {
+		private final Scope scope;
+		private final Span parent;
+		private final String name;
+		private final String thread;
+		private final int depth;
+		private final long startNanos;
+		private volatile String detail;
+		private volatile long durationNanos = -1;
+
+		private Span(Scope scope, Span parent, String name, String detail) {
+			this.scope = scope;
+			this.parent = parent;
+			this.name = name;
+			this.detail = detail;
+			this.thread = Thread.currentThread().getName();
+			this.depth = parent != null ? parent.depth + 1 : 0;
+			this.startNanos = System.nanoTime();
+		}
+
+		/**
+		 * Replaces the detail of the span, e.g. with the result of a cache lookup
+		 * @param detail what the span did
+		 */
+		public void setDetail(String detail) {
+			this.detail = detail;
+		}
+
+		/**
+		 * Ends the span and records it in its trace
+		 */
+		@Override
+		public void close() {
+			if (scope == null || durationNanos >= 0) {
+				return;
+			}
+			durationNanos = System.nanoTime() - startNanos;
+			if (scope.span == this) {
+				scope.span = parent;
+			}
+			scope.trace.add(this);
+		}
+
+		/**
+		 * Returns the name of the span
+		 * @return name, e.g. db
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the detail of the span
+		 * @return what the span did, may be null
+		 */
+		public String getDetail() {
+			return detail;
+		}
+
+		/**
+		 * Returns the thread the span ran on
+		 * @return thread name
+		 */
+		public String getThread() {
+			return thread;
+		}
+
+		/**
+		 * Returns the nesting depth of the span
+		 * @return 0 for spans not nested in another span
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Returns the time from the start of the trace to the start of the span
+		 * @return offset in milliseconds
+		 */
+		public double getOffsetMillis() {
+			return (startNanos - scope.trace.startNanos) / 1e6;
+		}
+
+		/**
+		 * Returns the duration of the span
+		 * @return duration in milliseconds
+		 */
+		public double getDurationMillis() {
+			return durationNanos / 1e6;
+		}
+
+		/**
+		 * Returns the offset of the span for display
+		 * @return offset in milliseconds with two decimals
+		 */
+		public String getFormattedOffset() {
+			return String.format("%.2f", getOffsetMillis());
+		}
+
+		/**
+		 * Returns the duration of the span for display
+		 * @return duration in milliseconds with two decimals
+		 */
+		public String getFormattedDuration() {
+			return String.format("%.2f", getDurationMillis());
+		}
+
+		/**
+		 * Returns where the span starts in its trace, to draw it as a bar
+		 * @return offset in percent of the duration of the trace
+		 */
+		public String getOffsetPercent() {
+			return String.format(Locale.ROOT, "%.2f", percentOfTrace(startNanos - scope.trace.startNanos));
+		}
+
+		/**
+		 * Returns how much of its trace the span takes, to draw it as a bar
+		 * @return duration in percent of the duration of the trace, at least 0.2 so short spans are visible
+		 */
+		public String getWidthPercent() {
+			return String.format(Locale.ROOT, "%.2f", Math.max(0.2, percentOfTrace(durationNanos)));
+		}
+
+		private double percentOfTrace(long nanos) {
+			long traceNanos = scope.trace.durationNanos;
+			return traceNanos <= 0 ? 0 : Math.min(100, 100.0 * nanos / traceNanos);
+		}
+	}
+}
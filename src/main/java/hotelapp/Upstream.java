@@ -0,0 +1,215 @@
+package hotelapp;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Guards the calls to one upstream service (Google Places API, expedia).
+ * Calls run on a bulkhead: a pool of at most maxConcurrentCalls threads with a queue of the same size, so a slow
+ * upstream can not take more threads than that and further calls fail fast. Each call has a deadline covering the
+ * whole call, after which it is cancelled. Failures and timeouts are recorded by a CircuitBreaker, which makes
+ * calls fail fast while the upstream is failing.
+ * Calls that fail for any of these reasons return null, so callers fall back to cached or empty results.
+ * Each call is committed as a JfrEvents.OutboundEvent with its outcome and is an "upstream" span of the current trace.
+ */
+public class Upstream {
+
+	/** Number of recent calls the failure rate is computed on */
+	private static final int WINDOW_SIZE = 20;
+
+	/** Number of calls recorded before the breaker can open */
+	private static final int MINIMUM_CALLS = 5;
+
+	/** Failure rate that opens the breaker */
+	private static final double FAILURE_RATE_THRESHOLD = 0.5;
+
+	/** Time calls fail fast once the breaker is open */
+	private static final long OPEN_DURATION_MS = 30000;
+
+	private final String name;
+	private final long deadlineMs;
+	private final CircuitBreaker breaker;
+	private final ThreadPoolExecutor bulkhead;
+
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong shortCircuited = new AtomicLong();
+
+	/**
+	 * Constructor of this class
+	 * @param name name of the upstream, used for thread names and in the log
+	 * @param maxConcurrentCalls maximum number of calls running at the same time
+	 * @param deadlineMs maximum time of a call, from the time it is made until the result is read
+	 */
+	public Upstream(String name, int maxConcurrentCalls, long deadlineMs) {
+		this.name = name;
+		this.deadlineMs = deadlineMs;
+		this.breaker = new CircuitBreaker(name, WINDOW_SIZE, MINIMUM_CALLS, FAILURE_RATE_THRESHOLD, OPEN_DURATION_MS);
+		AtomicInteger threadCount = new AtomicInteger();
+		this.bulkhead = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(maxConcurrentCalls), r -> {
+					Thread thread = new Thread(r, name + "-call-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		registerMetrics();
+	}
+
+	/**
+	 * Makes the call on the bulkhead and waits for it until the deadline.
+	 * @param call call to the upstream
+	 * @param <T> type of the result
+	 * @return result of the call, null if the breaker is open, the bulkhead is full, the call failed or
+	 * took longer than the deadline
+	 */
+	public <T> T call(Callable<T> call) {
+		JfrEvents.OutboundEvent event = new JfrEvents.OutboundEvent();
+		event.begin();
+		String outcome = "failed";
+		Tracer.Span span = Tracer.getInstance().span("upstream", name);
+		try {
+			if (!breaker.tryAcquire()) {
+				shortCircuited.incrementAndGet();
+				outcome = "short_circuited";
+				return null;
+			}
+			Future<T> future;
+			try {
+				future = bulkhead.submit(call);
+			} catch (RejectedExecutionException e) {
+				rejected.incrementAndGet();
+				breaker.onCancelled();
+				outcome = "rejected";
+				return null;
+			}
+			calls.incrementAndGet();
+			try {
+				T result = future.get(deadlineMs, TimeUnit.MILLISECONDS);
+				breaker.onSuccess();
+				outcome = "ok";
+				return result;
+			} catch (TimeoutException e) {
+				future.cancel(true);
+				timeouts.incrementAndGet();
+				breaker.onFailure();
+				outcome = "timeout";
+				System.out.println("Call to " + name + " timed out after " + deadlineMs + " ms");
+			} catch (ExecutionException e) {
+				failures.incrementAndGet();
+				breaker.onFailure();
+				System.out.println("Call to " + name + " failed: " + e.getCause());
+			} catch (InterruptedException e) {
+				future.cancel(true);
+				breaker.onCancelled();
+				outcome = "interrupted";
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		} finally {
+			span.setDetail(name + " " + outcome);
+			span.close();
+			event.end();
+			if (event.shouldCommit()) {
+				event.upstream = name;
+				event.outcome = outcome;
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * Publishes the counts of the calls and the state of the breaker to the MetricsRegistry
+	 */
+	private void registerMetrics() {
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		registry.counter("upstream_calls_total", "Calls made to the upstream", calls::get, "upstream", name);
+		registry.counter("upstream_failures_total", "Calls to the upstream that failed", failures::get, "upstream", name);
+		registry.counter("upstream_timeouts_total", "Calls to the upstream cancelled at their deadline", timeouts::get,
+				"upstream", name);
+		registry.counter("upstream_rejected_total", "Calls not made because the bulkhead was full", rejected::get,
+				"upstream", name);
+		registry.counter("upstream_short_circuited_total", "Calls not made because the circuit breaker was open",
+				shortCircuited::get, "upstream", name);
+		registry.gauge("upstream_in_flight", "Calls running or waiting on the bulkhead", this::getInFlight, "upstream", name);
+		registry.gauge("circuit_breaker_state", "State of the circuit breaker: 0 closed, 1 open, 2 half open",
+				() -> breaker.getState().ordinal(), "upstream", name);
+		for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+			registry.counter("circuit_breaker_transitions_total", "Transitions of the circuit breaker, by state entered",
+					() -> breaker.getTransitions(state), "upstream", name, "state", state.name().toLowerCase());
+		}
+	}
+
+	/**
+	 * Returns the name of the upstream
+	 * @return name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the circuit breaker of the upstream
+	 * @return circuit breaker, with its state and transition counts
+	 */
+	public CircuitBreaker getBreaker() {
+		return breaker;
+	}
+
+	/**
+	 * Returns the number of calls made
+	 * @return number of calls that ran on the bulkhead
+	 */
+	public long getCalls() {
+		return calls.get();
+	}
+
+	/**
+	 * Returns the number of calls that threw an exception
+	 * @return number of failed calls
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+
+	/**
+	 * Returns the number of calls cancelled at their deadline
+	 * @return number of timed out calls
+	 */
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+
+	/**
+	 * Returns the number of calls not made because the bulkhead was full
+	 * @return number of rejected calls
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * Returns the number of calls not made because the breaker was open
+	 * @return number of short circuited calls
+	 */
+	public long getShortCircuited() {
+		return shortCircuited.get();
+	}
+
+	/**
+	 * Returns the number of calls running or waiting on the bulkhead
+	 * @return number of calls in flight
+	 */
+	public int getInFlight() {
+		return bulkhead.getActiveCount() + bulkhead.getQueue().size();
+	}
+}
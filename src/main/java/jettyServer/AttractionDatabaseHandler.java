@@ -0,0 +1,230 @@
+package jettyServer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import hotelapp.AttractionCache;
+import hotelapp.AttractionRef;
+import hotelapp.AttractionStore;
+import hotelapp.TouristAttraction;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handles hotel_attractions DB table.
+ * Stores the attractions fetched from Google Places API for a hotel and radius bucket,
+ * so cached results survive a restart of the server.
+ */
+public class AttractionDatabaseHandler {
+
+	/** Makes sure only one database handler is instantiated. */
+	private static AttractionDatabaseHandler singleton = new AttractionDatabaseHandler();
+
+	/** Used to determine if necessary tables are provided. */
+	private static final String TABLES_SQL =
+			"SHOW TABLES LIKE 'hotel_attractions';";
+
+	/** Used to create hotel_attractions table. */
+	private static final String CREATE_SQL =
+			"CREATE TABLE hotel_attractions (" +
+			"hotelid VARCHAR(10) NOT NULL, " +
+			"radius INTEGER NOT NULL, " +
+			"fetched BIGINT NOT NULL, " +
+			"attractions MEDIUMTEXT NOT NULL, " +
+			"PRIMARY KEY (hotelid, radius));";
+
+	/** Used to insert or replace the attractions of a hotel and radius. */
+	private static final String UPSERT_SQL =
+			"INSERT INTO hotel_attractions (hotelid, radius, fetched, attractions) VALUES (?, ?, ?, ?) " +
+			"ON DUPLICATE KEY UPDATE fetched = VALUES(fetched), attractions = VALUES(attractions);";
+
+	/** Used to get the attractions of a hotel at every radius. */
+	private static final String ATTRACTIONS_SQL =
+			"SELECT radius, fetched, attractions FROM hotel_attractions WHERE hotelid = ?";
+
+	/** Used to configure connection to database. */
+	private DatabaseConnector db;
+
+	/** Writes NaN for attractions without location */
+	private final Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+
+	/**
+	 * Initializes a database handler for the attractions. Private constructor
+	 * forces all other classes to use singleton.
+	 */
+	private AttractionDatabaseHandler() {
+		Status status = Status.OK;
+
+		try {
+			db = new DatabaseConnector(DatabaseConnector.configPath(), AttractionDatabaseHandler.class);
+			status = db.testConnection() ? setupTables() : Status.CONNECTION_FAILED;
+		}
+		catch (FileNotFoundException e) {
+			status = Status.MISSING_CONFIG;
+		}
+		catch (IOException e) {
+			status = Status.MISSING_VALUES;
+		}
+
+		if (status != Status.OK) {
+			System.err.println(status.message());
+			db = null;
+		}
+	}
+
+	/**
+	 * Gets the single instance of the database handler.
+	 *
+	 * @return instance of the database handler
+	 */
+	public static AttractionDatabaseHandler getInstance() {
+		return singleton;
+	}
+
+	/**
+	 * Checks if necessary table exists in database, and if not tries to
+	 * create it.
+	 *
+	 */
+	private Status setupTables() {
+		Status status = Status.ERROR;
+
+		try (
+				Connection connection = db.getConnection();
+				Statement statement = connection.createStatement();
+		) {
+			if (!statement.executeQuery(TABLES_SQL).next()) {
+				// Table missing, must create
+				System.out.println("Creating tables...");
+				statement.executeUpdate(CREATE_SQL);
+
+				// Check if create was successful
+				if (!statement.executeQuery(TABLES_SQL).next()) {
+					status = Status.CREATE_FAILED;
+				}
+				else {
+					status = Status.OK;
+				}
+			}
+			else {
+				System.out.println("Tables found.");
+				status = Status.OK;
+			}
+		}
+		catch (Exception ex) {
+			status = Status.CREATE_FAILED;
+			System.err.println(status + " " + ex);
+		}
+
+		return status;
+	}
+
+	/**
+	 * Saves the attractions of a hotel and radius, replacing the previously saved ones.
+	 * @param hotelId - hotel id
+	 * @param radius - radius bucket in miles
+	 * @param entry - attractions and the time they were fetched
+	 * @return Status.OK if the attractions were saved
+	 */
+	public Status saveAttractions(String hotelId, int radius, AttractionCache.Entry entry) {
+		Status status = Status.ERROR;
+		if (db == null) {
+			return Status.CONNECTION_FAILED;
+		}
+
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(UPSERT_SQL);
+		) {
+			statement.setString(1, hotelId);
+			statement.setInt(2, radius);
+			statement.setLong(3, entry.getFetched());
+			statement.setString(4, toJson(entry));
+			statement.executeUpdate();
+			status = Status.OK;
+		}
+		catch (SQLException ex) {
+			status = Status.SQL_EXCEPTION;
+			System.err.println(status + " " + ex);
+		}
+
+		return status;
+	}
+
+	/**
+	 * Gets the saved attractions of a hotel at every radius bucket.
+	 * @param hotelId - hotel id
+	 * @return attractions and the time they were fetched by radius bucket, empty if nothing is saved
+	 */
+	public Map<Integer, AttractionCache.Entry> getAttractions(String hotelId) {
+		Map<Integer, AttractionCache.Entry> entries = new HashMap<>();
+		if (db == null) {
+			return entries;
+		}
+
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(ATTRACTIONS_SQL);
+		) {
+			statement.setString(1, hotelId);
+			ResultSet results = statement.executeQuery();
+			while (results.next()) {
+				entries.put(results.getInt(1), new AttractionCache.Entry(fromJson(results.getString(3)), results.getLong(2)));
+			}
+		}
+		catch (SQLException ex) {
+			System.err.println(Status.SQL_EXCEPTION + " " + ex);
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Serializes the attractions of the entry as a json array of attractions with their distance
+	 * @param entry cache entry
+	 * @return json array
+	 */
+	private String toJson(AttractionCache.Entry entry) {
+		JsonArray array = new JsonArray();
+		List<AttractionRef> attractionRefs = entry.getAttractionRefs();
+		List<TouristAttraction> attractions = entry.getAttractions();
+		for (int i = 0; i < attractionRefs.size(); i++) {
+			AttractionRef ref = attractionRefs.get(i);
+			JsonObject object = gson.toJsonTree(attractions.get(i)).getAsJsonObject();
+			if (!Double.isNaN(ref.getDistance())) {
+				object.addProperty("distance", ref.getDistance());
+			}
+			array.add(object);
+		}
+		return gson.toJson(array);
+	}
+
+	/**
+	 * Adds the serialized attractions to the AttractionStore
+	 * @param json json array of attractions with their distance
+	 * @return references to the attractions
+	 */
+	private List<AttractionRef> fromJson(String json) {
+		List<AttractionRef> attractionRefs = new ArrayList<>();
+		for (JsonElement element : new JsonParser().parse(json).getAsJsonArray()) {
+			JsonObject object = element.getAsJsonObject();
+			TouristAttraction attraction = gson.fromJson(object, TouristAttraction.class);
+			if (!object.has("latitude") || !object.has("longitude")) {
+				// saved before attractions had a location
+				attraction = new TouristAttraction(attraction.getId(), attraction.getName(), attraction.getRating(), attraction.getAddress());
+			}
+			double distance = object.has("distance") ? object.get("distance").getAsDouble() : Double.NaN;
+			attractionRefs.add(AttractionStore.getInstance().add(attraction, distance));
+		}
+		return attractionRefs;
+	}
+}
@@ -1,14 +1,17 @@
 package jettyServer;
 
+import hotelapp.AttractionSort;
 import hotelapp.HotelDetails;
-import hotelapp.ThreadSafeHotelData;
-import hotelapp.TouristAttraction;
 import hotelapp.TouristAttractionFinder;
+import hotelapp.Tracer;
 import org.apache.commons.text.StringEscapeUtils;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -17,27 +20,35 @@ import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Attractions servlet to handle attractions related requests.
- * Uses ThreadSafeHotelData class to fetch attractions based on hotelId and radius.
+ * Uses TouristAttractionFinder to get cached attractions based on hotelId and radius,
+ * sorted by distance or rating.
  */
 @SuppressWarnings("serial")
 public class AttractionsServlet extends HttpServlet {
 	
-	private ThreadSafeHotelData hotelData;
+	/** Time to wait for the attractions before rendering the fallback page */
+	private static final long ASYNC_TIMEOUT_MS = 5000;
+	
+	private TouristAttractionFinder attractionFinder;
 	
 	/**
 	 * Constructor of this Servlet class
-	 * @param data ThreadSafeHotelData instance to fetch attractions
+	 * @param attractionFinder finder shared by all requests to fetch attractions
 	 */
-	public AttractionsServlet(ThreadSafeHotelData data) {
-		hotelData = data;
+	public AttractionsServlet(TouristAttractionFinder attractionFinder) {
+		this.attractionFinder = attractionFinder;
 	}
 	
 	/**
 	 * Processes GET request related to attractions and sends HTML response to the client.
+	 * The request is processed asynchronously: the hotel and attractions are looked up on the finder's threads
+	 * and the page is rendered when they arrive, so the Jetty thread is not blocked by the DB or the Places API.
+	 * If the attractions do not arrive within ASYNC_TIMEOUT_MS or can not be fetched a fallback page is rendered
+	 * instead, with status 504 or 502. An unknown hotel gets 404.
 	 * Sets appropriate status headers.
 	 * @param request request read from client's input stream
 	 * @param response response written to client's output stream
@@ -53,42 +64,135 @@ public class AttractionsServlet extends HttpServlet {
 		
 		if(user == null) {
 			response.sendRedirect("/login");
+			return;
 		}
 		response.setContentType("text/html");
-		PrintWriter out = response.getWriter();
 		
 		String hotelId = StringEscapeUtils.escapeHtml4(request.getParameter("hotelId"));
 		VelocityEngine ve = (VelocityEngine) request.getServletContext().getAttribute("templateEngine");
-		VelocityContext context = new VelocityContext();
 		Template template = ve.getTemplate("templates/attractions.html");
 		
-		if (hotelId != null) {
-			Integer radius = 2;
-			try {
-				radius = Integer.parseInt(StringEscapeUtils.escapeHtml4(request.getParameter("radius")));
-			} catch (Exception e) {
-				System.err.println("Invalid parameter: radius = " + radius);
+		if (hotelId == null) {
+			render(response, template, new VelocityContext());
+			return;
+		}
+		
+		int radius = 2;
+		try {
+			radius = Integer.parseInt(StringEscapeUtils.escapeHtml4(request.getParameter("radius")));
+		} catch (Exception e) {
+			System.err.println("Invalid parameter: radius = " + radius);
+		}
+		int requestedRadius = radius;
+		AttractionSort sort = AttractionSort.fromString(request.getParameter("sort"));
+		String sortName = sort.name().toLowerCase();
+		
+		AsyncContext async = request.startAsync();
+		async.setTimeout(ASYNC_TIMEOUT_MS);
+		// the page is rendered and the request completed under this lock, so a timeout that fires while the
+		// attractions are being rendered waits for them instead of returning before the request is completed
+		Object lock = new Object();
+		boolean[] completed = new boolean[1];
+		async.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) throws IOException {
+				synchronized (lock) {
+					if (!completed[0]) {
+						completed[0] = true;
+						renderFallback(response, template, hotelId, requestedRadius, sortName,
+								HttpServletResponse.SC_GATEWAY_TIMEOUT);
+						async.complete();
+					}
+				}
 			}
 			
-			HotelBaseServlet hbServlet = new HotelBaseServlet();
-			HotelDetails hotelDetails = hbServlet.getHotelById(hotelId);
+			@Override
+			public void onComplete(AsyncEvent event) {
+			}
 			
-			TouristAttractionFinder attractionFinder = new TouristAttractionFinder(hotelData);
-			System.out.println("Radius:" + radius);
-			attractionFinder.fetchAttractions(hotelId, radius);
-			List<TouristAttraction> attractions = hotelData.findAttractionsByHotelID(hotelId);
-			if (attractions != null) {
-				context.put("name", hotelDetails.getName());
-				context.put("radius", radius);
-				context.put("attractions", attractions);
-				context.put("hotelId", hotelId);
-				response.setStatus(HttpServletResponse.SC_OK);
-				
+			@Override
+			public void onError(AsyncEvent event) {
 			}
-		}
+			
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+			}
+		});
+		
+		// the hotel and the attractions are looked up on the finder threads when they are not in memory
+		CompletableFuture<HotelDetails> hotel = attractionFinder.findHotelAsync(hotelId);
+		hotel.thenCompose(hotelDetails -> hotelDetails == null ? CompletableFuture.completedFuture(null)
+				: attractionFinder.findAttractionsAsync(hotelDetails, requestedRadius, sort))
+				.whenComplete(Tracer.getInstance().wrap((attractions, e) -> {
+			synchronized (lock) {
+				if (completed[0]) {
+					return;
+				}
+				completed[0] = true;
+				try {
+					HotelDetails hotelDetails = e == null ? hotel.getNow(null) : null;
+					if (e == null && hotelDetails == null) {
+						response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+						render(response, template, new VelocityContext());
+					}
+					else if (e != null || attractions == null) {
+						System.err.println("Could not fetch attractions: " + e);
+						renderFallback(response, template, hotelId, requestedRadius, sortName,
+								HttpServletResponse.SC_BAD_GATEWAY);
+					}
+					else {
+						VelocityContext context = new VelocityContext();
+						context.put("name", hotelDetails.getName());
+						context.put("radius", requestedRadius);
+						context.put("sort", sortName);
+						context.put("attractions", attractions);
+						context.put("hotelId", hotelId);
+						response.setStatus(HttpServletResponse.SC_OK);
+						render(response, template, context);
+					}
+				} catch (Exception ex) {
+					System.err.println(ex);
+				} finally {
+					async.complete();
+				}
+			}
+		}));
+	}
+	
+	/**
+	 * Renders the page asking the user to refresh, when the attractions did not arrive in time or could not
+	 * be fetched
+	 * @param response response written to client's output stream
+	 * @param template attractions template
+	 * @param hotelId id of the hotel
+	 * @param radius radius of the request
+	 * @param sortName sort order of the request
+	 * @param status status of the response
+	 * @throws IOException if the response can not be written
+	 */
+	private void renderFallback(HttpServletResponse response, Template template, String hotelId, int radius,
+	                            String sortName, int status) throws IOException {
+		VelocityContext context = new VelocityContext();
+		context.put("hotelId", hotelId);
+		context.put("radius", radius);
+		context.put("sort", sortName);
+		context.put("timedOut", true);
+		response.setStatus(status);
+		render(response, template, context);
+	}
+	
+	/**
+	 * Merges the template with the context and writes it to the response
+	 * @param response response written to client's output stream
+	 * @param template attractions template
+	 * @param context velocity context
+	 * @throws IOException if the response can not be written
+	 */
+	private void render(HttpServletResponse response, Template template, VelocityContext context) throws IOException {
 		StringWriter writer = new StringWriter();
 		template.merge(context, writer);
 		
+		PrintWriter out = response.getWriter();
 		out.println(writer.toString());
 	}
 	
@@ -1,11 +1,17 @@
 package jettyServer;
 
+import hotelapp.MetricsRegistry;
+
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.sql.*;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.InvalidPropertiesFormatException;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
@@ -27,15 +33,37 @@ public class DatabaseConnector {
 	/** Properties with username and password for connecting to database. */
 	private final Properties login;
 	
+	/** Properties file used by the handlers, unless another one is given with -Ddatabase.config=path. */
+	public static final String DEFAULT_CONFIG = "database.properties";
+	
+	/** System property with the path of the properties file used by the handlers. */
+	public static final String CONFIG_PROPERTY = "database.config";
+	
+	/** Statements slower than this are logged, unless slowQueryMillis is set in the properties file. */
+	public static final long DEFAULT_SLOW_QUERY_MILLIS = 200;
+	
+	/** Times the statements of the connections, named by the SQL constants of the handler. */
+	private final JdbcInstrumentation instrumentation;
+	
 	/**
 	 * Creates a connector from a "database.properties" file located in the
-	 * current working directory.
+	 * current working directory, or from the file of the database.config
+	 * system property.
 	 *
 	 * @throws IOException if unable to properly parse properties file
 	 * @throws FileNotFoundException if properties file not found
 	 */
 	public DatabaseConnector() throws FileNotFoundException, IOException {
-		this("database.properties");
+		this(configPath());
+	}
+	
+	/**
+	 * Returns the path of the properties file used by the handlers.
+	 *
+	 * @return value of the database.config system property, "database.properties" if it is not set
+	 */
+	public static String configPath() {
+		return System.getProperty(CONFIG_PROPERTY, DEFAULT_CONFIG);
 	}
 	
 	/**
@@ -47,25 +75,79 @@ public class DatabaseConnector {
 	 */
 	public DatabaseConnector(String configPath)
 			throws FileNotFoundException, IOException {
+		this(configPath, null);
+	}
+	
+	/**
+	 * Creates a connector from the provided database properties file, naming the
+	 * statements of its connections by the *_SQL constants of the handler.
+	 *
+	 * @param configPath path to the database properties file
+	 * @param handler class declaring the SQL constants, may be null
+	 * @throws IOException if unable to properly parse properties file
+	 * @throws FileNotFoundException if properties file not found
+	 */
+	public DatabaseConnector(String configPath, Class<?> handler)
+			throws FileNotFoundException, IOException {
 		
 		// Try to load the configuration from file
 		Properties config = loadConfig(configPath);
 		
-		// Create database URI in proper format
-		uri = String.format("jdbc:mysql://%s/%s",
-				config.getProperty("hostname"),
-				config.getProperty("database"))+ "?serverTimezone=UTC";
+		// Create database URI in proper format, unless the full URI is given
+		if (config.getProperty("uri") != null) {
+			uri = config.getProperty("uri").trim();
+		}
+		else {
+			uri = String.format("jdbc:mysql://%s/%s",
+					config.getProperty("hostname"),
+					config.getProperty("database"))+ "?serverTimezone=UTC";
+		}
 		
 		System.out.println("uri = " + uri);
 		// Create database login properties
 		login = new Properties();
 		login.put("user", config.getProperty("username"));
 		login.put("password", config.getProperty("password"));
+		
+		long slowQueryMillis = DEFAULT_SLOW_QUERY_MILLIS;
+		try {
+			slowQueryMillis = Long.parseLong(config.getProperty("slowQueryMillis", String.valueOf(DEFAULT_SLOW_QUERY_MILLIS)).trim());
+		} catch (NumberFormatException e) {
+			System.out.println("Invalid slowQueryMillis, using " + DEFAULT_SLOW_QUERY_MILLIS);
+		}
+		instrumentation = new JdbcInstrumentation(statementNames(handler), slowQueryMillis);
+	}
+	
+	/**
+	 * Reads the static final *_SQL string constants of the handler.
+	 *
+	 * @param handler class declaring the SQL constants, may be null
+	 * @return names of the constants ("Handler.CONSTANT_SQL") by their SQL
+	 */
+	private static Map<String, String> statementNames(Class<?> handler) {
+		Map<String, String> names = new HashMap<>();
+		if (handler == null) {
+			return names;
+		}
+		for (Field field : handler.getDeclaredFields()) {
+			int modifiers = field.getModifiers();
+			if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers) && field.getType() == String.class
+					&& field.getName().endsWith("_SQL")) {
+				try {
+					field.setAccessible(true);
+					names.put((String) field.get(null), handler.getSimpleName() + "." + field.getName());
+				} catch (IllegalAccessException | RuntimeException e) {
+					System.out.println("Could not read " + field.getName() + ": " + e);
+				}
+			}
+		}
+		return names;
 	}
 	
 	/**
 	 * Attempts to load properties file with database configuration. Must
-	 * include username, password, database, and hostname.
+	 * include username, password, database, and hostname, or username,
+	 * password and the full JDBC uri.
 	 *
 	 * @param configPath path to database properties file
 	 * @return database properties
@@ -79,12 +161,14 @@ public class DatabaseConnector {
 		Set<String> required = new HashSet<>();
 		required.add("username");
 		required.add("password");
-		required.add("database");
-		required.add("hostname");
 		
 		// Load properties file
 		Properties config = new Properties();
 		config.load(new FileReader(configPath));
+		if (!config.containsKey("uri")) {
+			required.add("database");
+			required.add("hostname");
+		}
 		
 		// Check that required keys are present
 		if (!config.keySet().containsAll(required)) {
@@ -96,14 +180,23 @@ public class DatabaseConnector {
 	}
 	
 	/**
-	 * Attempts to connect to database using loaded configuration.
+	 * Attempts to connect to database using loaded configuration. The
+	 * statements of the connection are timed by JdbcInstrumentation.
 	 *
 	 * @return database connection
 	 * @throws SQLException if unable to establish database connection
 	 */
 	public Connection getConnection() throws SQLException {
-		Connection dbConnection = DriverManager.getConnection(uri, login);
-		return dbConnection;
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		long start = System.nanoTime();
+		try {
+			Connection dbConnection = DriverManager.getConnection(uri, login);
+			registry.histogram("db_connection_open_seconds", "Time to open a database connection").recordNanos(System.nanoTime() - start);
+			return instrumentation.wrap(dbConnection);
+		} catch (SQLException e) {
+			registry.counter("db_connection_errors_total", "Database connections that could not be opened").increment();
+			throw e;
+		}
 	}
 	
 	/**
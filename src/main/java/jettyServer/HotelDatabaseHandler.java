@@ -69,10 +69,28 @@ public class HotelDatabaseHandler {
 	private static final String ALLHOTELS_SQL =
 			"SELECT id, name, street, city, state, latitude, longitude FROM hotel_details";
 	
+	/** Used to get the ids of all hotels from the database. */
+	private static final String HOTEL_IDS_SQL =
+			"SELECT id FROM hotel_details ORDER BY id";
+	
 	/** Used to get hotel by id from the database. */
 	private static final String HOTEL_BY_ID_SQL =
 			"SELECT id, name, street, city, state, latitude, longitude FROM hotel_details WHERE id = ?";
-			
+	
+	/** Used to get hotel by id with its descriptions from the database. */
+	private static final String HOTEL_WITH_DESCRIPTIONS_SQL =
+			"SELECT id, name, street, city, state, latitude, longitude, areadesc, propertydesc FROM hotel_details WHERE id = ?";
+	
+	/** Used to store the descriptions scraped from the expedia page of a hotel. */
+	private static final String UPDATE_DESCRIPTIONS_SQL =
+			"UPDATE hotel_details SET areadesc = ?, propertydesc = ? WHERE id = ?";
+	
+	/** Used to get the ids of the hotels whose descriptions were never fetched. */
+	private static final String HOTEL_IDS_WITHOUT_DESCRIPTIONS_SQL =
+			"SELECT id FROM hotel_details WHERE areadesc IS NULL ORDER BY id";
+	
+	/** Size of the areadesc and propertydesc columns */
+	private static final int MAX_DESCRIPTION_LENGTH = 4000;
 	
 	/** Used to configure connection to database. */
 	private DatabaseConnector db;
@@ -85,7 +103,7 @@ public class HotelDatabaseHandler {
 		Status status = Status.OK;
 		
 		try {
-			db = new DatabaseConnector("database.properties");
+			db = new DatabaseConnector(DatabaseConnector.configPath(), HotelDatabaseHandler.class);
 			status = db.testConnection() ? setupTables() : Status.CONNECTION_FAILED;
 		}
 		catch (FileNotFoundException e) {
@@ -440,7 +458,9 @@ public class HotelDatabaseHandler {
 				List<HotelDetails> hotels = new ArrayList<>();
 				while (results.next()) {
 					HotelDetails hotel = new HotelDetails(results.getString(1), results.getString(2), results.getString(3), results.getString(4), results.getString(5));
-					hotel.setAvgRating(df.format(reviewBaseServlet.getAvgRating(hotel.getId())));
+					hotel = new HotelDetails.Builder(hotel)
+							.setAvgRating(df.format(reviewBaseServlet.getAvgRating(hotel.getId())))
+							.build();
 					hotels.add(hotel);
 				}
 				return hotels;
@@ -523,7 +543,8 @@ public class HotelDatabaseHandler {
 			if (results != null) {
 				List<HotelDetails> hotels = new ArrayList<>();
 				while (results.next()) {
-					HotelDetails hotel = new HotelDetails(results.getString(2), results.getDouble(6), results.getDouble(7));
+					HotelDetails hotel = new HotelDetails(results.getString(1), results.getString(2), results.getString(3),
+							results.getString(4), results.getString(5), results.getDouble(6), results.getDouble(7));
 					hotels.add(hotel);
 				}
 				return hotels;
@@ -533,4 +554,112 @@ public class HotelDatabaseHandler {
 		}
 		return null;
 	}
+	
+	/**
+	 * Fetch the ids of all the hotels from DB
+	 * @return sorted list of hotel ids, null if the DB could not be queried
+	 */
+	public List<String> getAllHotelIds() {
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(HOTEL_IDS_SQL);
+		) {
+			ResultSet results = statement.executeQuery();
+			List<String> hotelIds = new ArrayList<>();
+			while (results.next()) {
+				hotelIds.add(results.getString(1));
+			}
+			return hotelIds;
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+	
+	/**
+	 * Used to get hotel by id with its area and property descriptions
+	 * @param id - hotel id
+	 * @return hotel with descriptions, which are null if they were never fetched; null if the hotel does not exist
+	 * or the DB could not be queried
+	 */
+	public HotelDetails getHotelWithDescriptions(String id) {
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(HOTEL_WITH_DESCRIPTIONS_SQL);
+		) {
+			statement.setString(1, id);
+			ResultSet results = statement.executeQuery();
+			if (results.next()) {
+				HotelDetails hotel = new HotelDetails(results.getString(1), results.getString(2), results.getString(3),
+						results.getString(4), results.getString(5), results.getDouble(6), results.getDouble(7));
+				return new HotelDetails.Builder(hotel)
+						.setAreaDescription(results.getString(8))
+						.setPropertyDescription(results.getString(9))
+						.build();
+			}
+		} catch (SQLException e) {
+			System.err.println(e.getMessage() + " " + e);
+		}
+		return null;
+	}
+	
+	/**
+	 * Stores the descriptions of a hotel, cut to the size of the columns
+	 * @param id - hotel id
+	 * @param areaDescription - about this area description, empty if the page has none
+	 * @param propertyDescription - about this property description, empty if the page has none
+	 * @return Status.OK if the descriptions were stored
+	 */
+	public Status updateDescriptions(String id, String areaDescription, String propertyDescription) {
+		Status status = Status.ERROR;
+		
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(UPDATE_DESCRIPTIONS_SQL);
+		) {
+			statement.setString(1, truncate(areaDescription));
+			statement.setString(2, truncate(propertyDescription));
+			statement.setString(3, id);
+			status = statement.executeUpdate() == 1 ? Status.OK : Status.INVALID_HOTEL;
+		}
+		catch (SQLException ex) {
+			status = Status.SQL_EXCEPTION;
+			System.err.println(status + " " + ex);
+		}
+		
+		return status;
+	}
+	
+	/**
+	 * Fetch the ids of the hotels whose descriptions were never fetched
+	 * @return sorted list of hotel ids, null if the DB could not be queried
+	 */
+	public List<String> getHotelIdsWithoutDescriptions() {
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(HOTEL_IDS_WITHOUT_DESCRIPTIONS_SQL);
+		) {
+			ResultSet results = statement.executeQuery();
+			List<String> hotelIds = new ArrayList<>();
+			while (results.next()) {
+				hotelIds.add(results.getString(1));
+			}
+			return hotelIds;
+		} catch (SQLException e) {
+			System.err.println(e.getMessage() + " " + e);
+		}
+		return null;
+	}
+	
+	/**
+	 * Cuts a description to the size of the description columns
+	 * @param description - description
+	 * @return description of at most MAX_DESCRIPTION_LENGTH characters, empty if it is null
+	 */
+	private static String truncate(String description) {
+		if (description == null) {
+			return "";
+		}
+		return description.length() > MAX_DESCRIPTION_LENGTH ? description.substring(0, MAX_DESCRIPTION_LENGTH) : description;
+	}
 }
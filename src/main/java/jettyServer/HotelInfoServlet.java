@@ -1,8 +1,7 @@
 package jettyServer;
 
+import hotelapp.DescriptionCache;
 import hotelapp.HotelDetails;
-import hotelapp.ThreadSafeHotelData;
-import hotelapp.TouristAttractionFinder;
 import org.apache.commons.text.StringEscapeUtils;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
@@ -16,6 +15,7 @@ import java.io.StringWriter;
 
 /**
  * HotelInfo servlet to handle hotel info related requests.
+ * Hotels and their expedia descriptions are read from the DescriptionCache, no outbound request is made.
  */
 @SuppressWarnings("serial")
 public class HotelInfoServlet extends HttpServlet {
@@ -44,8 +44,7 @@ public class HotelInfoServlet extends HttpServlet {
 		PrintWriter out = response.getWriter();
 		String hotelId = StringEscapeUtils.escapeHtml4(request.getParameter("hotelId"));
 		
-		HotelBaseServlet hbServlet = new HotelBaseServlet();
-		HotelDetails hotelDetails = hbServlet.getHotelById(hotelId);
+		HotelDetails hotelDetails = DescriptionCache.getInstance().get(hotelId);
 		
 		VelocityEngine ve = (VelocityEngine) request.getServletContext().getAttribute("templateEngine");
 		VelocityContext context = new VelocityContext();
@@ -59,7 +58,9 @@ public class HotelInfoServlet extends HttpServlet {
 			context.put("hotelname", hotelDetails.getName());
 			context.put("lat", hotelDetails.getLatitude());
 			context.put("lng", hotelDetails.getLongitude());
-			System.out.println(hotelDetails.getLatitude()+ " " + hotelDetails.getLongitude());
+			// descriptions are scraped from expedia, and older ones were saved with their html
+			context.put("areaDescription", StringEscapeUtils.escapeHtml4(hotelDetails.getAreaDescription()));
+			context.put("propertyDescription", StringEscapeUtils.escapeHtml4(hotelDetails.getPropertyDescription()));
 		}
 		else {
 			context.put("name", "Invalid hotel name");
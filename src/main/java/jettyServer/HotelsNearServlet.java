@@ -0,0 +1,100 @@
+package jettyServer;
+
+import hotelapp.HotelSpatialIndex;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Servlet listing hotels near a location, /hotels/near?lat=&lng=&radius=
+ * Passing k instead of radius lists the k nearest hotels.
+ * Uses the spatial index built over all hotels when the server starts.
+ */
+@SuppressWarnings("serial")
+public class HotelsNearServlet extends HttpServlet {
+	
+	/** Radius in miles used when neither radius nor k is given */
+	private static final double DEFAULT_RADIUS = 5;
+	
+	/** Maximum number of hotels returned by a k nearest query */
+	private static final int MAX_K = 100;
+	
+	private HotelSpatialIndex index;
+	
+	/**
+	 * Constructor of this Servlet class
+	 * @param index spatial index over all hotels
+	 */
+	public HotelsNearServlet(HotelSpatialIndex index) {
+		this.index = index;
+	}
+	
+	/**
+	 * Processes GET request for hotels near a location and sends HTML response to the client.
+	 * Redirects to login if not logged in.
+	 * @param request request read from client's input stream
+	 * @param response response written to client's output stream
+	 * @throws IOException throws exception if any
+	 */
+	@Override
+	public void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		
+		HttpSession session = request.getSession();
+		String user = (String) session.getAttribute("username");
+		if (user == null) {
+			response.sendRedirect("/login");
+			return;
+		}
+		
+		double lat;
+		double lng;
+		try {
+			lat = Double.parseDouble(request.getParameter("lat"));
+			lng = Double.parseDouble(request.getParameter("lng"));
+		} catch (NullPointerException | NumberFormatException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "lat and lng are required");
+			return;
+		}
+		
+		List<HotelSpatialIndex.Neighbor> hotels;
+		VelocityContext context = new VelocityContext();
+		try {
+			if (request.getParameter("k") != null && request.getParameter("radius") == null) {
+				int k = Math.min(MAX_K, Integer.parseInt(request.getParameter("k")));
+				hotels = index.nearest(lat, lng, k);
+				context.put("radius", hotels.isEmpty() ? 0 : hotels.get(hotels.size() - 1).getFormattedDistance());
+			} else {
+				double radius = request.getParameter("radius") != null
+						? Double.parseDouble(request.getParameter("radius")) : DEFAULT_RADIUS;
+				hotels = index.withinRadius(lat, lng, radius);
+				context.put("radius", radius);
+			}
+		} catch (NumberFormatException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid radius or k");
+			return;
+		}
+		
+		response.setContentType("text/html");
+		response.setStatus(HttpServletResponse.SC_OK);
+		VelocityEngine ve = (VelocityEngine) request.getServletContext().getAttribute("templateEngine");
+		Template template = ve.getTemplate("templates/hotelsNear.html");
+		context.put("lat", lat);
+		context.put("lng", lng);
+		context.put("hotels", hotels);
+		StringWriter writer = new StringWriter();
+		template.merge(context, writer);
+		
+		PrintWriter out = response.getWriter();
+		out.println(writer.toString());
+	}
+}
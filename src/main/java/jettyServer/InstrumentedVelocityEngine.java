@@ -0,0 +1,65 @@
+package jettyServer;
+
+import hotelapp.JfrEvents;
+import hotelapp.Tracer;
+import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.context.Context;
+
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Velocity engine whose templates time their merges, so the servlets keep calling
+ * ve.getTemplate(...).merge(context, writer) unchanged. Each merge is committed as a JfrEvents.TemplateEvent
+ * and is a "template" span of the current trace.
+ */
+public class InstrumentedVelocityEngine extends VelocityEngine {
+
+	@Override
+	public Template getTemplate(String name) {
+		return new TimedTemplate(super.getTemplate(name));
+	}
+
+	@Override
+	public Template getTemplate(String name, String encoding) {
+		return new TimedTemplate(super.getTemplate(name, encoding));
+	}
+
+	/**
+	 * Template delegating to the template loaded by Velocity, timing its merges
+	 */
+	private static class TimedTemplate extends Template {
+		private final Template template;
+
+		private TimedTemplate(Template template) {
+			this.template = template;
+			setName(template.getName());
+			setEncoding(template.getEncoding());
+			setData(template.getData());
+		}
+
+		@Override
+		public void merge(Context context, Writer writer) {
+			merge(context, writer, null);
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		public void merge(Context context, Writer writer, List macroLibraries) {
+			JfrEvents.TemplateEvent event = new JfrEvents.TemplateEvent();
+			event.begin();
+			Tracer.Span span = Tracer.getInstance().span("template", template.getName());
+			try {
+				template.merge(context, writer, macroLibraries);
+			} finally {
+				span.close();
+				event.end();
+				if (event.shouldCommit()) {
+					event.template = template.getName();
+					event.commit();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package jettyServer;
+
+import hotelapp.JfrEvents;
+import hotelapp.MetricsRegistry;
+import hotelapp.Tracer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thin wrapper around the connections of DatabaseConnector that times every statement.
+ * Statements are named by the SQL constant of the handler they were prepared from (for example
+ * ReviewDatabaseHandler.REVIEWS_BY_HOTELID_SQL), SQL that is not a known constant is named "other", so the
+ * metrics have one series per constant. For every statement it records the number of executions and their
+ * latency, the rows read from its result sets, the rows it updated and its errors. Statements slower than the
+ * threshold are logged with the types of their bind parameters only, never their values.
+ * Every execution is also a JfrEvents.DatabaseEvent; the event of a query is committed when its result set or
+ * statement is closed, with the rows read from it, and a "db" span of the current trace.
+ */
+class JdbcInstrumentation {
+
+	/** Name of statements whose SQL is not a known constant */
+	private static final String OTHER = "other";
+
+	private final Map<String, String> statementNames;
+	private final long slowQueryNanos;
+	private final MetricsRegistry registry = MetricsRegistry.getInstance();
+
+	/**
+	 * Constructor of this class
+	 * @param statementNames names of the SQL constants by their SQL
+	 * @param slowQueryMillis statements taking longer are logged
+	 */
+	JdbcInstrumentation(Map<String, String> statementNames, long slowQueryMillis) {
+		this.statementNames = statementNames;
+		this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+	}
+
+	/**
+	 * Wraps a connection so the statements created from it are timed
+	 * @param connection connection to the database
+	 * @return instrumented connection
+	 */
+	Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(JdbcInstrumentation.class.getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					Object result = invoke(connection, method, args);
+					if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+						return wrap((PreparedStatement) result, PreparedStatement.class, (String) args[0]);
+					}
+					if (result instanceof Statement && method.getName().equals("createStatement")) {
+						return wrap((Statement) result, Statement.class, null);
+					}
+					return result;
+				});
+	}
+
+	/**
+	 * Returns the name of the SQL constant of the statement
+	 * @param sql SQL of the statement
+	 * @return name of the constant, "other" if the SQL is not a known constant
+	 */
+	String nameOf(String sql) {
+		String name = sql == null ? null : statementNames.get(sql);
+		return name == null ? OTHER : name;
+	}
+
+	private <T extends Statement> T wrap(T statement, Class<T> type, String sql) {
+		return type.cast(Proxy.newProxyInstance(JdbcInstrumentation.class.getClassLoader(), new Class<?>[] { type },
+				new StatementHandler(statement, sql)));
+	}
+
+	/**
+	 * Calls the method on the wrapped object, throwing the exception of the method itself
+	 */
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Times the executions of a statement and remembers the types of its bind parameters
+	 */
+	private class StatementHandler implements InvocationHandler {
+		private final Statement statement;
+		private final String sql;
+		private final Map<Integer, String> binds = new TreeMap<>();
+		private JfrEvents.DatabaseEvent pendingQuery;
+		private long pendingRows;
+		private String executedName;
+
+		private StatementHandler(Statement statement, String sql) {
+			this.statement = statement;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String methodName = method.getName();
+			if (methodName.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				binds.put((Integer) args[0], describe(methodName, args[1]));
+			} else if (methodName.equals("clearParameters")) {
+				binds.clear();
+			}
+			if (methodName.startsWith("execute") || methodName.equals("close")) {
+				commitPendingQuery();
+			}
+			if (methodName.startsWith("execute")) {
+				String executedSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+				return execute(method, args, executedSql);
+			}
+			Object result = JdbcInstrumentation.invoke(statement, method, args);
+			if (result instanceof ResultSet && methodName.equals("getResultSet")) {
+				return wrapResultSet((ResultSet) result, executedName != null ? executedName : nameOf(sql));
+			}
+			return result;
+		}
+
+		/**
+		 * Runs an execute method, recording its latency, updated rows or errors
+		 */
+		private Object execute(Method method, Object[] args, String executedSql) throws Throwable {
+			String name = nameOf(executedSql);
+			executedName = name;
+			JfrEvents.DatabaseEvent event = new JfrEvents.DatabaseEvent();
+			event.statement = name;
+			event.begin();
+			long start = System.nanoTime();
+			try (Tracer.Span span = Tracer.getInstance().span("db", name)) {
+				Object result = JdbcInstrumentation.invoke(statement, method, args);
+				event.end();
+				if (result instanceof ResultSet) {
+					pendingQuery = event;
+					return wrapResultSet((ResultSet) result, name);
+				}
+				if (result instanceof Integer || result instanceof Long) {
+					event.rows = ((Number) result).longValue();
+				} else if (result instanceof int[]) {
+					for (int count : (int[]) result) {
+						event.rows += Math.max(0, count);
+					}
+				} else if (Boolean.TRUE.equals(result)) {
+					// execute returned a result set, read with getResultSet
+					pendingQuery = event;
+					return result;
+				}
+				rowsUpdated(name).add(event.rows);
+				span.setDetail(name + " " + event.rows + " rows");
+				event.commit();
+				return result;
+			} catch (Throwable e) {
+				registry.counter("db_statement_errors_total", "Statements that threw an exception, by SQL constant",
+						"statement", name).increment();
+				event.end();
+				event.failed = true;
+				event.commit();
+				throw e;
+			} finally {
+				long elapsed = System.nanoTime() - start;
+				registry.histogram("db_statement_duration_seconds", "Time to execute a statement, by SQL constant",
+						"statement", name).recordNanos(elapsed);
+				if (elapsed > slowQueryNanos) {
+					System.err.println("Slow query " + name + " took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms: "
+							+ (executedSql == null ? "" : executedSql.replaceAll("\\s+", " ")) + " binds " + binds.values());
+				}
+			}
+		}
+
+		private LongAdder rowsUpdated(String name) {
+			return registry.counter("db_rows_updated_total", "Rows inserted, updated or deleted, by SQL constant",
+					"statement", name);
+		}
+
+		/**
+		 * Commits the event of the last query with the rows read from its result set
+		 */
+		private void commitPendingQuery() {
+			if (pendingQuery != null) {
+				pendingQuery.rows = pendingRows;
+				pendingQuery.commit();
+				pendingQuery = null;
+			}
+			pendingRows = 0;
+		}
+
+		/**
+		 * Wraps a result set so the rows read from it are counted
+		 */
+		private ResultSet wrapResultSet(ResultSet resultSet, String name) {
+			LongAdder rows = registry.counter("db_rows_read_total", "Rows read from result sets, by SQL constant",
+					"statement", name);
+			return (ResultSet) Proxy.newProxyInstance(JdbcInstrumentation.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+					(proxy, method, args) -> {
+						Object result = JdbcInstrumentation.invoke(resultSet, method, args);
+						if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+							rows.increment();
+							pendingRows++;
+						} else if (method.getName().equals("close")) {
+							commitPendingQuery();
+						}
+						return result;
+					});
+		}
+	}
+
+	/**
+	 * Describes a bind parameter without its value
+	 * @param setter name of the setter, for example setString
+	 * @param value value of the parameter
+	 * @return type of the parameter, with the length of strings
+	 */
+	private static String describe(String setter, Object value) {
+		String type = setter.substring(3);
+		if (value == null) {
+			return type + "(null)";
+		}
+		if (value instanceof String) {
+			return type + "(" + ((String) value).length() + " chars)";
+		}
+		return type;
+	}
+}
@@ -1,13 +1,33 @@
 package jettyServer;
 
+import hotelapp.AttractionPrecomputer;
+import hotelapp.DescriptionPrecomputer;
+import hotelapp.HotelDataBuilder;
+import hotelapp.HotelDetails;
+import hotelapp.HotelSearch;
+import hotelapp.HotelSpatialIndex;
+import hotelapp.IngestionManifest;
+import hotelapp.ReviewsDirectoryWatcher;
 import hotelapp.ThreadSafeHotelData;
+import hotelapp.TouristAttractionFinder;
 import org.apache.velocity.app.VelocityEngine;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.LifeCycle;
 
+import javax.servlet.DispatcherType;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Handler;
 
 /**
@@ -21,23 +41,49 @@ public class JettyHotelServer {
 	
 	/**
 	 * Driver method of this class.
-	 * Pre-loads thread safe hotel data.
+	 * Pre-loads thread safe hotel data when -hotels and -reviews are passed
+	 * and, with -manifest, watches the reviews directory for new review files.
+	 * With -precompute true the attractions and expedia descriptions of the hotels are fetched in the background.
 	 * Maps servlets with handlers.
 	 * Starts Jetty server.
-	 * @param args takes command line arguments -hotel hotelpath -reviews reviewsdir
+	 * @param args takes command line arguments -hotels hotelpath -reviews reviewsdir
+	 *             (optional -snapshot snapshotfile -manifest manifestfile -precompute true)
 	 * @throws Exception throws exceptions is any
 	 */
 	public static void main(String[] args) {
 		
 		Server server = new Server(PORT);
-		//ThreadSafeHotelData data = new HotelSearch().loadHotelData(args);
+		server.setStopAtShutdown(true);
 		ThreadSafeHotelData data = new ThreadSafeHotelData();
+		if (args.length >= 4) {
+			data = HotelSearch.loadHotelData(args);
+			Map<String, String> argsMap = HotelSearch.parseArgs(args);
+			if (argsMap.get("-reviews") != null && argsMap.get("-manifest") != null) {
+				watchReviews(server, data, Paths.get(argsMap.get("-reviews")), Paths.get(argsMap.get("-manifest")));
+			} else if (argsMap.get("-reviews") != null) {
+				System.out.println("Not watching the reviews directory, pass -manifest to reload changed review files");
+			}
+		}
 		
 		ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+		FilterHolder metricsFilter = new FilterHolder(new RequestMetricsFilter());
+		// async so requests of /attractions are recorded when their async context completes
+		metricsFilter.setAsyncSupported(true);
+		context.addFilter(metricsFilter, "/*", EnumSet.of(DispatcherType.REQUEST));
+		context.addServlet(new ServletHolder(new MetricsServlet()), "/metrics");
+		context.addServlet(new ServletHolder(new TracesServlet()), "/debug/traces");
 		context.addServlet(HomeServlet.class, "/home");
 		context.addServlet(new ServletHolder(new HotelInfoServlet()), "/hotelInfo");
 		context.addServlet(new ServletHolder(new ReviewsServlet()), "/reviews");
-		context.addServlet(new ServletHolder(new AttractionsServlet(data)), "/attractions");
+		TouristAttractionFinder attractionFinder = attractionFinder(server, data);
+		// both jobs call external sites, so they only run when asked for
+		if ("true".equalsIgnoreCase(HotelSearch.parseArgs(args).get("-precompute"))) {
+			precomputeAttractions(server, data, attractionFinder);
+			precomputeDescriptions(server, attractionFinder);
+		}
+		ServletHolder attractionsHolder = new ServletHolder(new AttractionsServlet(attractionFinder));
+		attractionsHolder.setAsyncSupported(true);
+		context.addServlet(attractionsHolder, "/attractions");
 		
 		context.addServlet(new ServletHolder(new LoginUserServlet()),     "/login");
 		context.addServlet(new ServletHolder(new LoginRegisterServlet()), "/register");
@@ -49,10 +95,11 @@ public class JettyHotelServer {
 		context.addServlet(ProfileServlet.class,  "/profile");
 		
 		context.addServlet(HotelSearchServlet.class,  "/hotelSearch");
+		context.addServlet(new ServletHolder(new HotelsNearServlet(hotelIndex(data))), "/hotels/near");
 		context.addServlet(AddFavouritesServlet.class,  "/addFavourites");
 		
 		// initialize Velocity
-		VelocityEngine velocity = new VelocityEngine();
+		VelocityEngine velocity = new InstrumentedVelocityEngine();
 		velocity.init();
 		
 		// set velocity as an attribute of the context so that we can access it
@@ -79,5 +126,104 @@ public class JettyHotelServer {
 			System.err.println(e);
 		}
 	}
+	
+	/**
+	 * Builds the spatial index over all hotels, from the loaded hotel data or from the DB if no data was loaded.
+	 * @param data hotel data
+	 * @return spatial index
+	 */
+	@SuppressWarnings("unchecked")
+	private static HotelSpatialIndex hotelIndex(ThreadSafeHotelData data) {
+		if (!data.getHotels().isEmpty()) {
+			return HotelSpatialIndex.fromHotelData(data);
+		}
+		List<HotelDetails> hotels = HotelDatabaseHandler.getInstance().getAllHotels();
+		return new HotelSpatialIndex(hotels != null ? hotels : new ArrayList<>());
+	}
+	
+	/**
+	 * Creates the attraction finder shared by all requests. Its fetch threads are stopped together with the server.
+	 * @param server jetty server
+	 * @param data hotel data
+	 * @return attraction finder
+	 */
+	private static TouristAttractionFinder attractionFinder(Server server, ThreadSafeHotelData data) {
+		TouristAttractionFinder finder = new TouristAttractionFinder(data);
+		server.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+			@Override
+			public void lifeCycleStopping(LifeCycle event) {
+				finder.shutdown();
+			}
+		});
+		return finder;
+	}
+	
+	/**
+	 * Starts the background job precomputing attractions of all hotels and serves the attractions page
+	 * from the precomputed attractions only. The job is stopped together with the server.
+	 * @param server jetty server
+	 * @param data hotel data, hotel ids are read from the DB if it is empty
+	 * @param finder attraction finder shared by all requests
+	 */
+	private static void precomputeAttractions(Server server, ThreadSafeHotelData data, TouristAttractionFinder finder) {
+		AttractionPrecomputer precomputer = new AttractionPrecomputer(finder, () -> {
+			List<String> hotelIds = data.getHotels();
+			return hotelIds.isEmpty() ? HotelDatabaseHandler.getInstance().getAllHotelIds() : hotelIds;
+		});
+		finder.setFetchOnRequest(false);
+		precomputer.start();
+		server.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+			@Override
+			public void lifeCycleStopping(LifeCycle event) {
+				precomputer.stop();
+			}
+		});
+	}
+	
+	/**
+	 * Starts the background job fetching the expedia descriptions of the hotels in the DB that have none yet,
+	 * so the hotel info page is served from hotel_details only. The job is stopped together with the server.
+	 * @param server jetty server
+	 * @param finder attraction finder used to fetch the expedia pages
+	 */
+	private static void precomputeDescriptions(Server server, TouristAttractionFinder finder) {
+		DescriptionPrecomputer precomputer = new DescriptionPrecomputer(finder,
+				() -> HotelDatabaseHandler.getInstance().getHotelIdsWithoutDescriptions());
+		precomputer.start();
+		server.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+			@Override
+			public void lifeCycleStopping(LifeCycle event) {
+				precomputer.stop();
+			}
+		});
+	}
+	
+	/**
+	 * Starts watching the reviews directory so new or modified review files are merged into the
+	 * running hotel data. The watcher is stopped together with the server.
+	 * A changed file is diffed against its entry in the manifest written by the startup load, so edited reviews
+	 * are upserted and removed reviews are deleted from DB. Without the manifest the reviews of a file before the
+	 * change are unknown, so the watcher is only started with one.
+	 * @param server jetty server
+	 * @param data hotel data to merge the reviews into
+	 * @param reviewsDir path to the reviews directory
+	 * @param manifestFile path to the ingestion manifest
+	 */
+	private static void watchReviews(Server server, ThreadSafeHotelData data, Path reviewsDir, Path manifestFile) {
+		HotelDataBuilder builder = new HotelDataBuilder(data);
+		builder.setManifest(IngestionManifest.load(manifestFile), false);
+		try {
+			ReviewsDirectoryWatcher watcher = new ReviewsDirectoryWatcher(reviewsDir, builder, manifestFile);
+			watcher.start();
+			server.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+				@Override
+				public void lifeCycleStopping(LifeCycle event) {
+					watcher.stop();
+				}
+			});
+		} catch (IOException e) {
+			System.err.println("Could not watch reviews directory: " + e);
+		}
+	}
 
 }
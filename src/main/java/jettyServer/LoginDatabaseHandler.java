@@ -83,7 +83,7 @@ public class LoginDatabaseHandler {
 		
 		try {
 			// TODO Change to "database.properties" or whatever your file is called
-			db = new DatabaseConnector("database.properties");
+			db = new DatabaseConnector(DatabaseConnector.configPath(), LoginDatabaseHandler.class);
 			status = db.testConnection() ? setupTables() : Status.CONNECTION_FAILED;
 		}
 		catch (FileNotFoundException e) {
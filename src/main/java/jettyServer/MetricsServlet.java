@@ -0,0 +1,30 @@
+package jettyServer;
+
+import hotelapp.MetricsRegistry;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Metrics servlet writing all metrics of the MetricsRegistry in the Prometheus text format.
+ * Does not require a login, so it can be scraped.
+ */
+@SuppressWarnings("serial")
+public class MetricsServlet extends HttpServlet {
+
+	/**
+	 * Processes GET request for the metrics and writes them to the client.
+	 * @param request request read from client's input stream
+	 * @param response response written to client's output stream
+	 * @throws IOException throws exception if any
+	 */
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentType("text/plain; version=0.0.4");
+		response.setCharacterEncoding("UTF-8");
+		response.setStatus(HttpServletResponse.SC_OK);
+		MetricsRegistry.getInstance().writePrometheus(response.getWriter());
+	}
+}
@@ -0,0 +1,162 @@
+package jettyServer;
+
+import hotelapp.JfrEvents;
+import hotelapp.MetricsRegistry;
+import hotelapp.Tracer;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filter recording the latency, status code and number of requests in flight of every route.
+ * The route is the servlet path, so pages are counted by the servlet that serves them; requests served by
+ * the catch-all servlet are counted as "/*". Requests processed asynchronously (like /attractions) are
+ * recorded when the async context completes, so the filter must be registered with async support.
+ * Each request is also committed as a JfrEvents.RequestEvent, with the user anonymized, and traced by the
+ * Tracer; the trace id is sent in the X-Trace-Id header so a slow response can be found on /debug/traces.
+ */
+public class RequestMetricsFilter implements Filter {
+
+	private final MetricsRegistry registry = MetricsRegistry.getInstance();
+	private final Tracer tracer = Tracer.getInstance();
+	private final Map<String, AtomicLong> inFlight = new ConcurrentHashMap<>();
+
+	@Override
+	public void init(FilterConfig filterConfig) {
+	}
+
+	/**
+	 * Times the request and records it once the response is complete
+	 * @param request request read from client's input stream
+	 * @param response response written to client's output stream
+	 * @param chain rest of the filters and the servlet
+	 * @throws IOException throws exception if any
+	 * @throws ServletException throws exception if any
+	 */
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+		String route = route(httpRequest);
+		AtomicLong routeInFlight = inFlight(route);
+		JfrEvents.RequestEvent requestEvent = new JfrEvents.RequestEvent();
+		requestEvent.begin();
+		Tracer.Trace trace = tracer.start(route);
+		httpResponse.setHeader("X-Trace-Id", trace.getId());
+		long start = System.nanoTime();
+		routeInFlight.incrementAndGet();
+		boolean failed = true;
+		try {
+			chain.doFilter(request, response);
+			failed = false;
+		} finally {
+			tracer.detach();
+			if (!failed && httpRequest.isAsyncStarted()) {
+				httpRequest.getAsyncContext().addListener(new AsyncListener() {
+					@Override
+					public void onComplete(AsyncEvent event) {
+						record(httpRequest, route, start, httpResponse.getStatus(), routeInFlight, requestEvent, trace);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) {
+					}
+				});
+			} else {
+				record(httpRequest, route, start, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : httpResponse.getStatus(),
+						routeInFlight, requestEvent, trace);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+	/**
+	 * Records a completed request
+	 * @param request request read from client's input stream
+	 * @param route route of the request
+	 * @param start time the request started, from System.nanoTime
+	 * @param status status code of the response
+	 * @param routeInFlight requests in flight of the route
+	 * @param event flight recorder event begun with the request
+	 * @param trace trace of the request
+	 */
+	private void record(HttpServletRequest request, String route, long start, int status, AtomicLong routeInFlight,
+			JfrEvents.RequestEvent event, Tracer.Trace trace) {
+		routeInFlight.decrementAndGet();
+		tracer.finish(trace, status);
+		registry.histogram("http_request_duration_seconds", "Time to serve a request, by route", "route", route)
+				.recordNanos(System.nanoTime() - start);
+		registry.counter("http_requests_total", "Requests served, by route and status code",
+				"route", route, "status", String.valueOf(status)).increment();
+		event.end();
+		if (event.shouldCommit()) {
+			event.route = route;
+			event.method = request.getMethod();
+			event.user = JfrEvents.anonymize(username(request));
+			event.status = status;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Returns the counter of requests in flight of the route, registering its gauge on first use
+	 * @param route route of the request
+	 * @return requests in flight
+	 */
+	private AtomicLong inFlight(String route) {
+		return inFlight.computeIfAbsent(route, key -> {
+			AtomicLong count = new AtomicLong();
+			registry.gauge("http_requests_in_flight", "Requests being served, by route", count::get, "route", key);
+			return count;
+		});
+	}
+
+	/**
+	 * Returns the user logged in the session of the request
+	 * @param request request read from client's input stream
+	 * @return username, null if there is no session or it was invalidated by the request
+	 */
+	private static String username(HttpServletRequest request) {
+		try {
+			HttpSession session = request.getSession(false);
+			return session == null ? null : (String) session.getAttribute("username");
+		} catch (IllegalStateException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the route of the request
+	 * @param request request read from client's input stream
+	 * @return servlet path, "/*" for the catch-all servlet
+	 */
+	private static String route(HttpServletRequest request) {
+		String servletPath = request.getServletPath();
+		return servletPath == null || servletPath.isEmpty() ? "/*" : servletPath;
+	}
+}
@@ -1,6 +1,7 @@
 package jettyServer;
 
 import hotelapp.HotelReview;
+import hotelapp.ReviewOrder;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -35,6 +36,18 @@ public class ReviewBaseServlet {
 		return null;
 	}
 	
+	/**
+	 * Get a page of the reviews of a hotel in the given order
+	 * @param hotelid - hotel id
+	 * @param offset - number of reviews to skip
+	 * @param count - maximum number of reviews
+	 * @param order - order of the reviews
+	 * @return list of at most count hotel reviews
+	 */
+	protected List<HotelReview> getTopReviewsByHotelId(String hotelid, int offset, int count, ReviewOrder order) {
+		return dbhandler.getTopReviewsByHotelId(hotelid, offset, count, order);
+	}
+	
 	/**
 	 * Add review to DB
 	 * @param reviewid - review id
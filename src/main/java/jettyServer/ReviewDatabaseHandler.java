@@ -2,10 +2,14 @@ package jettyServer;
 
 import hotelapp.HotelReview;
 import hotelapp.HotelReviewsComparator;
+import hotelapp.ReviewOrder;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -40,6 +44,14 @@ public class ReviewDatabaseHandler {
 			"INSERT INTO review_details (reviewid, hotelid, user, rating, isrecommended, title, reviewtext, reviewdate) " +
 			"VALUES (?, ?, ?, ?, ?, ?, ?, ?);";
 	
+	/** Used to insert a review or update it if the review id already exists. */
+	private static final String UPSERTREVIEW_SQL =
+			"INSERT INTO review_details (reviewid, hotelid, user, rating, isrecommended, title, reviewtext, reviewdate) " +
+			"VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+			"ON DUPLICATE KEY UPDATE hotelid = VALUES(hotelid), user = VALUES(user), rating = VALUES(rating), " +
+			"isrecommended = VALUES(isrecommended), title = VALUES(title), reviewtext = VALUES(reviewtext), " +
+			"reviewdate = VALUES(reviewdate);";
+	
 	/** Used to determine if a review id already exists. */
 	private static final String CHECKREVIEW_SQL =
 			"SELECT reviewid FROM review_details WHERE reviewid = ?";
@@ -61,6 +73,21 @@ public class ReviewDatabaseHandler {
 	private static final String REVIEWS_BY_HOTELID_SQL =
 			"SELECT reviewid, hotelid, user, rating, isrecommended, title, reviewtext, reviewdate FROM review_details WHERE hotelid = ?";
 	
+	/** Used to get the most recent reviews of a hotel from the database. */
+	private static final String NEWEST_REVIEWS_BY_HOTELID_SQL =
+			"SELECT reviewid, hotelid, user, rating, isrecommended, title, reviewtext, reviewdate FROM review_details " +
+			"WHERE hotelid = ? ORDER BY reviewdate DESC, user, reviewid LIMIT ? OFFSET ?";
+	
+	/** Used to get the highest rated reviews of a hotel from the database. */
+	private static final String HIGHEST_RATED_REVIEWS_BY_HOTELID_SQL =
+			"SELECT reviewid, hotelid, user, rating, isrecommended, title, reviewtext, reviewdate FROM review_details " +
+			"WHERE hotelid = ? ORDER BY rating DESC, reviewdate DESC, user, reviewid LIMIT ? OFFSET ?";
+	
+	/** Used to get the most recent reviews recommending a hotel from the database. */
+	private static final String RECOMMENDED_REVIEWS_BY_HOTELID_SQL =
+			"SELECT reviewid, hotelid, user, rating, isrecommended, title, reviewtext, reviewdate FROM review_details " +
+			"WHERE hotelid = ? AND isrecommended = TRUE ORDER BY reviewdate DESC, user, reviewid LIMIT ? OFFSET ?";
+	
 	/** Used to get review by review id from the database. */
 	private static final String REVIEW_BY_REVIEWID_SQL =
 			"SELECT reviewid, hotelid, user, rating, isrecommended, title, reviewtext, reviewdate FROM review_details WHERE reviewid = ?";
@@ -86,7 +113,7 @@ public class ReviewDatabaseHandler {
 		
 		try {
 			// TODO Change to "database.properties" or whatever your file is called
-			db = new DatabaseConnector("database.properties");
+			db = new DatabaseConnector(DatabaseConnector.configPath(), ReviewDatabaseHandler.class);
 			status = db.testConnection() ? setupTables() : Status.CONNECTION_FAILED;
 		}
 		catch (FileNotFoundException e) {
@@ -465,6 +492,48 @@ public class ReviewDatabaseHandler {
 		return null;
 	}
 	
+	/**
+	 * Used to get a page of the reviews of a hotel. Sorting and limiting is done by the database,
+	 * so only the returned reviews are read.
+	 * @param hotelid - hotel id
+	 * @param offset - number of reviews to skip
+	 * @param count - maximum number of reviews
+	 * @param order - order of the reviews
+	 * @return list of at most count reviews in the given order
+	 */
+	public List<HotelReview> getTopReviewsByHotelId(String hotelid, int offset, int count, ReviewOrder order) {
+		String sql;
+		switch (order) {
+			case HIGHEST_RATED:
+				sql = HIGHEST_RATED_REVIEWS_BY_HOTELID_SQL;
+				break;
+			case RECOMMENDED:
+				sql = RECOMMENDED_REVIEWS_BY_HOTELID_SQL;
+				break;
+			default:
+				sql = NEWEST_REVIEWS_BY_HOTELID_SQL;
+		}
+		
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql);
+		) {
+			statement.setString(1, hotelid);
+			statement.setInt(2, count);
+			statement.setInt(3, offset);
+			ResultSet results = statement.executeQuery();
+			List<HotelReview> reviews = new ArrayList<>();
+			while (results.next()) {
+				HotelReview review = new HotelReview(results.getString(1), results.getString(2), results.getString(3), results.getInt(4), results.getBoolean(5), results.getString(6), results.getString(7), results.getString(8));
+				reviews.add(review);
+			}
+			return reviews;
+		} catch (SQLException e) {
+			System.err.println(e);
+		}
+		return null;
+	}
+	
 	/**
 	 * Used to get review by review id
 	 * @param connection - database connection
@@ -659,5 +728,75 @@ public class ReviewDatabaseHandler {
 		return status;
 	}
 	
+	/**
+	 * Inserts new reviews and updates existing ones in a single batch,
+	 * without checking if every review already exists.
+	 * @param reviews - reviews to insert or update
+	 * @return status.OK if all reviews were written
+	 */
+	public Status upsertReviews(Collection<HotelReview> reviews) {
+		Status status = Status.ERROR;
+		if (reviews.isEmpty()) {
+			return Status.OK;
+		}
+		
+		System.out.println("Writing " + reviews.size() + " reviews.");
+		
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(UPSERTREVIEW_SQL);
+		) {
+			for (HotelReview review : reviews) {
+				statement.setString(1, review.getReviewId());
+				statement.setString(2, review.getHotelId());
+				statement.setString(3, review.getUserNickname());
+				statement.setDouble(4, review.getRating());
+				statement.setBoolean(5, review.isRecommended());
+				statement.setString(6, review.getTitle());
+				statement.setString(7, review.getReviewText());
+				statement.setString(8, review.getReviewDateString());
+				statement.addBatch();
+			}
+			statement.executeBatch();
+			status = Status.OK;
+		}
+		catch (SQLException ex) {
+			status = Status.SQL_EXCEPTION;
+			System.err.println(status + " " + ex);
+		}
+		
+		return status;
+	}
 	
+	/**
+	 * Removes reviews from the database in a single batch.
+	 * @param reviewIds - ids of the reviews to remove
+	 * @return status.OK if all reviews were removed
+	 */
+	public Status removeReviews(Collection<String> reviewIds) {
+		Status status = Status.ERROR;
+		if (reviewIds.isEmpty()) {
+			return Status.OK;
+		}
+		
+		System.out.println("Removing " + reviewIds.size() + " reviews.");
+		
+		try (
+				Connection connection = db.getConnection();
+				PreparedStatement statement = connection.prepareStatement(DELETE_SQL);
+		) {
+			for (String reviewId : reviewIds) {
+				statement.setString(1, reviewId);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+			status = Status.OK;
+		}
+		catch (SQLException ex) {
+			status = Status.SQL_EXCEPTION;
+			System.err.println(status + " " + ex);
+		}
+		
+		return status;
+	}
 }
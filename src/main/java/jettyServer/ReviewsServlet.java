@@ -5,6 +5,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import hotelapp.HotelDetails;
 import hotelapp.HotelReview;
+import hotelapp.ReviewOrder;
 import hotelapp.ThreadSafeHotelData;
 import org.apache.commons.text.StringEscapeUtils;
 import org.apache.velocity.Template;
@@ -27,8 +28,15 @@ import java.util.List;
 @SuppressWarnings("serial")
 public class ReviewsServlet extends HttpServlet {
 	
+	/** Number of reviews shown when the request does not have a count parameter */
+	private static final int DEFAULT_REVIEWS_COUNT = 20;
+	/** Largest count a request can ask for */
+	private static final int MAX_REVIEWS_COUNT = 100;
+	
 	/**
 	 * Processes GET request related to reviews and sends HTML response to the client.
+	 * Shows a page of count reviews (20 by default, at most 100) in the given order: newest, rating or recommended.
+	 * The page starts after offset reviews and links to the previous and next pages.
 	 * @param request request read from client's input stream
 	 * @param response response written to client's output stream
 	 * @throws ServletException throws exception if any
@@ -59,7 +67,29 @@ public class ReviewsServlet extends HttpServlet {
 			}
 		}
 		
-		List<HotelReview> reviews = reviewBaseServlet.getReviewsByHotelId(hotelId);
+		ReviewOrder order = ReviewOrder.fromString(request.getParameter("order"));
+		int count = DEFAULT_REVIEWS_COUNT;
+		int offset = 0;
+		try {
+			if (request.getParameter("count") != null) {
+				count = Integer.parseInt(request.getParameter("count"));
+			}
+			if (request.getParameter("offset") != null) {
+				offset = Integer.parseInt(request.getParameter("offset"));
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid parameter: count = " + request.getParameter("count")
+					+ ", offset = " + request.getParameter("offset"));
+		}
+		// a negative count would fail the query, a huge one would render every review of the hotel
+		count = Math.max(1, Math.min(count, MAX_REVIEWS_COUNT));
+		offset = Math.max(0, offset);
+		// one more review than shown tells whether there is a next page
+		List<HotelReview> reviews = reviewBaseServlet.getTopReviewsByHotelId(hotelId, offset, count + 1, order);
+		boolean hasNext = reviews != null && reviews.size() > count;
+		if (hasNext) {
+			reviews = reviews.subList(0, count);
+		}
 		
 		VelocityEngine ve = (VelocityEngine) request.getServletContext().getAttribute("templateEngine");
 		VelocityContext context = new VelocityContext();
@@ -74,6 +104,15 @@ public class ReviewsServlet extends HttpServlet {
 			context.put("reviews", reviews);
 			context.put("hotelId", hotelId);
 			context.put("username",user);
+			context.put("order", order.name().toLowerCase());
+			context.put("count", count);
+			context.put("offset", offset);
+			if (offset > 0) {
+				context.put("previousOffset", Math.max(0, offset - count));
+			}
+			if (hasNext) {
+				context.put("nextOffset", offset + count);
+			}
 		}
 		else {
 			context.put("name", "Invalid hotel name");
@@ -56,7 +56,7 @@ public class SavedHotelsDatabaseHandler {
 		Status status = Status.OK;
 		
 		try {
-			db = new DatabaseConnector("database.properties");
+			db = new DatabaseConnector(DatabaseConnector.configPath(), SavedHotelsDatabaseHandler.class);
 			status = db.testConnection() ? setupTables() : Status.CONNECTION_FAILED;
 		}
 		catch (FileNotFoundException e) {
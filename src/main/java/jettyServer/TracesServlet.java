@@ -0,0 +1,83 @@
+package jettyServer;
+
+import hotelapp.Tracer;
+import org.apache.commons.text.StringEscapeUtils;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.app.event.EventCartridge;
+import org.apache.velocity.app.event.ReferenceInsertionEventHandler;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Debug servlet showing the traces kept by the Tracer, /debug/traces
+ * Lists the recent traces, optionally only those of a route (?route=/hotelSearch) and slowest first
+ * (?sort=slowest), with the number of DB statements and template merges and the time spent in them.
+ * /debug/traces?id= shows the spans of one trace as a waterfall.
+ * Like /metrics it does not require a login; traces hold routes, SQL constant names and hotel ids, not users.
+ */
+@SuppressWarnings("serial")
+public class TracesServlet extends HttpServlet {
+
+	/**
+	 * Processes GET request for the traces and sends HTML response to the client.
+	 * @param request request read from client's input stream
+	 * @param response response written to client's output stream
+	 * @throws IOException throws exception if any
+	 */
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Tracer tracer = Tracer.getInstance();
+		VelocityContext context = new VelocityContext();
+		// values come from request parameters and span details, escape all of them
+		EventCartridge cartridge = new EventCartridge();
+		cartridge.addEventHandler((ReferenceInsertionEventHandler) (reference, value) ->
+				value == null ? null : StringEscapeUtils.escapeHtml4(value.toString()));
+		cartridge.attachToContext(context);
+
+		String id = request.getParameter("id");
+		if (id != null) {
+			Tracer.Trace trace = tracer.getTrace(id);
+			if (trace == null) {
+				response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+			}
+			context.put("id", id);
+			context.put("trace", trace);
+		} else {
+			String route = request.getParameter("route");
+			boolean slowest = "slowest".equals(request.getParameter("sort"));
+			List<Tracer.Trace> traces = new ArrayList<>();
+			for (Tracer.Trace trace : tracer.getRecentTraces()) {
+				if (route == null || route.isEmpty() || route.equals(trace.getName())) {
+					traces.add(trace);
+				}
+			}
+			if (slowest) {
+				traces.sort(Comparator.comparingDouble(Tracer.Trace::getDurationMillis).reversed());
+			}
+			context.put("traces", traces);
+			context.put("route", route == null ? "" : route);
+			context.put("sort", slowest ? "slowest" : "recent");
+			context.put("slowTraceMs", Tracer.SLOW_TRACE_MS);
+			context.put("samplePercent", Math.round(Tracer.SAMPLE_RATE * 100));
+		}
+
+		response.setContentType("text/html");
+		VelocityEngine ve = (VelocityEngine) request.getServletContext().getAttribute("templateEngine");
+		Template template = ve.getTemplate("templates/traces.html");
+		StringWriter writer = new StringWriter();
+		template.merge(context, writer);
+
+		PrintWriter out = response.getWriter();
+		out.println(writer.toString());
+	}
+}
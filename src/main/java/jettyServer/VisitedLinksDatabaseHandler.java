@@ -58,7 +58,7 @@ public class VisitedLinksDatabaseHandler {
 		Status status = Status.OK;
 		
 		try {
-			db = new DatabaseConnector("database.properties");
+			db = new DatabaseConnector(DatabaseConnector.configPath(), VisitedLinksDatabaseHandler.class);
 			status = db.testConnection() ? setupTables() : Status.CONNECTION_FAILED;
 		}
 		catch (FileNotFoundException e) {
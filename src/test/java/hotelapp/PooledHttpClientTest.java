@@ -0,0 +1,210 @@
+package hotelapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests PooledHttpClient against a local stub server, and measures the latency and throughput of the pooled
+ * client against a new connection per request.
+ */
+public class PooledHttpClientTest {
+
+	private static final Duration READ_TIMEOUT = Duration.ofMillis(500);
+
+	/** Threads sending requests at the same time in the measurement */
+	private static final int THREADS = 8;
+
+	/** Requests sent by each thread in the measurement */
+	private static final int REQUESTS_PER_THREAD = 200;
+
+	static {
+		// the stub writes headers and body separately; without TCP_NODELAY a kept-alive connection waits for the
+		// delayed ACK of the client (about 40 ms) and the measurement would time Nagle's algorithm
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private String base;
+	private PooledHttpClient client;
+	/** remote port of every request the stub server received */
+	private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/hello", exchange -> respond(exchange, 200, "hello", false));
+		server.createContext("/gzip", exchange -> respond(exchange, 200, "compressed hello", true));
+		server.createContext("/missing", exchange -> respond(exchange, 404, "not found", false));
+		server.createContext("/slow", exchange -> {
+			try {
+				Thread.sleep(READ_TIMEOUT.toMillis() * 4);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, 200, "too late", false);
+		});
+		// the slow handler must not hold up the others
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.start();
+		base = "http://localhost:" + server.getAddress().getPort();
+		client = new PooledHttpClient(Duration.ofSeconds(5), READ_TIMEOUT);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void respond(HttpExchange exchange, int status, String body, boolean gzip) throws IOException {
+		clientPorts.add(exchange.getRemoteAddress().getPort());
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		if (gzip) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+				out.write(bytes);
+			}
+			bytes = compressed.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	@Test
+	public void testGet() throws Exception {
+		assertEquals("hello", client.get(base + "/hello"));
+	}
+
+	@Test
+	public void testConnectionIsReused() throws Exception {
+		client.get(base + "/hello");
+		client.get(base + "/hello");
+		client.get(base + "/hello", body -> null);
+		assertEquals(3, clientPorts.size());
+		assertEquals("requests should share one kept-alive connection", 1, clientPorts.stream().distinct().count());
+	}
+
+	@Test
+	public void testReadTimeout() throws Exception {
+		long start = System.nanoTime();
+		try {
+			client.get(base + "/slow");
+			fail("expected a timeout");
+		} catch (HttpTimeoutException e) {
+			long millis = (System.nanoTime() - start) / 1000000;
+			assertTrue("timed out after " + millis + " ms", millis < READ_TIMEOUT.toMillis() * 4);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotFoundThrows() throws Exception {
+		client.get(base + "/missing");
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotFoundThrowsWithReader() throws Exception {
+		client.get(base + "/missing", body -> "read");
+	}
+
+	@Test
+	public void testGzipIsDecoded() throws Exception {
+		assertEquals("compressed hello", client.get(base + "/gzip"));
+		StringBuilder read = new StringBuilder();
+		client.get(base + "/gzip", body -> {
+			char[] buffer = new char[64];
+			for (int n = body.read(buffer); n != -1; n = body.read(buffer)) {
+				read.append(buffer, 0, n);
+			}
+			return null;
+		});
+		assertEquals("compressed hello", read.toString());
+	}
+
+	@Test
+	public void testMeasurePooledAgainstNewConnections() throws Exception {
+		// warms up both paths, so class loading and JIT do not count against the first one measured
+		measure(() -> client, 1, 50);
+		measure(() -> new PooledHttpClient(Duration.ofSeconds(5), READ_TIMEOUT), 1, 50);
+
+		clientPorts.clear();
+		double pooled = measure(() -> client, THREADS, REQUESTS_PER_THREAD);
+		long pooledConnections = clientPorts.stream().distinct().count();
+		clientPorts.clear();
+		double perRequest = measure(() -> new PooledHttpClient(Duration.ofSeconds(5), READ_TIMEOUT), THREADS, REQUESTS_PER_THREAD);
+		long newConnections = clientPorts.stream().distinct().count();
+
+		System.out.printf("pooled %d connections, new connection per request %d connections, %.1fx throughput%n",
+				pooledConnections, newConnections, pooled / perRequest);
+		assertTrue("pooled client opened " + pooledConnections + " connections", pooledConnections <= THREADS);
+		// ports of closed connections may be reused, so the count of new connections is a lower bound
+		assertTrue("new clients opened only " + newConnections + " connections", newConnections > THREADS * 10);
+	}
+
+	/**
+	 * Sends requests from several threads at the same time and prints throughput and latency percentiles
+	 * @param clients client used for each request, the same one or a new one per request
+	 * @param threads number of threads
+	 * @param requestsPerThread requests sent by each thread
+	 * @return requests per second
+	 */
+	private double measure(Supplier<PooledHttpClient> clients, int threads, int requestsPerThread) throws Exception {
+		LatencyHistogram latencies = new LatencyHistogram();
+		ExecutorService senders = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			long start = System.nanoTime();
+			for (int t = 0; t < threads; t++) {
+				results.add(senders.submit(() -> {
+					for (int i = 0; i < requestsPerThread; i++) {
+						long sent = System.nanoTime();
+						assertEquals("hello", clients.get().get(base + "/hello"));
+						latencies.recordNanos(System.nanoTime() - sent);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			double throughput = threads * requestsPerThread / seconds;
+			if (threads > 1) {
+				System.out.printf("%d threads x %d requests: %.0f req/s, p50 %d us, p99 %d us, max %d us%n",
+						threads, requestsPerThread, throughput, latencies.getPercentileMicros(50),
+						latencies.getPercentileMicros(99), latencies.getMaxMicros());
+			}
+			return throughput;
+		} finally {
+			senders.shutdownNow();
+		}
+	}
+}